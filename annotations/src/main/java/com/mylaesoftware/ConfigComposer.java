@@ -1,35 +1,359 @@
 package com.mylaesoftware;
 
+import com.mylaesoftware.snapshot.SnapshotInput;
+import com.mylaesoftware.snapshot.SnapshotOutput;
+import com.mylaesoftware.validators.ValidationMode;
 import com.typesafe.config.Config;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 public class ConfigComposer {
 
-  private static final String CONFIG_CLASS_NAME = String.format(
-      "%s.%s",
-      GlobalConfig.class.getPackage().getName(),
-      GlobalConfig.IMPLEMENTATION_NAME
-  );
+  /**
+   * Factories are looked up once per class loader. Keys are weak and values soft, so that caching a factory does not
+   * prevent the class loader that defined it from being collected.
+   */
+  private static final Map<ClassLoader, SoftReference<GlobalConfigFactory>> FACTORIES =
+      Collections.synchronizedMap(new WeakHashMap<>());
 
   private ConfigComposer() {
 
   }
 
-  @SuppressWarnings("unchecked")
   public static <C extends GlobalConfig> C wire(Config config) {
+    return wire(config, Thread.currentThread().getContextClassLoader());
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <C extends GlobalConfig> C wire(Config config, ClassLoader loader) {
+    return (C) factoryFor(loader).create(config);
+  }
+
+  /**
+   * Wires the config, running the custom (and bean) mappers of the config values concurrently on the given executor.
+   *
+   * <p>Values read with one of the {@link Config} getters are cheaper to read than to hand over to another thread and
+   * are still read by the calling thread. All the reads complete before validation starts, and every value is
+   * assigned to a final field of the wired config, which is safely published as usual.</p>
+   *
+   * @param config   the config to read values from
+   * @param executor the executor to run mappers on
+   * @param <C>      the type of the wired config
+   * @return the wired config
+   */
+  public static <C extends GlobalConfig> C wire(Config config, Executor executor) {
+    return wire(config, WiringOptions.defaults().withExecutor(executor));
+  }
+
+  public static <C extends GlobalConfig> C wire(Config config, WiringOptions options) {
+    return wire(config, Thread.currentThread().getContextClassLoader(), options);
+  }
+
+  /**
+   * Wires the config with the given options.
+   *
+   * @param config  the config to read values from
+   * @param loader  the class loader to look up the generated config in
+   * @param options how to read and validate the values
+   * @param <C>     the type of the wired config
+   * @return the wired config
+   * @throws IllegalArgumentException if parallel validation is requested without an executor
+   */
+  @SuppressWarnings("unchecked")
+  public static <C extends GlobalConfig> C wire(Config config, ClassLoader loader, WiringOptions options) {
+    if (options.validationMode() == ValidationMode.PARALLEL && options.executor() == null) {
+      throw new IllegalArgumentException("Parallel validation requires an executor");
+    }
+    return (C) factoryFor(loader).create(config, options);
+  }
+
+  public static <K, C extends GlobalConfig> Map<K, C> wireAll(Map<K, Config> configs) {
+    return wireAll(configs, Thread.currentThread().getContextClassLoader(), WiringOptions.defaults());
+  }
+
+  public static <K, C extends GlobalConfig> Map<K, C> wireAll(Map<K, Config> configs, WiringOptions options) {
+    return wireAll(configs, Thread.currentThread().getContextClassLoader(), options);
+  }
+
+  /**
+   * Wires many configs at once, such as one per tenant, in parallel on the common fork join pool.
+   *
+   * <p>Configs wired together share the values they have in common: equal strings, durations, numbers, lists and
+   * optionals of those, read by the built-in mappers, are held once however many configs hold them. Lists are shared
+   * as unmodifiable lists. Values read after the batch is wired, by lazy values and rebinds, are not shared. The
+   * parsed configs are not shared, so for the batch to retain little more than the values it holds, leave
+   * {@link WiringOptions#withIncrementalRebind(boolean) incremental rebind} off.</p>
+   *
+   * <p>The executor of the options, if any, is still only used for mappers and validators, wiring the configs
+   * themselves on it could leave them all waiting for one another.</p>
+   *
+   * @param configs the configs to read values from, by key
+   * @param loader  the class loader to look up the generated config in
+   * @param options how to read and validate the values
+   * @param <K>     the type of the keys
+   * @param <C>     the type of the wired configs
+   * @return the wired configs by the key of the config they were read from, in the iteration order of the given map
+   * @throws IllegalArgumentException if parallel validation is requested without an executor
+   */
+  @SuppressWarnings("unchecked")
+  public static <K, C extends GlobalConfig> Map<K, C> wireAll(Map<K, Config> configs, ClassLoader loader,
+                                                              WiringOptions options) {
+    if (options.validationMode() == ValidationMode.PARALLEL && options.executor() == null) {
+      throw new IllegalArgumentException("Parallel validation requires an executor");
+    }
+    final GlobalConfigFactory factory = factoryFor(loader);
+    final ValueCanonicalizer canonicalizer = new ValueCanonicalizer();
+    final WiringOptions batch = options.withCanonicalizer(canonicalizer);
     try {
-      ClassLoader loader = Thread.currentThread().getContextClassLoader();
-      Class<C> implementation = (Class<C>) loader.loadClass(CONFIG_CLASS_NAME);
-      Constructor<C> constructor = implementation.getDeclaredConstructor(Config.class);
-      return constructor.newInstance(config);
-    } catch (ClassNotFoundException
-        | NoSuchMethodException
-        | IllegalAccessException
-        | InstantiationException
-        | InvocationTargetException e) {
-      throw new RuntimeException("Error while loading config", e);
+      return Collections.unmodifiableMap(configs.entrySet().parallelStream()
+          .collect(Collectors.toMap(Map.Entry::getKey, entry -> (C) factory.create(entry.getValue(), batch),
+              (first, second) -> first, LinkedHashMap::new)));
+    } finally {
+      canonicalizer.close();
+    }
+  }
+
+  public static <C extends GlobalConfig> Wired<C> wireWithStats(Config config, WiringOptions options) {
+    return wireWithStats(config, Thread.currentThread().getContextClassLoader(), options);
+  }
+
+  /**
+   * Wires the config with the given options, recording how long each value read and validator run took.
+   *
+   * <p>Timings are also passed on to the {@link WiringOptions#listener() listener} of the options, if any, which
+   * keeps receiving them for lazy values and rebinds after wiring.</p>
+   *
+   * @param config  the config to read values from
+   * @param loader  the class loader to look up the generated config in
+   * @param options how to read and validate the values
+   * @param <C>     the type of the wired config
+   * @return the wired config and a summary of the time spent wiring it
+   */
+  public static <C extends GlobalConfig> Wired<C> wireWithStats(Config config, ClassLoader loader,
+                                                                 WiringOptions options) {
+    WiringStats.Recorder recorder = new WiringStats.Recorder(options.listener());
+    C wired = wire(config, loader, options.withListener(recorder));
+    return new Wired<>(wired, recorder.stats());
+  }
+
+  /**
+   * Wires a new config from the given one, reusing the values of the current config that did not change.
+   *
+   * @param current a config previously returned by {@link #wire(Config)}
+   * @param config  the new config to read values from
+   * @param <C>     the type of the wired config
+   * @return the new config
+   * @see GlobalConfig#rebind(Config)
+   */
+  @SuppressWarnings("unchecked")
+  public static <C> C rebind(C current, Config config) {
+    if (!(current instanceof GlobalConfig)) {
+      throw new IllegalArgumentException("Only configs created by " + ConfigComposer.class.getSimpleName()
+          + " can be rebound");
+    }
+    return (C) ((GlobalConfig) current).rebind(config);
+  }
+
+  /**
+   * Updates the dynamic values of a config in place from the given config.
+   *
+   * @param current a config previously returned by {@link #wire(Config)}
+   * @param config  the new config to read the dynamic values from
+   * @see GlobalConfig#update(Config)
+   */
+  public static void update(Object current, Config config) {
+    if (!(current instanceof GlobalConfig)) {
+      throw new IllegalArgumentException("Only configs created by " + ConfigComposer.class.getSimpleName()
+          + " can be updated");
+    }
+    ((GlobalConfig) current).update(config);
+  }
+
+  /**
+   * Writes all the values of a wired config to a snapshot file, which {@link #loadSnapshot(Path)} can create the same
+   * config from without parsing, resolving or mapping anything.
+   *
+   * <p>The file is written next to its target first and then moved in place, so that a snapshot being loaded is never
+   * seen half written. Lazy values not read yet are read first. Values of types other than the ones read by the
+   * built-in mappers need a {@link com.mylaesoftware.snapshot.SnapshotCodec}.</p>
+   *
+   * @param config a config previously returned by {@link #wire(Config)}
+   * @param file   the snapshot file to write
+   * @throws IOException if the snapshot cannot be written
+   */
+  public static void writeSnapshot(Object config, Path file) throws IOException {
+    if (!(config instanceof GlobalConfig)) {
+      throw new IllegalArgumentException("Only configs created by " + ConfigComposer.class.getSimpleName()
+          + " can be written to a snapshot");
+    }
+    final Path absolute = file.toAbsolutePath();
+    final Path written = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+    try {
+      try (SnapshotOutput out = new SnapshotOutput(Files.newOutputStream(written),
+          config.getClass().getClassLoader())) {
+        ((GlobalConfig) config).writeSnapshot(out);
+      }
+      Files.move(written, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(written);
+    }
+  }
+
+  public static <C extends GlobalConfig> C loadSnapshot(Path file) throws IOException {
+    return loadSnapshot(file, Thread.currentThread().getContextClassLoader(), WiringOptions.defaults(), false);
+  }
+
+  /**
+   * Creates the config written to a snapshot file by {@link #writeSnapshot(Object, Path)}.
+   *
+   * <p>The file is memory mapped and the values are read straight from it. The config is not validated unless asked
+   * to, as it was valid when the snapshot was written. The config can be rebound as usual, when every value is read
+   * from the new config.</p>
+   *
+   * @param file     the snapshot file
+   * @param loader   the class loader to look up the generated config in
+   * @param options  how to validate the values, and then read and validate them when rebinding
+   * @param validate whether to run the validators
+   * @param <C>      the type of the config
+   * @return the config written to the snapshot
+   * @throws IOException           if the snapshot cannot be read
+   * @throws IllegalStateException if the file is not a snapshot of the config types the class loader holds
+   */
+  @SuppressWarnings("unchecked")
+  public static <C extends GlobalConfig> C loadSnapshot(Path file, ClassLoader loader, WiringOptions options,
+                                                        boolean validate) throws IOException {
+    if (options.validationMode() == ValidationMode.PARALLEL && options.executor() == null) {
+      throw new IllegalArgumentException("Parallel validation requires an executor");
+    }
+    final GlobalConfigFactory factory = factoryFor(loader);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final SnapshotInput in = new SnapshotInput(channel.map(MapMode.READ_ONLY, 0, channel.size()), loader);
+      final C config = (C) factory.create(in, null, options, validate);
+      in.expectEnd();
+      return config;
+    } catch (BufferUnderflowException e) {
+      throw new IllegalStateException("Truncated config snapshot " + file, e);
+    }
+  }
+
+  public static <C extends GlobalConfig> C wireBaked(Config config) {
+    return wireBaked(config, Thread.currentThread().getContextClassLoader(), WiringOptions.defaults());
+  }
+
+  /**
+   * Wires the config baked at build time by running the annotation processor with the
+   * <tt>configcomposer.bake</tt> option, which maps the values of a known config file into a snapshot shipped with
+   * the generated config.
+   *
+   * <p>Baked values are read from that snapshot instead of being mapped again. The values left out of it, the ones on
+   * the paths named dynamic when baking and the ones whose mapper cannot run at build time, are read from the given
+   * config. All the values are validated, as validators that are compiled with the config types cannot run at build
+   * time. With {@link WiringOptions#withIncrementalRebind(boolean) incremental rebind}, rebinding compares the new
+   * config with the given one, so baked values are only read again once their path changes between the two.</p>
+   *
+   * @param config  the config to read the values left out of the snapshot from
+   * @param loader  the class loader to look up the generated config and its baked snapshot in
+   * @param options how to read and validate the values
+   * @param <C>     the type of the wired config
+   * @return the wired config
+   * @throws IllegalStateException if no config was baked, or it was baked for different config types
+   */
+  @SuppressWarnings("unchecked")
+  public static <C extends GlobalConfig> C wireBaked(Config config, ClassLoader loader, WiringOptions options) {
+    if (options.validationMode() == ValidationMode.PARALLEL && options.executor() == null) {
+      throw new IllegalArgumentException("Parallel validation requires an executor");
+    }
+    final GlobalConfigFactory factory = factoryFor(loader);
+    final ByteBuffer baked;
+    try (InputStream in = loader.getResourceAsStream(GlobalConfigFactory.BAKED_SNAPSHOT)) {
+      if (in == null) {
+        throw new IllegalStateException("Error while loading config. Cannot find a baked config, make sure the config"
+            + " composer annotation processor runs with the configcomposer.bake option");
+      }
+      baked = ByteBuffer.wrap(in.readAllBytes());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read the baked config", e);
+    }
+    try {
+      final SnapshotInput in = new SnapshotInput(baked, loader);
+      final C wired = (C) factory.create(in, config, options, true);
+      in.expectEnd();
+      return wired;
+    } catch (BufferUnderflowException e) {
+      throw new IllegalStateException("Truncated baked config", e);
+    }
+  }
+
+  public static <C extends GlobalConfig> C load(ConfigSource... sources) {
+    return load(Thread.currentThread().getContextClassLoader(), WiringOptions.defaults(), sources);
+  }
+
+  /**
+   * Wires the config merged from the given sources, see {@link ConfigSource#merge(ConfigSource...)}: they are parsed
+   * in parallel and merged in the given order, the first one taking precedence, and then resolved.
+   *
+   * <pre>{@code
+   * AllConfig config = ConfigComposer.load(ConfigSource.systemProperties(),
+   *     ConfigSource.file(Paths.get("application.conf")), ConfigSource.resource("reference.conf"));
+   * }</pre>
+   *
+   * @param loader  the class loader to look up the generated config in
+   * @param options how to read and validate the values
+   * @param sources the sources to parse
+   * @param <C>     the type of the wired config
+   * @return the wired config
+   * @throws com.typesafe.config.ConfigException if any source cannot be parsed or the result cannot be resolved
+   */
+  public static <C extends GlobalConfig> C load(ClassLoader loader, WiringOptions options, ConfigSource... sources) {
+    return wire(ConfigSource.merge(sources), loader, options);
+  }
+
+  /**
+   * Wires the config parsed from the given files and keeps it up to date as the files change.
+   *
+   * <p>Files are merged in the given order, the first one taking precedence, and then resolved.</p>
+   *
+   * @param files the config files to parse and watch
+   * @param <C>   the type of the wired config
+   * @return a watcher holding the latest valid config, to be closed when no longer needed
+   */
+  public static <C extends GlobalConfig> ConfigWatcher<C> watch(Path... files) {
+    return watch(Thread.currentThread().getContextClassLoader(), files);
+  }
+
+  public static <C extends GlobalConfig> ConfigWatcher<C> watch(ClassLoader loader, Path... files) {
+    return new ConfigWatcher<>(loader, ConfigWatcher.DEFAULT_QUIET_PERIOD, files);
+  }
+
+  private static GlobalConfigFactory factoryFor(ClassLoader loader) {
+    SoftReference<GlobalConfigFactory> cached = FACTORIES.get(loader);
+    GlobalConfigFactory factory = cached == null ? null : cached.get();
+    if (factory == null) {
+      factory = ServiceLoader.load(GlobalConfigFactory.class, loader).findFirst()
+          .orElseThrow(() -> new IllegalStateException(
+              "Error while loading config. Cannot find an implementation of " + GlobalConfigFactory.class.getName()
+                  + ", make sure the config composer annotation processor runs on the config types"
+          ));
+      FACTORIES.put(loader, new SoftReference<>(factory));
     }
+    return factory;
   }
 }
@@ -0,0 +1,81 @@
+package com.mylaesoftware;
+
+import com.typesafe.config.ConfigList;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The elements of a list of objects by their key, read once when the config is wired for the config values declared
+ * with {@link com.mylaesoftware.annotations.ConfigValue#indexBy()}. It is unmodifiable, and iterates in the order of
+ * the list.
+ *
+ * <p>It keeps the list it was read from, which is what snapshots hold for it, and the keys found more than once, which
+ * are reported by the {@link com.mylaesoftware.validators.UniqueIndexKeys} validator run on every indexed value.</p>
+ *
+ * @param <T> the type of the elements
+ */
+public final class ConfigIndex<T> extends AbstractMap<String, T> {
+
+  private final ConfigList source;
+  private final String key;
+  private final Map<String, T> elements;
+  private final List<String> duplicates;
+
+  ConfigIndex(ConfigList source, String key, Map<String, T> elements, List<String> duplicates) {
+    this.source = source;
+    this.key = key;
+    this.elements = Collections.unmodifiableMap(elements);
+    this.duplicates = Collections.unmodifiableList(duplicates);
+  }
+
+  /**
+   * The list as parsed.
+   *
+   * @return the list in the config
+   */
+  public ConfigList source() {
+    return source;
+  }
+
+  /**
+   * The path of the key within each element.
+   *
+   * @return the path the elements are indexed by
+   */
+  public String key() {
+    return key;
+  }
+
+  /**
+   * The keys of the elements left out for having the same key as an earlier element, once per element left out.
+   *
+   * @return the duplicated keys, in the order of the list
+   */
+  public List<String> duplicates() {
+    return duplicates;
+  }
+
+  @Override
+  public T get(Object key) {
+    return elements.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return elements.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return elements.size();
+  }
+
+  @Override
+  public Set<Entry<String, T>> entrySet() {
+    return elements.entrySet();
+  }
+}
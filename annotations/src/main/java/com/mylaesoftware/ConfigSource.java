@@ -0,0 +1,107 @@
+package com.mylaesoftware;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A source of config, such as a file or a classpath resource, that {@link ConfigComposer#load(ConfigSource...)}
+ * parses and merges with the other sources before wiring.
+ */
+@FunctionalInterface
+public interface ConfigSource {
+
+  /**
+   * Parses the source, without resolving it.
+   *
+   * @return the parsed config
+   * @throws com.typesafe.config.ConfigException if the source is missing or cannot be parsed
+   */
+  Config parse();
+
+  /**
+   * A config file, which must exist.
+   *
+   * <p>Parsed files are cached by their path, modification time and size, so that parsing a file again while it does
+   * not change, as happens on reloads and across tests, returns the tree parsed the first time. Files included by a
+   * file are part of its tree: to notice changes to them pass them as sources of their own. Files modified in the last
+   * couple of seconds are not cached, so that changes keeping both the size and the coarse modification time of a file
+   * are still noticed. Only the most recently parsed files are cached, see {@link #clearCache()} to drop them
+   * all.</p>
+   *
+   * @param file the path of the file
+   * @return the source of the file
+   */
+  static ConfigSource file(Path file) {
+    return new ConfigSources.FileSource(file);
+  }
+
+  /**
+   * A classpath resource of the thread context class loader, which must exist.
+   *
+   * @param name the name of the resource
+   * @return the source of the resource
+   */
+  static ConfigSource resource(String name) {
+    return resource(name, Thread.currentThread().getContextClassLoader());
+  }
+
+  /**
+   * A classpath resource, which must exist. All the resources with the given name are merged, like
+   * {@link com.typesafe.config.ConfigFactory#parseResources(ClassLoader, String)} does.
+   *
+   * @param name   the name of the resource
+   * @param loader the class loader to look up the resource in
+   * @return the source of the resource
+   */
+  static ConfigSource resource(String name, ClassLoader loader) {
+    return new ConfigSources.ResourceSource(name, loader);
+  }
+
+  /**
+   * The environment variables, as top level keys.
+   *
+   * @return the source of the environment variables
+   */
+  static ConfigSource environment() {
+    return ConfigSources.ENVIRONMENT;
+  }
+
+  /**
+   * The system properties at the time the source is parsed.
+   *
+   * @return the source of the system properties
+   */
+  static ConfigSource systemProperties() {
+    return ConfigSources.SYSTEM_PROPERTIES;
+  }
+
+  /**
+   * Drops the trees cached for the files parsed so far, for them to be parsed again the next time, for example once the
+   * configs read from them are no longer used.
+   */
+  static void clearCache() {
+    ConfigSources.clearCache();
+  }
+
+  /**
+   * Parses the sources in parallel on the common fork join pool and merges them in the given order, the first one
+   * taking precedence, before resolving the result.
+   *
+   * @param sources the sources to parse
+   * @return the resolved config
+   * @throws com.typesafe.config.ConfigException if any source cannot be parsed or the result cannot be resolved
+   */
+  static Config merge(ConfigSource... sources) {
+    final List<Config> parsed = Arrays.stream(sources).parallel()
+        .map(ConfigSource::parse)
+        .collect(Collectors.toList());
+    return parsed.stream()
+        .reduce(ConfigFactory.empty(), Config::withFallback)
+        .resolve();
+  }
+}
@@ -0,0 +1,143 @@
+package com.mylaesoftware;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigParseOptions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The built-in {@link ConfigSource}s, and the cache of the files they parsed.
+ */
+final class ConfigSources {
+
+  static final ConfigSource ENVIRONMENT = ConfigFactory::systemEnvironment;
+
+  static final ConfigSource SYSTEM_PROPERTIES = () -> {
+    final Properties properties = new Properties();
+    properties.putAll(System.getProperties());
+    return ConfigFactory.parseProperties(properties, ConfigParseOptions.defaults()
+        .setOriginDescription("system properties"));
+  };
+
+  /**
+   * How recently a file can have been modified and still be cached, covering the coarsest resolution of the
+   * modification times of common file systems.
+   */
+  private static final long RACY_PERIOD_MILLIS = 2_000;
+
+  private static final ConfigParseOptions PARSE_OPTIONS = ConfigParseOptions.defaults().setAllowMissing(false);
+
+  /**
+   * How many parsed files are cached at most.
+   */
+  static final int MAX_CACHED_FILES = 64;
+
+  /**
+   * The last tree parsed from each file, by its absolute path, dropping the least recently used file once there are
+   * more than {@link #MAX_CACHED_FILES}.
+   */
+  private static final Map<Path, ParsedFile> FILES = Collections.synchronizedMap(
+      new LinkedHashMap<Path, ParsedFile>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, ParsedFile> eldest) {
+          return size() > MAX_CACHED_FILES;
+        }
+      });
+
+  private ConfigSources() {
+
+  }
+
+  static void clearCache() {
+    FILES.clear();
+  }
+
+  static final class FileSource implements ConfigSource {
+
+    private final Path file;
+
+    FileSource(Path file) {
+      this.file = file.toAbsolutePath().normalize();
+    }
+
+    /**
+     * The attributes are read before parsing, so that a file changing while it is parsed is parsed again next time.
+     * Files modified just before being parsed are not cached, as they could change again without their modification
+     * time changing.
+     */
+    @Override
+    public Config parse() {
+      final BasicFileAttributes attributes;
+      try {
+        attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      } catch (IOException e) {
+        FILES.remove(file);
+        return ConfigFactory.parseFile(file.toFile(), PARSE_OPTIONS);
+      }
+      final ParsedFile cached = FILES.get(file);
+      if (cached != null && cached.isCurrent(attributes)) {
+        return cached.config;
+      }
+      final long now = System.currentTimeMillis();
+      final Config config = ConfigFactory.parseFile(file.toFile(), PARSE_OPTIONS);
+      if (now - attributes.lastModifiedTime().toMillis() > RACY_PERIOD_MILLIS) {
+        FILES.put(file, new ParsedFile(attributes, config));
+      } else {
+        FILES.remove(file);
+      }
+      return config;
+    }
+
+    @Override
+    public String toString() {
+      return "file " + file;
+    }
+  }
+
+  static final class ResourceSource implements ConfigSource {
+
+    private final String name;
+    private final ClassLoader loader;
+
+    ResourceSource(String name, ClassLoader loader) {
+      this.name = name;
+      this.loader = loader;
+    }
+
+    @Override
+    public Config parse() {
+      return ConfigFactory.parseResources(loader, name, PARSE_OPTIONS);
+    }
+
+    @Override
+    public String toString() {
+      return "resource " + name;
+    }
+  }
+
+  private static final class ParsedFile {
+
+    private final FileTime lastModified;
+    private final long size;
+    private final Config config;
+
+    ParsedFile(BasicFileAttributes attributes, Config config) {
+      this.lastModified = attributes.lastModifiedTime();
+      this.size = attributes.size();
+      this.config = config;
+    }
+
+    boolean isCurrent(BasicFileAttributes attributes) {
+      return lastModified.equals(attributes.lastModifiedTime()) && size == attributes.size();
+    }
+  }
+}
@@ -0,0 +1,229 @@
+package com.mylaesoftware;
+
+import com.typesafe.config.Config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Holds the latest valid {@link GlobalConfig} wired from a set of config files and re-wires it whenever one of the
+ * files changes.
+ *
+ * <p>Readers call {@link #get()}, which is a single volatile read. A reload parses the files that changed again,
+ * {@link GlobalConfig#rebind(Config) rebinds} the current config, re-reading and re-validating the values that
+ * changed, and only then publishes the new instance. When parsing or validation
+ * fails the previous instance stays in place and the error is passed to the {@link #onError(Consumer) error
+ * listeners}.</p>
+ *
+ * <p>Bursts of file system events, as produced by editors and deployment tools, are coalesced: a reload only starts
+ * once no further change has been seen for the quiet period.</p>
+ *
+ * <p>Files that are symbolic links are watched both where they are and where they point to, and replacing a link on
+ * the way to a file, as Kubernetes does with the <tt>..data</tt> link when updating a mounted config map, is seen as
+ * a change of the file. Only the directories of the files and of their final targets are watched: a link replaced
+ * anywhere else is only noticed on the next change in those directories.</p>
+ *
+ * @param <C> the type of the wired config
+ */
+public final class ConfigWatcher<C extends GlobalConfig> implements Supplier<C>, AutoCloseable {
+
+  static final Duration DEFAULT_QUIET_PERIOD = Duration.ofMillis(100);
+
+  private final List<Path> files;
+  private final ConfigSource[] sources;
+  private final ClassLoader loader;
+  private final Duration quietPeriod;
+  private final List<Consumer<? super C>> reloadListeners = new CopyOnWriteArrayList<>();
+  private final List<Consumer<? super RuntimeException>> errorListeners = new CopyOnWriteArrayList<>();
+  private final WatchService watchService;
+  private final Map<Path, Path> targets = new HashMap<>();
+  private volatile C current;
+
+  ConfigWatcher(ClassLoader loader, Duration quietPeriod, Path... files) {
+    this.files = Arrays.stream(files).map(file -> file.toAbsolutePath().normalize()).collect(Collectors.toList());
+    this.sources = this.files.stream().map(ConfigSource::file).toArray(ConfigSource[]::new);
+    this.loader = loader;
+    this.quietPeriod = quietPeriod;
+
+    try {
+      watchService = FileSystems.getDefault().newWatchService();
+      for (Path directory : this.files.stream().map(Path::getParent).distinct().collect(Collectors.toList())) {
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+      }
+      watchTargets();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot watch config files " + this.files, e);
+    }
+    try {
+      reload();
+    } catch (RuntimeException e) {
+      close();
+      throw e;
+    }
+    Thread watcherThread = new Thread(this::watch, "config-composer-watcher");
+    watcherThread.setDaemon(true);
+    watcherThread.start();
+  }
+
+  /**
+   * Returns the latest config that was successfully wired.
+   *
+   * @return the current config
+   */
+  @Override
+  public C get() {
+    return current;
+  }
+
+  /**
+   * Registers a listener called with every newly published config. A listener throwing an exception neither fails the
+   * reload nor keeps the other listeners from being called: the exception is passed to the uncaught exception handler
+   * of the reloading thread instead.
+   *
+   * @param listener the listener to call after a successful reload
+   * @return this watcher
+   */
+  public ConfigWatcher<C> onReload(Consumer<? super C> listener) {
+    reloadListeners.add(Objects.requireNonNull(listener));
+    return this;
+  }
+
+  /**
+   * Registers a listener called when a reload triggered by a file change fails. A listener throwing an exception
+   * neither stops the watcher nor keeps the other listeners from being called: the exception is passed to the uncaught
+   * exception handler of the watcher thread instead.
+   *
+   * @param listener the listener to call with the parsing or validation error
+   * @return this watcher
+   */
+  public ConfigWatcher<C> onError(Consumer<? super RuntimeException> listener) {
+    errorListeners.add(Objects.requireNonNull(listener));
+    return this;
+  }
+
+  /**
+   * Parses the config files and wires a new config, publishing it if valid.
+   *
+   * @throws RuntimeException when the files cannot be parsed or the config is not valid, in which case the current
+   *                          config is left untouched
+   */
+  public synchronized void reload() {
+    C next = current == null
+        ? ConfigComposer.wire(parse(), loader, WiringOptions.defaults().withIncrementalRebind(true))
+        : ConfigComposer.rebind(current, parse());
+    current = next;
+    callAll(reloadListeners, next);
+  }
+
+  @Override
+  public void close() {
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot stop watching config files " + files, e);
+    }
+  }
+
+  private Config parse() {
+    return ConfigSource.merge(sources);
+  }
+
+  private void watch() {
+    try {
+      while (true) {
+        if (isRelevant(watchService.take())) {
+          awaitQuietPeriod();
+          try {
+            reload();
+          } catch (RuntimeException e) {
+            callAll(errorListeners, e);
+          }
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static <T> void callAll(List<Consumer<? super T>> listeners, T value) {
+    for (Consumer<? super T> listener : listeners) {
+      try {
+        listener.accept(value);
+      } catch (RuntimeException e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+      }
+    }
+  }
+
+  private void awaitQuietPeriod() throws InterruptedException {
+    WatchKey key;
+    while ((key = watchService.poll(quietPeriod.toNanos(), TimeUnit.NANOSECONDS)) != null) {
+      isRelevant(key);
+    }
+  }
+
+  private boolean isRelevant(WatchKey key) {
+    Path directory = (Path) key.watchable();
+    boolean relevant = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      relevant |= OVERFLOW.equals(event.kind())
+          || files.contains(directory.resolve((Path) event.context()))
+          || targets.containsValue(directory.resolve((Path) event.context()));
+    }
+    key.reset();
+    try {
+      return watchTargets() || relevant;
+    } catch (IOException e) {
+      return true;
+    }
+  }
+
+  /**
+   * Resolves the files again, watching the directories of the targets that changed.
+   *
+   * @return true if the target of any file changed
+   */
+  private boolean watchTargets() throws IOException {
+    boolean changed = false;
+    for (Path file : files) {
+      Path target = target(file);
+      if (!target.equals(targets.put(file, target))) {
+        target.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  private static Path target(Path file) {
+    try {
+      return file.toRealPath();
+    } catch (IOException e) {
+      return file;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.mylaesoftware;
+
+/**
+ * Receives a timing for every config value read and every validator run while a {@link GlobalConfig} is wired or
+ * rebound.
+ *
+ * <p>Register a listener with {@link WiringOptions#withListener(ConfigWiringListener)}. Without one the generated code
+ * skips the timing altogether. Mappers and validators may run on the executor of the {@link WiringOptions}, and lazy
+ * values are read on first access, so implementations must be thread safe and should return quickly.</p>
+ */
+public interface ConfigWiringListener {
+
+  enum Outcome {
+    /**
+     * The value was read, or the validator found no errors.
+     */
+    SUCCESS,
+    /**
+     * The validator reported at least one error.
+     */
+    INVALID,
+    /**
+     * The mapper or validator threw an exception.
+     */
+    FAILURE
+  }
+
+  /**
+   * Called after a config value has been read.
+   *
+   * @param path         the path of the value
+   * @param mapper       the mapper that read the value, or the built-in mapper equivalent to the getter used
+   * @param elapsedNanos how long reading the value took
+   * @param outcome      {@link Outcome#SUCCESS} or {@link Outcome#FAILURE}
+   */
+  default void valueRead(String path, Class<?> mapper, long elapsedNanos, Outcome outcome) {
+  }
+
+  /**
+   * Called after a validator has run.
+   *
+   * @param target       the path of the validated value, or the name of the validated config type
+   * @param validator    the validator that ran
+   * @param elapsedNanos how long the validation took
+   * @param outcome      the outcome of the validation
+   */
+  default void validatorRun(String target, Class<?> validator, long elapsedNanos, Outcome outcome) {
+  }
+}
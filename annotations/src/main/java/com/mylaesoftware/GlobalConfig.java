@@ -1,5 +1,52 @@
 package com.mylaesoftware;
 
+import com.mylaesoftware.snapshot.SnapshotOutput;
+import com.typesafe.config.Config;
+
+import java.io.IOException;
+
 public interface GlobalConfig {
   String IMPLEMENTATION_NAME = "GlobalConfigImpl";
+
+  /**
+   * Wires a new config from the given one, reusing the values of this config whose paths did not change.
+   *
+   * <p>When this config was wired with {@link WiringOptions#withIncrementalRebind(boolean) incremental rebind} only
+   * changed values are read again, and only the validators covering them, either directly or through their config
+   * type, are run again. Otherwise every value is read and validated again, apart from the ones of nested types and
+   * lazy values, which keep the part of the config they were read from.</p>
+   *
+   * @param config the new config to read values from
+   * @return a new {@link GlobalConfig}, this one is left untouched
+   */
+  GlobalConfig rebind(Config config);
+
+  /**
+   * Reads the {@link com.mylaesoftware.annotations.ConfigValue#dynamic() dynamic} values of this config again from the
+   * given config, updating them in place so that the components holding this config see them without fetching a new
+   * one. Any other value is left as is, even if it changed: {@link #rebind(Config) rebind} the config to read them.
+   *
+   * <p>Only the dynamic values are read again, the ones that changed when this config was wired with
+   * {@link WiringOptions#withIncrementalRebind(boolean) incremental rebind}, and only their own validators are run
+   * again, the validators of the config types are not. The new values are only published once all of them are read
+   * and valid, but not atomically: a thread reading several dynamic values while they are updated may see some of them
+   * before the update and some after. Updates of the same config are not meant to run concurrently with each other,
+   * nor with rebinding it.</p>
+   *
+   * @param config the config to read the dynamic values from
+   * @throws com.typesafe.config.ConfigException                   if a dynamic value cannot be read, in which case no
+   *                                                               value is updated
+   * @throws com.mylaesoftware.validators.ConfigValidationException if a dynamic value is not valid, in which case no
+   *                                                               value is updated
+   */
+  void update(Config config);
+
+  /**
+   * Writes all the config values to a snapshot, which {@link ConfigComposer#loadSnapshot(java.nio.file.Path)} creates
+   * an equal config from. Lazy values not read yet are read first.
+   *
+   * @param out the snapshot to write to
+   * @throws IOException if the snapshot cannot be written
+   */
+  void writeSnapshot(SnapshotOutput out) throws IOException;
 }
@@ -0,0 +1,52 @@
+package com.mylaesoftware;
+
+import com.mylaesoftware.snapshot.SnapshotInput;
+import com.typesafe.config.Config;
+
+/**
+ * Creates {@link GlobalConfig} instances without reflection.
+ *
+ * <p>An implementation is generated by the annotation processor alongside the {@link GlobalConfig} implementation and
+ * registered as a {@link java.util.ServiceLoader service provider}, so that {@link ConfigComposer} can locate it once
+ * per class loader and then call the generated constructor directly.</p>
+ */
+public interface GlobalConfigFactory {
+
+  String IMPLEMENTATION_NAME = "Factory";
+
+  /**
+   * The class path resource holding the snapshot of the config baked at build time, see
+   * {@link ConfigComposer#wireBaked(Config)}.
+   */
+  String BAKED_SNAPSHOT = "META-INF/config-composer/baked.snapshot";
+
+  /**
+   * Reads and validates all the config values from the given config.
+   *
+   * @param config the config to read values from
+   * @return the {@link GlobalConfig} implementation
+   */
+  GlobalConfig create(Config config);
+
+  /**
+   * Reads and validates all the config values from the given config as directed by the given options.
+   *
+   * @param config  the config to read values from
+   * @param options how to read and validate the values
+   * @return the {@link GlobalConfig} implementation
+   */
+  GlobalConfig create(Config config, WiringOptions options);
+
+  /**
+   * Creates the config written to a snapshot by {@link GlobalConfig#writeSnapshot}, or baked at build time. The values
+   * the snapshot holds are not read from any {@link Config}, the ones it leaves out are read from the given config.
+   *
+   * @param snapshot the snapshot to read values from
+   * @param config   the config to read the values left out of the snapshot from, <tt>null</tt> if there are none
+   * @param options  how to read and validate the values, and then read and validate them when rebinding
+   * @param validate whether to run the validators, which already passed when the snapshot was written
+   * @return the {@link GlobalConfig} implementation
+   * @throws IllegalStateException if the snapshot was written for different config types
+   */
+  GlobalConfig create(SnapshotInput snapshot, Config config, WiringOptions options, boolean validate);
+}
@@ -0,0 +1,17 @@
+package com.mylaesoftware;
+
+import com.typesafe.config.Config;
+
+/**
+ * Implemented by the code generated for nested config types, see
+ * {@link com.mylaesoftware.annotations.ConfigType#nested()}, which keeps the subtree each nested value was read from.
+ */
+public interface NestedConfig {
+
+  /**
+   * The subtree this nested value was read from, which is what snapshots hold for it.
+   *
+   * @return the config of this nested value
+   */
+  Config nestedSource();
+}
@@ -0,0 +1,76 @@
+package com.mylaesoftware;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shares equal config values between the configs wired together by {@link ConfigComposer#wireAll}, so that configs
+ * differing in a few values only hold one copy of the others.
+ *
+ * <p>Only the immutable values read by the built-in mappers are shared: strings, durations, booleans, boxed numbers,
+ * lists of those and optionals of those. Lists are shared as unmodifiable copies. Once the batch is wired the
+ * canonicalizer is {@link #close() closed}, dropping the shared values and returning every value given to it as it is
+ * from then on.</p>
+ */
+final class ValueCanonicalizer {
+
+  private volatile ConcurrentMap<Object, Object> canonical = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the instance equal to the given value that was first given to this canonicalizer.
+   *
+   * @param value the value read
+   * @param <T>   the type of the value
+   * @return the canonical instance of the value, or the value itself if it cannot be shared
+   */
+  @SuppressWarnings("unchecked")
+  <T> T canonical(T value) {
+    final ConcurrentMap<Object, Object> values = canonical;
+    if (values == null || value == null) {
+      return value;
+    }
+    final Object shared = share(values, value);
+    return shared == null ? value : (T) shared;
+  }
+
+  void close() {
+    canonical = null;
+  }
+
+  /**
+   * Lists and optionals are only shared when all their elements are, so that the unmodifiable copy of a list holds
+   * canonical elements too.
+   */
+  private static Object share(ConcurrentMap<Object, Object> values, Object value) {
+    if (value instanceof String || value instanceof Duration || value instanceof Boolean || value instanceof Integer
+        || value instanceof Long || value instanceof Double) {
+      return values.computeIfAbsent(value, v -> v);
+    }
+    if (value instanceof Optional) {
+      final Optional<?> optional = (Optional<?>) value;
+      if (!optional.isPresent()) {
+        return value;
+      }
+      final Object element = share(values, optional.get());
+      return element == null ? null : values.computeIfAbsent(Optional.of(element), v -> v);
+    }
+    if (value instanceof List) {
+      final List<?> list = (List<?>) value;
+      final List<Object> elements = new ArrayList<>(list.size());
+      for (Object item : list) {
+        final Object element = item == null ? null : share(values, item);
+        if (element == null) {
+          return null;
+        }
+        elements.add(element);
+      }
+      return values.computeIfAbsent(elements, v -> Collections.unmodifiableList(elements));
+    }
+    return null;
+  }
+}
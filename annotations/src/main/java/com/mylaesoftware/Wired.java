@@ -0,0 +1,25 @@
+package com.mylaesoftware;
+
+/**
+ * A wired config together with the {@link WiringStats} of wiring it.
+ *
+ * @param <C> the type of the wired config
+ */
+public final class Wired<C extends GlobalConfig> {
+
+  private final C config;
+  private final WiringStats stats;
+
+  Wired(C config, WiringStats stats) {
+    this.config = config;
+    this.stats = stats;
+  }
+
+  public C config() {
+    return config;
+  }
+
+  public WiringStats stats() {
+    return stats;
+  }
+}
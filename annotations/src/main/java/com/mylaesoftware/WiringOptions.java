@@ -0,0 +1,122 @@
+package com.mylaesoftware;
+
+import com.mylaesoftware.validators.ValidationMode;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * Options controlling how a {@link GlobalConfig} is wired. Instances are immutable, each <tt>with</tt> method returns
+ * a copy with the given option changed.
+ *
+ * <p>The options a config is wired with are kept by the config and used again when it is
+ * {@link GlobalConfig#rebind(com.typesafe.config.Config) rebound}.</p>
+ */
+public final class WiringOptions {
+
+  private static final WiringOptions DEFAULTS = new WiringOptions(null, ValidationMode.COLLECT_ALL, null, false, null);
+
+  private final Executor executor;
+  private final ValidationMode validationMode;
+  private final ConfigWiringListener listener;
+  private final boolean incrementalRebind;
+  private final ValueCanonicalizer canonicalizer;
+
+  private WiringOptions(Executor executor, ValidationMode validationMode, ConfigWiringListener listener,
+                        boolean incrementalRebind, ValueCanonicalizer canonicalizer) {
+    this.executor = executor;
+    this.validationMode = validationMode;
+    this.listener = listener;
+    this.incrementalRebind = incrementalRebind;
+    this.canonicalizer = canonicalizer;
+  }
+
+  /**
+   * Options reading every value on the wiring thread and collecting all validation errors.
+   *
+   * @return the default options
+   */
+  public static WiringOptions defaults() {
+    return DEFAULTS;
+  }
+
+  /**
+   * Sets the executor to run custom mappers, and validators in {@link ValidationMode#PARALLEL} mode, on.
+   *
+   * @param executor the executor to use
+   * @return options with the given executor
+   */
+  public WiringOptions withExecutor(Executor executor) {
+    return new WiringOptions(Objects.requireNonNull(executor), validationMode, listener, incrementalRebind,
+        canonicalizer);
+  }
+
+  public WiringOptions withValidationMode(ValidationMode validationMode) {
+    return new WiringOptions(executor, Objects.requireNonNull(validationMode), listener, incrementalRebind,
+        canonicalizer);
+  }
+
+  /**
+   * Sets the listener to report the time taken by every value read and validator run to.
+   *
+   * @param listener the listener to report to
+   * @return options with the given listener
+   */
+  public WiringOptions withListener(ConfigWiringListener listener) {
+    return new WiringOptions(executor, validationMode, Objects.requireNonNull(listener), incrementalRebind,
+        canonicalizer);
+  }
+
+  /**
+   * Sets whether the config keeps the parsed config its values were read from, so that rebinding or updating it only
+   * reads again the values whose paths changed. Off by default, as the parsed config is usually far larger than the
+   * values read from it: without it rebinding and updating read every value again. Types with lazy values and nested
+   * types keep the part of the config they read from regardless.
+   *
+   * @param incrementalRebind whether to keep the parsed config
+   * @return options with the given setting
+   */
+  public WiringOptions withIncrementalRebind(boolean incrementalRebind) {
+    return new WiringOptions(executor, validationMode, listener, incrementalRebind, canonicalizer);
+  }
+
+  /**
+   * The executor to run custom mappers and parallel validation on.
+   *
+   * @return the executor, or <tt>null</tt> to run everything on the wiring thread
+   */
+  public Executor executor() {
+    return executor;
+  }
+
+  public ValidationMode validationMode() {
+    return validationMode;
+  }
+
+  /**
+   * The listener to report timings to.
+   *
+   * @return the listener, or <tt>null</tt> if timings are not recorded
+   */
+  public ConfigWiringListener listener() {
+    return listener;
+  }
+
+  /**
+   * Whether the config keeps the parsed config its values were read from, see {@link #withIncrementalRebind(boolean)}.
+   *
+   * @return true if rebinding only reads again the values that changed
+   */
+  public boolean incrementalRebind() {
+    return incrementalRebind;
+  }
+
+  WiringOptions withCanonicalizer(ValueCanonicalizer canonicalizer) {
+    return new WiringOptions(executor, validationMode, listener, incrementalRebind,
+        Objects.requireNonNull(canonicalizer));
+  }
+
+  ValueCanonicalizer canonicalizer() {
+    return canonicalizer;
+  }
+}
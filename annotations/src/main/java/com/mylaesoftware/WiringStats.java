@@ -0,0 +1,195 @@
+package com.mylaesoftware;
+
+import com.mylaesoftware.ConfigWiringListener.Outcome;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Summary of where the time went while wiring a {@link GlobalConfig}, as returned by
+ * {@link ConfigComposer#wireWithStats(com.typesafe.config.Config, WiringOptions)}.
+ *
+ * <p>Reads and validations may overlap when an executor is used, so the sum of their timings can exceed the total
+ * elapsed time.</p>
+ */
+public final class WiringStats {
+
+  private final long elapsedNanos;
+  private final List<Timing> reads;
+  private final List<Timing> validations;
+
+  private WiringStats(long elapsedNanos, List<Timing> reads, List<Timing> validations) {
+    this.elapsedNanos = elapsedNanos;
+    this.reads = Collections.unmodifiableList(reads);
+    this.validations = Collections.unmodifiableList(validations);
+  }
+
+  /**
+   * The time taken to wire the config, from the call to the wired config being returned.
+   *
+   * @return the elapsed time in nanoseconds
+   */
+  public long elapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * The time spent reading values, summed across threads.
+   *
+   * @return the read time in nanoseconds
+   */
+  public long readNanos() {
+    return sum(reads);
+  }
+
+  /**
+   * The time spent running validators, summed across threads.
+   *
+   * @return the validation time in nanoseconds
+   */
+  public long validationNanos() {
+    return sum(validations);
+  }
+
+  /**
+   * Timings of the values read, in completion order. Lazy values are not read while wiring and do not appear here.
+   *
+   * @return the value reads
+   */
+  public List<Timing> reads() {
+    return reads;
+  }
+
+  /**
+   * Timings of the validators run, in completion order.
+   *
+   * @return the validator runs
+   */
+  public List<Timing> validations() {
+    return validations;
+  }
+
+  /**
+   * The slowest reads and validator runs.
+   *
+   * @param limit how many timings to return at most
+   * @return the slowest timings, slowest first
+   */
+  public List<Timing> slowest(int limit) {
+    return Stream.concat(reads.stream(), validations.stream())
+        .sorted(Comparator.comparingLong(Timing::elapsedNanos).reversed())
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public String toString() {
+    return String.format("WiringStats{elapsed=%dus, reads=%d (%dus), validations=%d (%dus)}",
+        elapsedNanos / 1000, reads.size(), readNanos() / 1000, validations.size(), validationNanos() / 1000);
+  }
+
+  private static long sum(List<Timing> timings) {
+    long total = 0;
+    for (Timing timing : timings) {
+      total += timing.elapsedNanos;
+    }
+    return total;
+  }
+
+  /**
+   * A single value read or validator run.
+   */
+  public static final class Timing {
+
+    private final String target;
+    private final Class<?> type;
+    private final long elapsedNanos;
+    private final Outcome outcome;
+
+    private Timing(String target, Class<?> type, long elapsedNanos, Outcome outcome) {
+      this.target = target;
+      this.type = type;
+      this.elapsedNanos = elapsedNanos;
+      this.outcome = outcome;
+    }
+
+    /**
+     * The path of the value, or the name of the validated config type.
+     *
+     * @return what was read or validated
+     */
+    public String target() {
+      return target;
+    }
+
+    /**
+     * The mapper or validator class.
+     *
+     * @return the class that did the work
+     */
+    public Class<?> type() {
+      return type;
+    }
+
+    public long elapsedNanos() {
+      return elapsedNanos;
+    }
+
+    public Outcome outcome() {
+      return outcome;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s by %s: %dns %s", target, type.getSimpleName(), elapsedNanos, outcome);
+    }
+  }
+
+  /**
+   * Collects timings while a config is wired, passing them on to the listener of the wiring options if any. The wired
+   * config keeps its options, so once the stats are taken the recorder stops collecting and only passes timings on.
+   */
+  static final class Recorder implements ConfigWiringListener {
+
+    private final ConfigWiringListener delegate;
+    private final long start = System.nanoTime();
+    private final Queue<Timing> reads = new ConcurrentLinkedQueue<>();
+    private final Queue<Timing> validations = new ConcurrentLinkedQueue<>();
+    private volatile boolean recording = true;
+
+    Recorder(ConfigWiringListener delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void valueRead(String path, Class<?> mapper, long elapsedNanos, Outcome outcome) {
+      if (recording) {
+        reads.add(new Timing(path, mapper, elapsedNanos, outcome));
+      }
+      if (delegate != null) {
+        delegate.valueRead(path, mapper, elapsedNanos, outcome);
+      }
+    }
+
+    @Override
+    public void validatorRun(String target, Class<?> validator, long elapsedNanos, Outcome outcome) {
+      if (recording) {
+        validations.add(new Timing(target, validator, elapsedNanos, outcome));
+      }
+      if (delegate != null) {
+        delegate.validatorRun(target, validator, elapsedNanos, outcome);
+      }
+    }
+
+    WiringStats stats() {
+      recording = false;
+      return new WiringStats(System.nanoTime() - start, new ArrayList<>(reads), new ArrayList<>(validations));
+    }
+  }
+}
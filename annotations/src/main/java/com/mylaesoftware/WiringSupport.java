@@ -0,0 +1,431 @@
+package com.mylaesoftware;
+
+import com.mylaesoftware.ConfigWiringListener.Outcome;
+import com.mylaesoftware.validators.ConfigValidationException;
+import com.mylaesoftware.validators.ConfigValidator;
+import com.mylaesoftware.validators.ValidationError;
+import com.mylaesoftware.validators.ValidationMode;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigList;
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigUtil;
+import com.typesafe.config.ConfigValue;
+import com.typesafe.config.ConfigValueFactory;
+import com.typesafe.config.ConfigValueType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Runtime support for the generated code: the reader generated for each config type, and the
+ * <tt>GlobalConfigImpl</tt> composing them, call into this class rather than repeating the same helpers in every
+ * generated class. It is not meant to be used directly.
+ */
+public final class WiringSupport {
+
+  private WiringSupport() {
+  }
+
+  /**
+   * Whether the value at the given path differs between two configs.
+   *
+   * @param previous the config the previous instance was wired from, <tt>null</tt> if it was created from a snapshot
+   * @param config   the config being wired
+   * @param path     the path of the value
+   * @return true if the value at the path was added, removed or changed
+   */
+  public static boolean hasChanged(Config previous, Config config, String path) {
+    return previous == null || !Objects.equals(valueAt(previous, path), valueAt(config, path));
+  }
+
+  /**
+   * The subtree at the context path of a config type, which the values read by the {@link Config} getters are read
+   * from. This way the context path is parsed and walked once per config type rather than once per value.
+   *
+   * @param config the config being wired, <tt>null</tt> if created from a snapshot
+   * @param path   the context path
+   * @return the config at the path, empty if there is none
+   */
+  public static Config context(Config config, String path) {
+    if (config == null) {
+      return null;
+    }
+    return config.hasPath(path) ? config.getConfig(path) : ConfigFactory.empty();
+  }
+
+  /**
+   * Reports an error reading a value from the {@link #context(Config, String) context subtree} at the full path of
+   * the value, the way reading it from the whole config would, rather than at its path within the subtree. Errors
+   * that do not name the path are returned as they are.
+   *
+   * @param e          the error reading the value from the subtree
+   * @param configPath the full path of the value
+   * @param readPath   the path of the value within the subtree
+   * @return the error to throw
+   */
+  public static ConfigException atFullPath(ConfigException e, String configPath, String readPath) {
+    if (e instanceof ConfigException.Missing) {
+      return new ConfigException.Missing(configPath, e);
+    }
+    String origin = e.origin() == null ? null : e.origin().description() + ": ";
+    if (origin == null || !e.getMessage().startsWith(origin)) {
+      return e;
+    }
+    String context = configPath.substring(0, configPath.length() - readPath.length());
+    String message = e.getMessage().substring(origin.length());
+    if (e instanceof ConfigException.WrongType) {
+      return new ConfigException.WrongType(e.origin(), context + message, e);
+    }
+    String badValue = "Invalid value at '";
+    int end = message.indexOf("': ");
+    if (e instanceof ConfigException.BadValue && message.startsWith(badValue) && end > 0) {
+      return new ConfigException.BadValue(e.origin(), context + message.substring(badValue.length(), end),
+          message.substring(end + 3), e);
+    }
+    return e;
+  }
+
+  public static boolean anyChanged(boolean[] changed) {
+    for (boolean valueChanged : changed) {
+      if (valueChanged) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Waits for a value read on the executor, rethrowing what the read threw.
+   *
+   * @param read the pending read
+   * @param <T>  the type of the value
+   * @return the value read
+   */
+  public static <T> T await(CompletableFuture<T> read) {
+    try {
+      return read.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Shares the value read with the other configs wired in the same batch, see {@link ConfigComposer#wireAll}.
+   *
+   * @param options the options the config is wired with
+   * @param value   the value read
+   * @param <T>     the type of the value
+   * @return an equal value shared with the other configs of the batch, or the value itself outside of a batch
+   */
+  public static <T> T canonical(WiringOptions options, T value) {
+    final ValueCanonicalizer canonicalizer = options.canonicalizer();
+    return canonicalizer == null ? value : canonicalizer.canonical(value);
+  }
+
+  /**
+   * Starts the validation of a config being wired, which runs as directed by the {@link ValidationMode} of the
+   * options.
+   *
+   * @param options the options the config is wired with
+   * @return the validation to run the validators of every config type through
+   */
+  public static Validation validation(WiringOptions options) {
+    return new Validation(options.validationMode(), options.executor(), options.listener());
+  }
+
+  /**
+   * Starts the validation of a lazy value, which always runs on the calling thread and collects all the errors.
+   *
+   * @param options the options the config was wired with
+   * @return the validation to run the validators of the value through
+   */
+  public static Validation lazyValidation(WiringOptions options) {
+    return new Validation(ValidationMode.COLLECT_ALL, null, options.listener());
+  }
+
+  /**
+   * A validation running no validators, for configs created from a snapshot written by a config that passed them.
+   *
+   * @return the validation to run the validators of every config type through
+   */
+  public static Validation skippedValidation() {
+    return new Validation(null, null, null);
+  }
+
+  /**
+   * The options nested values are read with: they report to the listener of the enclosing config, if any, and are
+   * validated on their own.
+   *
+   * @param listener the listener of the enclosing config, possibly <tt>null</tt>
+   * @return the options to read nested values with
+   */
+  public static WiringOptions nestedOptions(ConfigWiringListener listener) {
+    return listener == null ? WiringOptions.defaults() : WiringOptions.defaults().withListener(listener);
+  }
+
+  /**
+   * Reads a list of nested values, one per element of the list: nested config types, or beans read by their
+   * generated mapper.
+   *
+   * @param configs the elements of the list
+   * @param read    reads a nested value from its element
+   * @param <T>     the type of the nested values
+   * @return the nested values, unmodifiable
+   */
+  public static <T> List<T> nestedList(List<? extends Config> configs, Function<Config, T> read) {
+    final List<T> values = new ArrayList<>(configs.size());
+    for (Config config : configs) {
+      values.add(read.apply(config));
+    }
+    return Collections.unmodifiableList(values);
+  }
+
+  /**
+   * Reads a map of nested values, one per key of the object, in the order of the keys.
+   *
+   * @param object the object holding the nested values
+   * @param read   reads a nested value from its subtree
+   * @param <T>    the type of the nested values
+   * @return the nested values by key, unmodifiable
+   */
+  public static <T> Map<String, T> nestedMap(ConfigObject object, Function<Config, T> read) {
+    final Config config = object.toConfig();
+    final Map<String, T> values = new LinkedHashMap<>();
+    for (String key : new TreeSet<>(object.keySet())) {
+      values.put(key, read.apply(config.getConfig(ConfigUtil.joinPath(key))));
+    }
+    return Collections.unmodifiableMap(values);
+  }
+
+  /**
+   * Reads a list of objects into a {@link ConfigIndex} by the key of each element. Only the first element with a key
+   * is read, the keys of the others are kept for validation to report them.
+   *
+   * @param list the list of objects
+   * @param path the path of the list, for errors
+   * @param key  the path of the key within each element
+   * @param read reads an element from its subtree
+   * @param <T>  the type of the elements
+   * @return the elements by key
+   * @throws ConfigException.WrongType if an element is not an object
+   * @throws ConfigException.BadValue  if an element has no key, or one that is not a string
+   */
+  public static <T> Map<String, T> index(ConfigList list, String path, String key, Function<Config, T> read) {
+    final Map<String, T> elements = new LinkedHashMap<>(list.size() * 4 / 3 + 1);
+    final List<String> duplicates = new ArrayList<>();
+    int position = 0;
+    for (ConfigValue element : list) {
+      if (!(element instanceof ConfigObject)) {
+        throw new ConfigException.WrongType(element.origin(), path, "list of " + ConfigValueType.OBJECT.name(),
+            "list containing " + element.valueType().name());
+      }
+      final Config subtree = ((ConfigObject) element).toConfig();
+      final String id;
+      try {
+        id = subtree.getString(key);
+      } catch (ConfigException e) {
+        throw new ConfigException.BadValue(element.origin(), path,
+            "cannot read the key of element " + position + ": " + e.getMessage(), e);
+      }
+      if (elements.containsKey(id)) {
+        duplicates.add(id);
+      } else {
+        elements.put(id, read.apply(subtree));
+      }
+      position++;
+    }
+    return new ConfigIndex<>(list, key, elements, duplicates);
+  }
+
+  /**
+   * The key a generated bean mapper reads a property at: its name when the config has it, like
+   * {@link com.typesafe.config.ConfigBeanFactory} prefers, otherwise its hyphenated form.
+   *
+   * @param config     the subtree of the bean
+   * @param name       the name of the property
+   * @param hyphenated the name of the property with its words separated by hyphens
+   * @return the key to read the property at
+   */
+  public static String beanKey(Config config, String name, String hyphenated) {
+    return config.root().containsKey(name) ? name : hyphenated;
+  }
+
+  /**
+   * Snapshots hold nested values as the subtrees they were read from, see {@link NestedConfig}. This puts a subtree
+   * read back from a snapshot, or the lists, maps and optionals of them, back at the path of the value, so that the
+   * nested values are read from it like from the original config. Lists read lazily are put back the same way.
+   *
+   * @param value the value read from the snapshot
+   * @param path  the path the value is read at
+   * @return a config holding the value at the path
+   */
+  public static Config nestedSnapshot(Object value, String path) {
+    final Object present = value instanceof Optional ? ((Optional<?>) value).orElse(null) : value;
+    if (present == null) {
+      return ConfigFactory.empty();
+    }
+    final ConfigValue tree = subtree(present);
+    return path.isEmpty() ? ((ConfigObject) tree).toConfig() : tree.atPath(path);
+  }
+
+  private static ConfigValue subtree(Object value) {
+    if (value instanceof Config) {
+      return ((Config) value).root();
+    }
+    if (value instanceof ConfigValue) {
+      return (ConfigValue) value;
+    }
+    if (value instanceof List) {
+      final List<ConfigValue> values = new ArrayList<>();
+      for (Object element : (List<?>) value) {
+        values.add(subtree(element));
+      }
+      return ConfigValueFactory.fromIterable(values);
+    }
+    final Map<String, ConfigValue> values = new LinkedHashMap<>();
+    for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+      values.put((String) entry.getKey(), subtree(entry.getValue()));
+    }
+    return ConfigValueFactory.fromMap(values);
+  }
+
+  private static Object valueAt(Config config, String path) {
+    if (path.isEmpty()) {
+      return config.root();
+    }
+    return config.hasPath(path) ? config.getValue(path) : null;
+  }
+
+  /**
+   * Collects the errors of the validators run while wiring a config. It is used by the wiring thread only, the
+   * validators themselves run on the executor in {@link ValidationMode#PARALLEL} mode.
+   */
+  public static final class Validation {
+
+    private final ValidationMode mode;
+    private final Executor executor;
+    private final ConfigWiringListener listener;
+    private final List<ValidationError> errors = new ArrayList<>();
+    private final List<CompletableFuture<List<ValidationError>>> pending = new ArrayList<>();
+
+    /**
+     * Without a mode no validator is run at all.
+     */
+    private Validation(ValidationMode mode, Executor executor, ConfigWiringListener listener) {
+      this.mode = mode == ValidationMode.PARALLEL && executor == null ? ValidationMode.COLLECT_ALL : mode;
+      this.executor = executor;
+      this.listener = listener;
+    }
+
+    /**
+     * Validates a config value.
+     *
+     * @param validator the validator to run
+     * @param value     the value read
+     * @param path      the path the value was read from
+     * @param type      the config type declaring the value
+     * @param field     the name of the value
+     * @param <T>       the type of the value
+     */
+    public <T> void value(ConfigValidator<? super T> validator, T value, String path, Class<?> type, String field) {
+      if (mode == null) {
+        return;
+      }
+      if (mode == ValidationMode.PARALLEL) {
+        pending.add(CompletableFuture.supplyAsync(() -> withFieldInfo(check(validator, value, path), type, field),
+            executor));
+      } else if (mode == ValidationMode.COLLECT_ALL || errors.isEmpty()) {
+        errors.addAll(withFieldInfo(check(validator, value, path), type, field));
+      }
+    }
+
+    /**
+     * Validates a whole config type.
+     *
+     * @param validator the validator to run
+     * @param config    the wired config
+     * @param type      the config type the validator was declared on
+     * @param <T>       the config type
+     */
+    public <T> void type(ConfigValidator<? super T> validator, T config, Class<?> type) {
+      if (mode == null) {
+        return;
+      }
+      if (mode == ValidationMode.PARALLEL) {
+        pending.add(CompletableFuture.supplyAsync(() -> withClassInfo(check(validator, config, type.getName()), type),
+            executor));
+      } else if (mode == ValidationMode.COLLECT_ALL || errors.isEmpty()) {
+        errors.addAll(withClassInfo(check(validator, config, type.getName()), type));
+      }
+    }
+
+    /**
+     * Waits for the validators still running and fails if any of them reported an error.
+     *
+     * @throws ConfigValidationException with all the errors found
+     */
+    public void complete() {
+      for (CompletableFuture<List<ValidationError>> validation : pending) {
+        errors.addAll(await(validation));
+      }
+      if (!errors.isEmpty()) {
+        throw new ConfigValidationException(errors);
+      }
+    }
+
+    /**
+     * Runs a validator, reporting its timing to the listener when one is set.
+     */
+    private <T> Collection<ValidationError> check(ConfigValidator<? super T> validator, T target, String name) {
+      if (listener == null) {
+        return validator.apply(target);
+      }
+      final long start = System.nanoTime();
+      try {
+        final Collection<ValidationError> found = validator.apply(target);
+        listener.validatorRun(name, validator.getClass(), System.nanoTime() - start,
+            found.isEmpty() ? Outcome.SUCCESS : Outcome.INVALID);
+        return found;
+      } catch (RuntimeException e) {
+        listener.validatorRun(name, validator.getClass(), System.nanoTime() - start, Outcome.FAILURE);
+        throw e;
+      }
+    }
+
+    private static List<ValidationError> withClassInfo(Collection<ValidationError> found, Class<?> type) {
+      final List<ValidationError> located = new ArrayList<>(found.size());
+      for (ValidationError error : found) {
+        located.add(error.withClassInfo(type));
+      }
+      return located;
+    }
+
+    private static List<ValidationError> withFieldInfo(Collection<ValidationError> found, Class<?> type,
+                                                       String field) {
+      final List<ValidationError> located = new ArrayList<>(found.size());
+      for (ValidationError error : found) {
+        located.add(error.withFieldInfo(type, field));
+      }
+      return located;
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.mylaesoftware.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Annotation used to mark plain classes as beans that config values can be read into.
+ *
+ * <p>It generates a {@link com.mylaesoftware.mappers.ConfigMapper} named after the bean with the
+ * <tt>_ConfigMapper</tt> suffix, which reads the bean from the subtree at the path it is given by calling the
+ * constructor and setters of the bean directly, rather than introspecting it like
+ * {@link com.typesafe.config.ConfigBeanFactory#create(com.typesafe.config.Config, Class)} does on every call.
+ * Config values of an annotated type, or lists, optionals and maps with <tt>String</tt> keys of it, are read with
+ * the generated mapper.</p>
+ *
+ * <p>Beans with a public constructor without parameters are filled through their public setters, following the
+ * rules of <tt>ConfigBeanFactory</tt>: the properties are read at their name or its hyphenated form, and properties
+ * whose field is annotated with {@link com.typesafe.config.Optional} may be missing. Any other bean needs a single
+ * public constructor, whose parameters are read at their names the same way. Properties can be of the types natively
+ * supported by config values, enums, or other annotated beans and lists of them.</p>
+ *
+ * <p>The annotation is kept in class files, so that config types compiled separately from a bean still read it with
+ * its generated mapper.</p>
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.CLASS)
+public @interface ConfigBean {
+}
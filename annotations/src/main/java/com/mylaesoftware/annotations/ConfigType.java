@@ -43,4 +43,16 @@ public @interface ConfigType {
    *         when a mapper cannot be found otherwise false.
    */
   boolean fallbackToBeanMapper() default false;
+
+  /**
+   * Indicates whether this <tt>ConfigType</tt> is only read as the value of other config types, on its own or as the
+   * elements of a <tt>List</tt> or the values of a <tt>Map</tt> with <tt>String</tt> keys. Its values are then read
+   * relative to the subtree of each such value rather than from the root of the config, and it is not implemented by
+   * the {@link com.mylaesoftware.GlobalConfig}.
+   *
+   * <p>A nested type cannot have a context path, nor extend interfaces with abstract methods.</p>
+   *
+   * @return true when this config type is only read as a config value, otherwise false.
+   */
+  boolean nested() default false;
 }
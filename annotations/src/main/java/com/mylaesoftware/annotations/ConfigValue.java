@@ -25,6 +25,11 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.SOURCE)
 public @interface ConfigValue {
 
+  /**
+   * Marker for {@link #defaultValue()} meaning that the config value has no default.
+   */
+  String NO_DEFAULT = "\u0000";
+
   /**
    * The path of the property where to find this config value.
    *
@@ -45,4 +50,49 @@ public @interface ConfigValue {
    * @return The validator to use verify the parsed value
    */
   Class<? extends ConfigValidator<?>>[] validatedBy() default NoValidation.class;
+
+  /**
+   * Optional value to use when the property is missing from the config.
+   *
+   * <p>For <tt>String</tt> values the default is taken verbatim, for enums it is the name of one of the constants
+   * and for any other type it is parsed as a HOCON value, e.g. <tt>"10 seconds"</tt> or <tt>"[1, 2, 3]"</tt>.
+   * The default is parsed and checked against the return type at compile time. Defaults are supported for the
+   * basic types only and cannot be combined with <tt>Optional</tt> return types or custom mappers.</p>
+   *
+   * @return The value to use when the property is missing
+   */
+  String defaultValue() default NO_DEFAULT;
+
+  /**
+   * Whether to read the config value on first access rather than when the config is wired.
+   *
+   * <p>Lazy values are read, and validated, at most once per wired config, the first time their method is called.
+   * Validation errors are then thrown by that call, and the value is read again on the next one.</p>
+   *
+   * @return true to read the config value on first access
+   */
+  boolean lazy() default false;
+
+  /**
+   * Whether the config value can be updated in place, see {@link com.mylaesoftware.GlobalConfig#update}.
+   *
+   * <p>Dynamic values are held in volatile fields, so that their method always returns the latest value with a single
+   * volatile read. They cannot be lazy, nor declared by nested config types.</p>
+   *
+   * @return true to let the config value be updated in place
+   */
+  boolean dynamic() default false;
+
+  /**
+   * The path, within each element, of the key to index a list of objects by.
+   *
+   * <p>An indexed config value is read from a list of objects at {@link #atPath()} into a map from the string at this
+   * path in each element to the element, read as a <tt>Config</tt>, a nested config type or a
+   * {@link ConfigBean}. The method returns a <tt>Map&lt;String, T&gt;</tt>, whose lookups are constant time and whose
+   * iteration order is the order of the list. Every element must have a key: duplicated keys are reported as
+   * validation errors, and only the first element with a key is kept.</p>
+   *
+   * @return the path of the key of each element, empty to read the config value as usual
+   */
+  String indexBy() default "";
 }
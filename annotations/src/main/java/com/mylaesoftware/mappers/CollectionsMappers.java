@@ -1,15 +1,42 @@
 package com.mylaesoftware.mappers;
 
 import com.typesafe.config.Config;
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigUtil;
 
 import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 public class CollectionsMappers {
 
   private CollectionsMappers() {
   }
 
+  /**
+   * Copies a map into the compact immutable map {@link MapM} reads, iterating in the order of its keys like the maps of
+   * nested config types do.
+   *
+   * @param values the map to copy
+   * @param <T>    the type of the values
+   * @return the compact copy of the map
+   */
+  public static <T> Map<String, T> compactMap(Map<String, T> values) {
+    final String[] keys = values.keySet().toArray(new String[0]);
+    Arrays.sort(keys);
+    final Object[] mapped = new Object[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      mapped[i] = values.get(keys[i]);
+    }
+    return new CompactMap<>(keys, mapped);
+  }
+
   public static final class StringListM implements ConfigMapper<List<String>> {
     @Override
     public List<String> apply(Config config, String key) {
@@ -72,4 +99,157 @@ public class CollectionsMappers {
       return config.getAnyRefList(key);
     }
   }
+
+  public static final class IntArrayM implements ConfigMapper<int[]> {
+    @Override
+    public int[] apply(Config config, String key) {
+      List<Integer> values = config.getIntList(key);
+      int[] array = new int[values.size()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = values.get(i);
+      }
+      return array;
+    }
+  }
+
+  public static final class LongArrayM implements ConfigMapper<long[]> {
+    @Override
+    public long[] apply(Config config, String key) {
+      List<Long> values = config.getLongList(key);
+      long[] array = new long[values.size()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = values.get(i);
+      }
+      return array;
+    }
+  }
+
+  public static final class DoubleArrayM implements ConfigMapper<double[]> {
+    @Override
+    public double[] apply(Config config, String key) {
+      List<Double> values = config.getDoubleList(key);
+      double[] array = new double[values.size()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = values.get(i);
+      }
+      return array;
+    }
+  }
+
+  public static final class BooleanArrayM implements ConfigMapper<boolean[]> {
+    @Override
+    public boolean[] apply(Config config, String key) {
+      List<Boolean> values = config.getBooleanList(key);
+      boolean[] array = new boolean[values.size()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = values.get(i);
+      }
+      return array;
+    }
+  }
+
+  /**
+   * Reads an object into a map with a value per key, each read by the given mapper. The map is immutable and compact,
+   * holding its keys and values in two arrays sorted by key, which is the order it iterates in.
+   *
+   * @param <T> the type of the values
+   */
+  public static final class MapM<T> implements ConfigMapper<Map<String, T>> {
+    private final ConfigMapper<T> values;
+
+    public MapM(ConfigMapper<T> values) {
+      this.values = values;
+    }
+
+    @Override
+    public Map<String, T> apply(Config config, String key) {
+      final ConfigObject object = config.getObject(key);
+      final Config entries = object.toConfig();
+      final String[] keys = object.keySet().toArray(new String[0]);
+      Arrays.sort(keys);
+      final Object[] mapped = new Object[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        mapped[i] = values.apply(entries, ConfigUtil.joinPath(keys[i]));
+      }
+      return new CompactMap<>(keys, mapped);
+    }
+  }
+
+  /**
+   * Reads a list as a {@link LazyConfigList}, whose elements are each read by the given mapper as they are consumed
+   * rather than all up front. Only a missing value, or one that is not a list, fails straight away.
+   *
+   * @param <T> the type of the elements
+   */
+  public static final class IterableM<T> implements ConfigMapper<Iterable<T>> {
+    private final ConfigMapper<T> elements;
+
+    public IterableM(ConfigMapper<T> elements) {
+      this.elements = elements;
+    }
+
+    @Override
+    public Iterable<T> apply(Config config, String key) {
+      return new LazyConfigList<>(config.getList(key), elements, key);
+    }
+  }
+
+  private static final class CompactMap<T> extends AbstractMap<String, T> {
+    private final String[] keys;
+    private final Object[] values;
+
+    CompactMap(String[] keys, Object[] values) {
+      this.keys = keys;
+      this.values = values;
+    }
+
+    @Override
+    public int size() {
+      return keys.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return key instanceof String && Arrays.binarySearch(keys, key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(Object key) {
+      final int index = key instanceof String ? Arrays.binarySearch(keys, key) : -1;
+      return index < 0 ? null : (T) values[index];
+    }
+
+    @Override
+    public Set<Entry<String, T>> entrySet() {
+      return new AbstractSet<Entry<String, T>>() {
+        @Override
+        public int size() {
+          return keys.length;
+        }
+
+        @Override
+        public Iterator<Entry<String, T>> iterator() {
+          return new Iterator<Entry<String, T>>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+              return index < keys.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Entry<String, T> next() {
+              if (index >= keys.length) {
+                throw new NoSuchElementException();
+              }
+              final int current = index++;
+              return new SimpleImmutableEntry<>(keys[current], (T) values[current]);
+            }
+          };
+        }
+      };
+    }
+  }
 }
@@ -0,0 +1,93 @@
+package com.mylaesoftware.mappers;
+
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigList;
+import com.typesafe.config.ConfigValue;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * The elements of a list in a config, each read by a mapper only as it is reached, so that scanning a large list
+ * never holds more than one mapped element at a time on top of the parsed list.
+ *
+ * <p>Elements are read again on every iteration. An element that cannot be read fails the iteration reaching it, with
+ * the path of the list and the index of the element.</p>
+ *
+ * @param <T> the type of the elements
+ */
+public final class LazyConfigList<T> implements Iterable<T> {
+
+  private static final String ELEMENT = "element";
+
+  private final ConfigList source;
+  private final ConfigMapper<T> elements;
+  private final String path;
+
+  /**
+   * Reads the elements of a list lazily.
+   *
+   * @param source   the list as parsed
+   * @param elements the mapper reading each element, given a config holding the element alone
+   * @param path     the path of the list, for errors
+   */
+  public LazyConfigList(ConfigList source, ConfigMapper<T> elements, String path) {
+    this.source = source;
+    this.elements = elements;
+    this.path = path;
+  }
+
+  /**
+   * The list as parsed, which is what snapshots hold for it.
+   *
+   * @return the list in the config
+   */
+  public ConfigList source() {
+    return source;
+  }
+
+  public int size() {
+    return source.size();
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    final Iterator<ConfigValue> values = source.iterator();
+    return new Iterator<T>() {
+      private int index;
+
+      @Override
+      public boolean hasNext() {
+        return values.hasNext();
+      }
+
+      @Override
+      public T next() {
+        return read(values.next(), index++);
+      }
+    };
+  }
+
+  /**
+   * Sized, so that parallel streams of the elements split the list evenly.
+   */
+  @Override
+  public Spliterator<T> spliterator() {
+    return Spliterators.spliterator(iterator(), source.size(), Spliterator.ORDERED);
+  }
+
+  @Override
+  public String toString() {
+    return "LazyConfigList(" + path + ")";
+  }
+
+  private T read(ConfigValue value, int index) {
+    try {
+      return elements.apply(value.atKey(ELEMENT), ELEMENT);
+    } catch (ConfigException e) {
+      throw new ConfigException.BadValue(value.origin(), path,
+          "cannot read element " + index + ": " + e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.mylaesoftware.snapshot;
+
+import java.io.IOException;
+
+/**
+ * Writes and reads the values of a type the snapshot format does not know about, typically the result of a custom or
+ * bean mapper.
+ *
+ * <p>Codecs are registered as {@link java.util.ServiceLoader service providers} and looked up in the class loader of
+ * the generated config. The codec writing a value is the one whose {@link #type()} is the class of the value, or else
+ * the first one it is an instance of, and the same codec reads it back.</p>
+ *
+ * @param <T> the type of the values
+ */
+public interface SnapshotCodec<T> {
+
+  Class<T> type();
+
+  void write(T value, SnapshotOutput out) throws IOException;
+
+  T read(SnapshotInput in);
+}
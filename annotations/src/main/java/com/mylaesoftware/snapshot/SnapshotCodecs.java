@@ -0,0 +1,52 @@
+package com.mylaesoftware.snapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * The {@link SnapshotCodec}s registered in a class loader, by the name of the type they write. They are only looked
+ * up once a value needs one.
+ */
+final class SnapshotCodecs {
+
+  private final ClassLoader loader;
+  private Map<String, SnapshotCodec<?>> codecs;
+
+  SnapshotCodecs(ClassLoader loader) {
+    this.loader = loader;
+  }
+
+  @SuppressWarnings("unchecked")
+  SnapshotCodec<Object> forValue(Object value) {
+    final Map<String, SnapshotCodec<?>> registered = codecs();
+    SnapshotCodec<?> codec = registered.get(value.getClass().getName());
+    if (codec == null) {
+      codec = registered.values().stream()
+          .filter(candidate -> candidate.type().isInstance(value))
+          .findFirst()
+          .orElseThrow(() -> new IllegalStateException("Cannot write a snapshot of values of type "
+              + value.getClass().getName() + ", register a " + SnapshotCodec.class.getName() + " for it"));
+    }
+    return (SnapshotCodec<Object>) codec;
+  }
+
+  SnapshotCodec<?> forType(String type) {
+    final SnapshotCodec<?> codec = codecs().get(type);
+    if (codec == null) {
+      throw new IllegalStateException("Cannot read a snapshot of values of type " + type + ", register a "
+          + SnapshotCodec.class.getName() + " for it");
+    }
+    return codec;
+  }
+
+  private Map<String, SnapshotCodec<?>> codecs() {
+    if (codecs == null) {
+      codecs = new HashMap<>();
+      for (SnapshotCodec<?> codec : ServiceLoader.load(SnapshotCodec.class, loader)) {
+        codecs.putIfAbsent(codec.type().getName(), codec);
+      }
+    }
+    return codecs;
+  }
+}
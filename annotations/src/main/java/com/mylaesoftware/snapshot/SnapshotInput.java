@@ -0,0 +1,196 @@
+package com.mylaesoftware.snapshot;
+
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigParseOptions;
+import com.typesafe.config.ConfigSyntax;
+import com.typesafe.config.ConfigValueFactory;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads back the values written by a {@link SnapshotOutput}, straight from a buffer which is usually a memory-mapped
+ * snapshot file.
+ */
+public final class SnapshotInput {
+
+  private final ByteBuffer buffer;
+  private final ClassLoader loader;
+  private final SnapshotCodecs codecs;
+
+  /**
+   * Starts reading a snapshot, checking its header.
+   *
+   * @param buffer the snapshot, read from its position on
+   * @param loader the class loader to look up enums and {@link SnapshotCodec}s in
+   * @throws IllegalStateException if the buffer does not hold a snapshot
+   */
+  public SnapshotInput(ByteBuffer buffer, ClassLoader loader) {
+    this.buffer = buffer;
+    this.loader = loader;
+    this.codecs = new SnapshotCodecs(loader);
+    if (buffer.remaining() < Integer.BYTES || buffer.getInt() != SnapshotOutput.MAGIC) {
+      throw new IllegalStateException("Not a config snapshot");
+    }
+  }
+
+  /**
+   * Checks that the snapshot was written for the same config types it is being read for.
+   *
+   * @param schema the fingerprint of the config types being read
+   * @throws IllegalStateException if the snapshot was written for different config types
+   */
+  public void expectSchema(long schema) {
+    if (buffer.getLong() != schema) {
+      throw new IllegalStateException("The snapshot was written for different config types, write it again");
+    }
+  }
+
+  /**
+   * Checks that all the snapshot was read.
+   *
+   * @throws IllegalStateException if there is more to read
+   */
+  public void expectEnd() {
+    if (buffer.hasRemaining()) {
+      throw new IllegalStateException("Unexpected data at the end of the snapshot");
+    }
+  }
+
+  public boolean readBoolean() {
+    return buffer.get() != 0;
+  }
+
+  public int readInt() {
+    return buffer.getInt();
+  }
+
+  public long readLong() {
+    return buffer.getLong();
+  }
+
+  public double readDouble() {
+    return buffer.getDouble();
+  }
+
+  public String readString() {
+    final byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  public Duration readDuration() {
+    final long seconds = buffer.getLong();
+    return Duration.ofSeconds(seconds, buffer.getInt());
+  }
+
+  /**
+   * Reads a value written by {@link SnapshotOutput#writeValue(Object)}. Lists and maps are read back as mutable
+   * collections, like the {@link com.typesafe.config.Config} getters return them.
+   *
+   * @param <T> the type of the value
+   * @return the value, possibly <tt>null</tt>
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T readValue() {
+    final byte tag = buffer.get();
+    switch (tag) {
+      case SnapshotOutput.NULL:
+        return null;
+      case SnapshotOutput.STRING:
+        return (T) readString();
+      case SnapshotOutput.BOOLEAN:
+        return (T) Boolean.valueOf(readBoolean());
+      case SnapshotOutput.INT:
+        return (T) Integer.valueOf(readInt());
+      case SnapshotOutput.LONG:
+        return (T) Long.valueOf(readLong());
+      case SnapshotOutput.DOUBLE:
+        return (T) Double.valueOf(readDouble());
+      case SnapshotOutput.DURATION:
+        return (T) readDuration();
+      case SnapshotOutput.ENUM:
+        return (T) readEnum();
+      case SnapshotOutput.CONFIG:
+        return (T) ConfigFactory.parseString(readString(), ConfigParseOptions.defaults().setSyntax(ConfigSyntax.JSON));
+      case SnapshotOutput.CONFIG_VALUE:
+        return (T) ConfigValueFactory.fromAnyRef(readValue());
+      case SnapshotOutput.EMPTY:
+        return (T) Optional.empty();
+      case SnapshotOutput.OPTIONAL:
+        return (T) Optional.of(readValue());
+      case SnapshotOutput.LIST:
+        return (T) readList();
+      case SnapshotOutput.MAP:
+        return (T) readMap();
+      case SnapshotOutput.CUSTOM:
+        return (T) codecs.forType(readString()).read(this);
+      default:
+        return (T) readArray(tag);
+    }
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Enum<?> readEnum() {
+    final String type = readString();
+    final String name = readString();
+    try {
+      return Enum.valueOf((Class) Class.forName(type, false, loader), name);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException("Cannot find enum " + type + " of the snapshot", e);
+    }
+  }
+
+  private List<Object> readList() {
+    final int size = buffer.getInt();
+    final List<Object> values = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      values.add(readValue());
+    }
+    return values;
+  }
+
+  private Map<Object, Object> readMap() {
+    final int size = buffer.getInt();
+    final Map<Object, Object> values = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) {
+      values.put(readValue(), readValue());
+    }
+    return values;
+  }
+
+  private Object readArray(byte tag) {
+    switch (tag) {
+      case SnapshotOutput.INT_ARRAY:
+        final int[] ints = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(ints);
+        buffer.position(buffer.position() + ints.length * Integer.BYTES);
+        return ints;
+      case SnapshotOutput.LONG_ARRAY:
+        final long[] longs = new long[buffer.getInt()];
+        buffer.asLongBuffer().get(longs);
+        buffer.position(buffer.position() + longs.length * Long.BYTES);
+        return longs;
+      case SnapshotOutput.DOUBLE_ARRAY:
+        final double[] doubles = new double[buffer.getInt()];
+        buffer.asDoubleBuffer().get(doubles);
+        buffer.position(buffer.position() + doubles.length * Double.BYTES);
+        return doubles;
+      case SnapshotOutput.BOOLEAN_ARRAY:
+        final boolean[] booleans = new boolean[buffer.getInt()];
+        for (int i = 0; i < booleans.length; i++) {
+          booleans[i] = readBoolean();
+        }
+        return booleans;
+      default:
+        throw new IllegalStateException("Unknown value tag " + tag + " in the snapshot");
+    }
+  }
+}
@@ -0,0 +1,234 @@
+package com.mylaesoftware.snapshot;
+
+import com.mylaesoftware.ConfigIndex;
+import com.mylaesoftware.NestedConfig;
+import com.mylaesoftware.mappers.LazyConfigList;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigRenderOptions;
+import com.typesafe.config.ConfigValue;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes the values of a wired config to a snapshot, in the order the generated code writes them and without any
+ * names or paths.
+ *
+ * <p>Values of the common scalar types are written by the typed methods, as the generated code knows their types.
+ * Any other value is written by {@link #writeValue(Object)} behind a tag saying how to read it back: lists, maps,
+ * optionals, arrays, enums, configs and config values are built in, every other type needs a {@link SnapshotCodec}.
+ * Configs are written as JSON, so reading them back parses that JSON. Nested config values are written as the config
+ * they were read from, and read again from it, as are the lists of a {@link LazyConfigList} or a
+ * {@link ConfigIndex}.</p>
+ */
+public final class SnapshotOutput implements Closeable {
+
+  static final int MAGIC = 0x43435331;
+
+  static final byte NULL = 0;
+  static final byte STRING = 1;
+  static final byte BOOLEAN = 2;
+  static final byte INT = 3;
+  static final byte LONG = 4;
+  static final byte DOUBLE = 5;
+  static final byte DURATION = 6;
+  static final byte ENUM = 7;
+  static final byte EMPTY = 8;
+  static final byte OPTIONAL = 9;
+  static final byte LIST = 10;
+  static final byte MAP = 11;
+  static final byte INT_ARRAY = 12;
+  static final byte LONG_ARRAY = 13;
+  static final byte DOUBLE_ARRAY = 14;
+  static final byte BOOLEAN_ARRAY = 15;
+  static final byte CONFIG = 16;
+  static final byte CONFIG_VALUE = 17;
+  static final byte CUSTOM = 18;
+
+  private final DataOutputStream out;
+  private final SnapshotCodecs codecs;
+
+  /**
+   * Starts a snapshot, writing its header.
+   *
+   * @param out    the stream to write the snapshot to, closed with this output
+   * @param loader the class loader to look up {@link SnapshotCodec}s in
+   * @throws IOException if the header cannot be written
+   */
+  public SnapshotOutput(OutputStream out, ClassLoader loader) throws IOException {
+    this.out = new DataOutputStream(new BufferedOutputStream(out));
+    this.codecs = new SnapshotCodecs(loader);
+    this.out.writeInt(MAGIC);
+  }
+
+  /**
+   * Writes the fingerprint of the config types the snapshot is written for, see {@link SnapshotInput#expectSchema}.
+   *
+   * @param schema the fingerprint of the config types
+   * @throws IOException if the fingerprint cannot be written
+   */
+  public void writeSchema(long schema) throws IOException {
+    out.writeLong(schema);
+  }
+
+  public void writeBoolean(boolean value) throws IOException {
+    out.writeBoolean(value);
+  }
+
+  public void writeInt(int value) throws IOException {
+    out.writeInt(value);
+  }
+
+  public void writeLong(long value) throws IOException {
+    out.writeLong(value);
+  }
+
+  public void writeDouble(double value) throws IOException {
+    out.writeDouble(value);
+  }
+
+  public void writeString(String value) throws IOException {
+    final byte[] bytes = value.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  public void writeDuration(Duration value) throws IOException {
+    out.writeLong(value.getSeconds());
+    out.writeInt(value.getNano());
+  }
+
+  /**
+   * Writes a value of any type, preceded by a tag saying how to read it back.
+   *
+   * @param value the value to write, possibly <tt>null</tt>
+   * @throws IOException           if the value cannot be written
+   * @throws IllegalStateException if the value is of a type needing a {@link SnapshotCodec} and none is registered
+   */
+  public void writeValue(Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof String) {
+      out.writeByte(STRING);
+      writeString((String) value);
+    } else if (value instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      writeBoolean((Boolean) value);
+    } else if (value instanceof Integer) {
+      out.writeByte(INT);
+      writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      writeLong((Long) value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      writeDouble((Double) value);
+    } else if (value instanceof Duration) {
+      out.writeByte(DURATION);
+      writeDuration((Duration) value);
+    } else if (value instanceof Enum) {
+      out.writeByte(ENUM);
+      writeString(((Enum<?>) value).getDeclaringClass().getName());
+      writeString(((Enum<?>) value).name());
+    } else if (value instanceof Config) {
+      out.writeByte(CONFIG);
+      writeString(((Config) value).root().render(ConfigRenderOptions.concise()));
+    } else if (value instanceof ConfigValue) {
+      out.writeByte(CONFIG_VALUE);
+      writeValue(((ConfigValue) value).unwrapped());
+    } else if (value instanceof NestedConfig) {
+      out.writeByte(CONFIG);
+      writeString(((NestedConfig) value).nestedSource().root().render(ConfigRenderOptions.concise()));
+    } else if (value instanceof LazyConfigList) {
+      writeValue(((LazyConfigList<?>) value).source());
+    } else if (value instanceof ConfigIndex) {
+      writeValue(((ConfigIndex<?>) value).source());
+    } else if (value instanceof Optional) {
+      writeOptional((Optional<?>) value);
+    } else if (value instanceof List) {
+      writeList((List<?>) value);
+    } else if (value instanceof Map) {
+      writeMap((Map<?, ?>) value);
+    } else if (value.getClass().isArray()) {
+      writeArray(value);
+    } else {
+      final SnapshotCodec<Object> codec = codecs.forValue(value);
+      out.writeByte(CUSTOM);
+      writeString(codec.type().getName());
+      codec.write(value, this);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+  private void writeOptional(Optional<?> value) throws IOException {
+    if (value.isPresent()) {
+      out.writeByte(OPTIONAL);
+      writeValue(value.get());
+    } else {
+      out.writeByte(EMPTY);
+    }
+  }
+
+  private void writeList(List<?> values) throws IOException {
+    out.writeByte(LIST);
+    out.writeInt(values.size());
+    for (Object value : values) {
+      writeValue(value);
+    }
+  }
+
+  private void writeMap(Map<?, ?> values) throws IOException {
+    out.writeByte(MAP);
+    out.writeInt(values.size());
+    for (Map.Entry<?, ?> entry : values.entrySet()) {
+      writeValue(entry.getKey());
+      writeValue(entry.getValue());
+    }
+  }
+
+  private void writeArray(Object array) throws IOException {
+    if (array instanceof int[]) {
+      out.writeByte(INT_ARRAY);
+      out.writeInt(((int[]) array).length);
+      for (int value : (int[]) array) {
+        out.writeInt(value);
+      }
+    } else if (array instanceof long[]) {
+      out.writeByte(LONG_ARRAY);
+      out.writeInt(((long[]) array).length);
+      for (long value : (long[]) array) {
+        out.writeLong(value);
+      }
+    } else if (array instanceof double[]) {
+      out.writeByte(DOUBLE_ARRAY);
+      out.writeInt(((double[]) array).length);
+      for (double value : (double[]) array) {
+        out.writeDouble(value);
+      }
+    } else if (array instanceof boolean[]) {
+      out.writeByte(BOOLEAN_ARRAY);
+      out.writeInt(((boolean[]) array).length);
+      for (boolean value : (boolean[]) array) {
+        out.writeBoolean(value);
+      }
+    } else {
+      final SnapshotCodec<Object> codec = codecs.forValue(array);
+      out.writeByte(CUSTOM);
+      writeString(codec.type().getName());
+      codec.write(array, this);
+    }
+  }
+}
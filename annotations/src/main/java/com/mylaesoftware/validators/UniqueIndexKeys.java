@@ -0,0 +1,27 @@
+package com.mylaesoftware.validators;
+
+import com.mylaesoftware.ConfigIndex;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Reports the keys found more than once in an indexed config value, see
+ * {@link com.mylaesoftware.annotations.ConfigValue#indexBy()}. It is added to the validators of every indexed value.
+ */
+public class UniqueIndexKeys implements ConfigValidator<Object> {
+  @Override
+  public Collection<ValidationError> apply(Object value) {
+    final Object present = value instanceof Optional ? ((Optional<?>) value).orElse(null) : value;
+    if (!(present instanceof ConfigIndex)) {
+      return Collections.emptySet();
+    }
+    final ConfigIndex<?> index = (ConfigIndex<?>) present;
+    return index.duplicates().stream()
+        .map(key -> new ValidationError("duplicate key '" + key + "' at '" + index.key() + "'"))
+        .collect(toList());
+  }
+}
@@ -0,0 +1,23 @@
+package com.mylaesoftware.validators;
+
+/**
+ * How the validators of a wired config are run.
+ */
+public enum ValidationMode {
+
+  /**
+   * Runs every validator on the wiring thread and reports all the errors found.
+   */
+  COLLECT_ALL,
+
+  /**
+   * Runs the validators on the wiring thread and stops at the first validator reporting an error.
+   */
+  FAIL_FAST,
+
+  /**
+   * Runs every validator concurrently on the executor of the {@link com.mylaesoftware.WiringOptions} and reports all
+   * the errors found.
+   */
+  PARALLEL
+}
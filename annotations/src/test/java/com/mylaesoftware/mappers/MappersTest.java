@@ -5,6 +5,9 @@ import com.typesafe.config.ConfigFactory;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class MappersTest {
 
   @Test
@@ -23,4 +26,32 @@ public class MappersTest {
     ).isEqualTo(ConfigFactory.parseString("bar = 23"));
   }
 
+  @Test
+  public void arrayMappersShouldReturnPrimitiveArraysUnderGivenKey() {
+    Config config = ConfigFactory.parseString(
+        "ints = [1, 2, 3], longs = [10000000000], doubles = [0.5, 1], booleans = [true, false], empty = []"
+    );
+    Assertions.assertThat(new CollectionsMappers.IntArrayM().apply(config, "ints")).containsExactly(1, 2, 3);
+    Assertions.assertThat(new CollectionsMappers.LongArrayM().apply(config, "longs")).containsExactly(10000000000L);
+    Assertions.assertThat(new CollectionsMappers.DoubleArrayM().apply(config, "doubles")).containsExactly(0.5, 1.0);
+    Assertions.assertThat(new CollectionsMappers.BooleanArrayM().apply(config, "booleans"))
+        .containsExactly(true, false);
+    Assertions.assertThat(new CollectionsMappers.IntArrayM().apply(config, "empty")).isEmpty();
+  }
+
+  @Test
+  public void mapMapperShouldReturnImmutableMapsInTheOrderOfTheirKeys() {
+    Config config = ConfigFactory.parseString("limits { m = 1, z = 2, a = 3, \"b.c\" = 4 }");
+
+    Map<String, Integer> limits = new CollectionsMappers.MapM<>(new BasicMappers.IntM()).apply(config, "limits");
+
+    Assertions.assertThat(limits).containsExactly(Assertions.entry("a", 3), Assertions.entry("b.c", 4),
+        Assertions.entry("m", 1), Assertions.entry("z", 2));
+    Assertions.assertThat(limits).containsKey("z").doesNotContainKey("y").isEqualTo(new HashMap<>(limits));
+    Map<String, Integer> copy = CollectionsMappers.compactMap(new HashMap<>(limits));
+    Assertions.assertThat(copy).isEqualTo(limits);
+    Assertions.assertThat(copy.keySet()).containsExactly("a", "b.c", "m", "z");
+    Assertions.assertThatThrownBy(() -> limits.put("y", 5)).isInstanceOf(UnsupportedOperationException.class);
+  }
+
 }
@@ -0,0 +1,119 @@
+package com.mylaesoftware.benchmarks;
+
+import com.mylaesoftware.ConfigProcessor;
+import com.mylaesoftware.ConfigReaderProcessor;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long the {@link ConfigReaderProcessor} and the {@link ConfigProcessor} take, and (with
+ * <tt>-prof gc</tt>) how much they allocate, to generate the config for synthetic sources of growing size.
+ *
+ * <p>Each invocation runs javac with <tt>-proc:only</tt>, so the score includes parsing the synthetic sources but not
+ * compiling them. The time the processors spend in each of their phases is reported next to the score as secondary
+ * results: <tt>readerSpecsNanos</tt> for <tt>ConfigTypeSpecReducer.reader</tt>, <tt>readerBuildNanos</tt> for
+ * <tt>ConfigReaderSpec.build</tt> and <tt>readerWriteToNanos</tt> for writing the readers, then
+ * <tt>accumulateNanos</tt> for <tt>ConfigTypeSpecReducer.compose</tt>, <tt>buildNanos</tt> for
+ * <tt>ConfigTypeSpec.build</tt> and <tt>writeToNanos</tt> for writing the <tt>GlobalConfigImpl</tt>, together with
+ * <tt>usedHeapBytes</tt>, the heap in use right after processing.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProcessorBenchmark {
+
+  @Param({"1", "100", "1000", "5000"})
+  int types;
+
+  @Param({"1", "10"})
+  int valuesPerType;
+
+  @Param({"0", "50"})
+  int validatedPercent;
+
+  @Param({"0", "50"})
+  int mappedPercent;
+
+  private SyntheticConfig synthetic;
+  private Path outputDir;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    synthetic = SyntheticConfig.withTypes(types, valuesPerType, validatedPercent, mappedPercent);
+  }
+
+  @Setup(Level.Iteration)
+  public void createOutputDir() throws IOException {
+    outputDir = Files.createTempDirectory("config-composer-processor-benchmark");
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteOutputDir() throws IOException {
+    try (Stream<Path> files = Files.walk(outputDir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public Map<String, Long> process(Phases phases) throws IOException {
+    Map<String, Long> timings = synthetic.process(outputDir);
+    phases.readerSpecsNanos += timings.get("readerSpecs");
+    phases.readerBuildNanos += timings.get("readerBuild");
+    phases.readerWriteToNanos += timings.get("readerWriteTo");
+    phases.accumulateNanos += timings.get("accumulate");
+    phases.buildNanos += timings.get("build");
+    phases.writeToNanos += timings.get("writeTo");
+    Runtime runtime = Runtime.getRuntime();
+    phases.usedHeapBytes += runtime.totalMemory() - runtime.freeMemory();
+    return timings;
+  }
+
+  /**
+   * Per phase timings of the single invocation in each iteration.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Phases {
+    public long readerSpecsNanos;
+    public long readerBuildNanos;
+    public long readerWriteToNanos;
+    public long accumulateNanos;
+    public long buildNanos;
+    public long writeToNanos;
+    public long usedHeapBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      readerSpecsNanos = 0;
+      readerBuildNanos = 0;
+      readerWriteToNanos = 0;
+      accumulateNanos = 0;
+      buildNanos = 0;
+      writeToNanos = 0;
+      usedHeapBytes = 0;
+    }
+  }
+}
@@ -0,0 +1,266 @@
+package com.mylaesoftware.benchmarks;
+
+import com.mylaesoftware.ConfigProcessor;
+import com.mylaesoftware.ConfigReaderProcessor;
+import com.mylaesoftware.GlobalConfig;
+import com.mylaesoftware.mappers.ConfigMapper;
+import com.mylaesoftware.validators.NonEmptyString;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a set of {@code @ConfigType} interfaces with a given number of {@code @ConfigValue} methods together with
+ * a matching HOCON config, and compiles them with the {@link ConfigReaderProcessor} and the {@link ConfigProcessor}
+ * at benchmark setup time.
+ *
+ * <p>Values are spread over interfaces of at most a given number of methods and cycle through the basic types
+ * supported out of the box, so that the generated <tt>GlobalConfigImpl</tt> resembles a real application config. A
+ * share of the values can be made <tt>String</tt>s validated by {@link NonEmptyString} or read by a custom mapper.</p>
+ */
+final class SyntheticConfig {
+
+  static final int VALUES_PER_TYPE = 100;
+
+  private static final String PACKAGE = "com.mylaesoftware.benchmarks.generated";
+  private static final String DIRECT_CONSTRUCTION = "DirectConstruction";
+  private static final String MAPPER = "SyntheticMapper";
+  private static final Pattern TIMING = Pattern.compile("(\\w+)=(\\d+)");
+
+  private static final List<ValueKind> KINDS = Arrays.asList(
+      new ValueKind("String", "\"value-%d\"", ""),
+      new ValueKind("int", "%d", ""),
+      new ValueKind("long", "%d", ""),
+      new ValueKind("double", "%d.5", ""),
+      new ValueKind("boolean", "true", ""),
+      new ValueKind("java.time.Duration", "%d ms", ""),
+      new ValueKind("java.util.List<String>", "[a%d, b, c]", ""),
+      new ValueKind("java.util.List<Integer>", "[%d, 2, 3]", ""),
+      new ValueKind("java.util.Optional<String>", "\"present-%d\"", ""),
+      new ValueKind("java.util.Optional<Integer>", null, "")
+  );
+  private static final ValueKind VALIDATED = new ValueKind("String", "\"validated-%d\"",
+      "validatedBy = " + NonEmptyString.class.getName() + ".class");
+  private static final ValueKind MAPPED = new ValueKind("String", "\"mapped-%d\"", "mappedBy = " + MAPPER + ".class");
+
+  private final int values;
+  private final int valuesPerType;
+  private final int validatedPercent;
+  private final int mappedPercent;
+  private final List<JavaFileObject> sources = new ArrayList<>();
+  private final StringBuilder hocon = new StringBuilder();
+
+  private SyntheticConfig(int values, int valuesPerType, int validatedPercent, int mappedPercent) {
+    this.values = values;
+    this.valuesPerType = valuesPerType;
+    this.validatedPercent = validatedPercent;
+    this.mappedPercent = mappedPercent;
+    for (int type = 0; type * valuesPerType < values; type++) {
+      addType(type, Math.min(valuesPerType, values - type * valuesPerType));
+    }
+    sources.add(source(MAPPER,
+        "public final class " + MAPPER + " implements " + ConfigMapper.class.getName() + "<String> {\n"
+            + "  public String apply(com.typesafe.config.Config config, String path) {\n"
+            + "    return config.getString(path);\n"
+            + "  }\n"
+            + "}\n"
+    ));
+    sources.add(source(DIRECT_CONSTRUCTION,
+        "public final class " + DIRECT_CONSTRUCTION
+            + " implements java.util.function.Function<com.typesafe.config.Config, com.mylaesoftware.GlobalConfig> {\n"
+            + "  public com.mylaesoftware.GlobalConfig apply(com.typesafe.config.Config config) {\n"
+            + "    return new com.mylaesoftware." + GlobalConfig.IMPLEMENTATION_NAME + "(config);\n"
+            + "  }\n"
+            + "}\n"
+    ));
+  }
+
+  /**
+   * A config with the given number of values, in types of {@link #VALUES_PER_TYPE} values, one in ten of which is
+   * validated.
+   */
+  static SyntheticConfig withValues(int values) {
+    return new SyntheticConfig(values, VALUES_PER_TYPE, 10, 0);
+  }
+
+  /**
+   * A config with the given number of types, each declaring the same number of values.
+   *
+   * @param types            the number of <tt>@ConfigType</tt> interfaces
+   * @param valuesPerType    the number of <tt>@ConfigValue</tt> methods in each interface
+   * @param validatedPercent the share of values with a validator
+   * @param mappedPercent    the share of values read by a custom mapper
+   */
+  static SyntheticConfig withTypes(int types, int valuesPerType, int validatedPercent, int mappedPercent) {
+    if (validatedPercent + mappedPercent > 100) {
+      throw new IllegalArgumentException("At most 100% of the values can be validated or mapped");
+    }
+    return new SyntheticConfig(types * valuesPerType, valuesPerType, validatedPercent, mappedPercent);
+  }
+
+  Config config() {
+    return ConfigFactory.parseString(hocon.toString()).resolve();
+  }
+
+  /**
+   * Compiles the synthetic sources into the given directory.
+   *
+   * @param outputDir where to write the compiled classes
+   * @return the class loader of the generated <tt>GlobalConfigImpl</tt> and a direct constructor call into it
+   */
+  Compiled compile(Path outputDir) throws IOException {
+    run(Arrays.asList("-d", outputDir.toString()));
+    return new Compiled(new URLClassLoader(new URL[] {outputDir.toUri().toURL()}, getClass().getClassLoader()));
+  }
+
+  /**
+   * Runs the annotation processors over the synthetic sources without compiling them nor the generated code.
+   *
+   * @param outputDir where to write the generated sources
+   * @return the time spent by the processors in each phase, in nanoseconds, by phase name
+   */
+  Map<String, Long> process(Path outputDir) throws IOException {
+    List<String> notes = run(Arrays.asList("-proc:only", "-s", outputDir.toString(), "-d", outputDir.toString(),
+        "-A" + ConfigProcessor.TIMINGS_OPTION)).stream()
+        .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.NOTE)
+        .map(diagnostic -> diagnostic.getMessage(Locale.ROOT))
+        .filter(message -> message.startsWith(ConfigProcessor.TIMINGS_NOTE))
+        .collect(Collectors.toList());
+    if (notes.isEmpty()) {
+      throw new IllegalStateException("The processors did not report their timings");
+    }
+
+    Map<String, Long> timings = new LinkedHashMap<>();
+    for (String note : notes) {
+      Matcher timing = TIMING.matcher(note);
+      while (timing.find()) {
+        timings.merge(timing.group(1), Long.parseLong(timing.group(2)), Long::sum);
+      }
+    }
+    return timings;
+  }
+
+  private List<Diagnostic<? extends JavaFileObject>> run(List<String> options) throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+      List<String> allOptions = new ArrayList<>(options);
+      allOptions.add("-classpath");
+      allOptions.add(System.getProperty("java.class.path"));
+      JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, allOptions, null, sources);
+      task.setProcessors(Arrays.asList(new ConfigReaderProcessor(), new ConfigProcessor()));
+      if (!task.call()) {
+        throw new IllegalStateException(String.format("Compilation of %d synthetic config values failed:\n%s",
+            values,
+            diagnostics.getDiagnostics().stream().map(Object::toString).collect(Collectors.joining("\n"))
+        ));
+      }
+    }
+    return diagnostics.getDiagnostics();
+  }
+
+  private void addType(int type, int count) {
+    String name = "SyntheticConfig" + type;
+    StringBuilder body = new StringBuilder()
+        .append("@com.mylaesoftware.annotations.ConfigType(contextPath = \"type").append(type).append("\")\n")
+        .append("public interface ").append(name).append(" {\n");
+
+    hocon.append("type").append(type).append(" {\n");
+    for (int i = 0; i < count; i++) {
+      int index = type * valuesPerType + i;
+      ValueKind kind = kindOf(index);
+      String annotationParams = kind.annotationParams.isEmpty() ? "" : ", " + kind.annotationParams;
+
+      body.append("  @com.mylaesoftware.annotations.ConfigValue(atPath = \"value").append(index).append('"')
+          .append(annotationParams).append(")\n")
+          .append("  ").append(kind.type).append(" value").append(index).append("();\n");
+
+      if (kind.hoconFormat != null) {
+        hocon.append("  value").append(index).append(" = ")
+            .append(String.format(kind.hoconFormat, index)).append('\n');
+      }
+    }
+    hocon.append("}\n");
+    sources.add(source(name, body.append("}\n").toString()));
+  }
+
+  /**
+   * Validated and mapped values are spread evenly: the first ones of every hundred are validated and the last ones
+   * are mapped.
+   */
+  private ValueKind kindOf(int index) {
+    if (index % 100 < validatedPercent) {
+      return VALIDATED;
+    }
+    if (index % 100 >= 100 - mappedPercent) {
+      return MAPPED;
+    }
+    return KINDS.get(index % KINDS.size());
+  }
+
+  private static JavaFileObject source(String className, String body) {
+    URI uri = URI.create(
+        "string:///" + PACKAGE.replace('.', '/') + "/" + className + JavaFileObject.Kind.SOURCE.extension
+    );
+    String content = "package " + PACKAGE + ";\n\n" + body;
+    return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return content;
+      }
+    };
+  }
+
+  static final class Compiled {
+    final ClassLoader classLoader;
+    final Function<Config, GlobalConfig> directConstruction;
+
+    @SuppressWarnings("unchecked")
+    private Compiled(ClassLoader classLoader) {
+      this.classLoader = classLoader;
+      try {
+        directConstruction = (Function<Config, GlobalConfig>) classLoader
+            .loadClass(PACKAGE + "." + DIRECT_CONSTRUCTION)
+            .getDeclaredConstructor()
+            .newInstance();
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Cannot load synthetic config classes", e);
+      }
+    }
+  }
+
+  private static final class ValueKind {
+    final String type;
+    final String hoconFormat;
+    final String annotationParams;
+
+    ValueKind(String type, String hoconFormat, String annotationParams) {
+      this.type = type;
+      this.hoconFormat = hoconFormat;
+      this.annotationParams = annotationParams;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.mylaesoftware.benchmarks;
+
+import com.mylaesoftware.ConfigComposer;
+import com.mylaesoftware.GlobalConfig;
+import com.mylaesoftware.WiringOptions;
+import com.typesafe.config.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures throughput, latency and (with <tt>-prof gc</tt>) allocation rate of wiring a synthetic config with a
+ * given number of {@code @ConfigValue}s.
+ *
+ * <p><tt>wire</tt> goes through {@link ConfigComposer#wire(Config, ClassLoader)} while <tt>construct</tt> calls the
+ * generated constructor directly, so the difference between the two is the cost of locating the implementation.
+ * <tt>loadSnapshot</tt> creates the same config from a snapshot written once per trial, which leaves out reading the
+ * values from the config.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireBenchmark {
+
+  @Param({"10", "1000", "10000"})
+  int values;
+
+  private Path outputDir;
+  private Config config;
+  private SyntheticConfig.Compiled compiled;
+  private Path snapshot;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    SyntheticConfig synthetic = SyntheticConfig.withValues(values);
+    outputDir = Files.createTempDirectory("config-composer-benchmark");
+    compiled = synthetic.compile(outputDir);
+    config = synthetic.config();
+    snapshot = outputDir.resolve("config.snapshot");
+    ConfigComposer.writeSnapshot(ConfigComposer.wire(config, compiled.classLoader), snapshot);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(outputDir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public GlobalConfig wire() {
+    return ConfigComposer.wire(config, compiled.classLoader);
+  }
+
+  @Benchmark
+  public GlobalConfig construct() {
+    return compiled.directConstruction.apply(config);
+  }
+
+  @Benchmark
+  public GlobalConfig loadSnapshot() throws IOException {
+    return ConfigComposer.loadSnapshot(snapshot, compiled.classLoader, WiringOptions.defaults(), false);
+  }
+}
@@ -1,12 +1,14 @@
 package com.mylaesoftware;
 
+import com.mylaesoftware.annotations.ConfigBean;
 import com.mylaesoftware.annotations.ConfigType;
 import com.mylaesoftware.annotations.ConfigValue;
 
 public enum Annotations {
 
   CONFIG_TYPE(ConfigType.class),
-  CONFIG_VALUE(ConfigValue.class);
+  CONFIG_VALUE(ConfigValue.class),
+  CONFIG_BEAN(ConfigBean.class);
 
   private final Class<?> annotation;
   public final String name;
@@ -3,9 +3,14 @@ package com.mylaesoftware;
 import com.mylaesoftware.annotations.ConfigType;
 import com.mylaesoftware.annotations.ConfigValue;
 import com.mylaesoftware.exceptions.AnnotationProcessingException;
+import com.mylaesoftware.snapshot.SnapshotOutput;
 import com.mylaesoftware.specs.ConfigTypeSpec;
 import com.mylaesoftware.specs.ConfigTypeSpecReducer;
 import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.TypeSpec;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigFactory;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
@@ -16,35 +21,91 @@ import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
 import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
-import java.util.Collections;
-import java.util.HashSet;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.mylaesoftware.Annotations.CONFIG_TYPE;
 import static com.mylaesoftware.Annotations.CONFIG_VALUE;
 
+/**
+ * Generates the <tt>GlobalConfigImpl</tt> composing the readers generated by the {@link ConfigReaderProcessor}, see
+ * {@link ConfigTypeSpec}, and registers its factory.
+ *
+ * <p>The implementation depends on every config type, so this processor is aggregating. The config types are
+ * collected in the round they are found in and the implementation is only generated in the next round, once the
+ * readers have been generated, and only if no error was raised meanwhile. This way a config type misusing the
+ * annotations is reported once, by the processor that found it, and not again as a missing reader.</p>
+ */
 public class ConfigProcessor extends AbstractProcessor {
 
+  /**
+   * When set, the time spent in each phase of generating the config is reported as a note, starting with
+   * {@link #TIMINGS_NOTE}.
+   */
+  public static final String TIMINGS_OPTION = "configcomposer.timings";
+  public static final String TIMINGS_NOTE = "Config composer timings (ns):";
+
+  /**
+   * The config file to bake into the generated config, see {@link #bake(ConfigTypeSpec)}. Relative paths are resolved
+   * against the working directory of the compiler.
+   */
+  public static final String BAKE_OPTION = "configcomposer.bake";
+
+  /**
+   * The comma separated config paths not to bake, whose values are read at runtime. A path covers every path below it.
+   */
+  public static final String BAKE_DYNAMIC_OPTION = "configcomposer.bake.dynamic";
+
   private Filer filer;
   private Messager messager;
+  private Elements elementUtils;
   private ConfigTypeSpecReducer reducer;
-  private final Set<Element> annotatedClasses = Collections.synchronizedSet(new HashSet<>());
+  private boolean reportTimings;
+  private String bakedFile;
+  private List<String> dynamicPaths;
+  private final Set<String> configTypeNames = new TreeSet<>();
+  private boolean generated;
 
   @Override
   public synchronized void init(ProcessingEnvironment env) {
     super.init(env);
     filer = env.getFiler();
     messager = env.getMessager();
+    elementUtils = env.getElementUtils();
     AnnotationParamExtractor typesExtractor = new AnnotationParamExtractor(env.getTypeUtils(), env.getElementUtils()
     );
     reducer = new ConfigTypeSpecReducer(typesExtractor);
+    reportTimings = reportTimings(env);
+    bakedFile = env.getOptions().get(BAKE_OPTION);
+    dynamicPaths = Stream.of(env.getOptions().getOrDefault(BAKE_DYNAMIC_OPTION, "").split(","))
+        .map(String::trim)
+        .filter(path -> !path.isEmpty())
+        .collect(Collectors.toList());
+  }
+
+  static boolean reportTimings(ProcessingEnvironment env) {
+    return env.getOptions().containsKey(TIMINGS_OPTION)
+        && !"false".equalsIgnoreCase(env.getOptions().get(TIMINGS_OPTION));
+  }
+
+  @Override
+  public Set<String> getSupportedOptions() {
+    return Stream.of(TIMINGS_OPTION, BAKE_OPTION, BAKE_DYNAMIC_OPTION).collect(Collectors.toSet());
   }
 
   @Override
@@ -60,25 +121,102 @@ public class ConfigProcessor extends AbstractProcessor {
     return SourceVersion.latestSupported();
   }
 
+  /**
+   * Elements are not carried over from one round to the next, only the names of the config types are, to be looked
+   * up again in the round generating the implementation. Nested config types are only read by the readers of other
+   * types, so they are left out.
+   */
   @Override
   public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
-    if (!annotatedClasses.addAll(roundEnv.getElementsAnnotatedWith(ConfigType.class)) && !annotatedClasses.isEmpty()) {
-      return true;
+    if (generated) {
+      return false;
     }
     try {
-      validateConfigValueAnnotatedElements(roundEnv.getElementsAnnotatedWith(ConfigValue.class));
-
-      ConfigTypeSpec configClass = annotatedClasses.stream()
-          .map(e -> (TypeElement) e)
-          .reduce(ConfigTypeSpec.empty(), reducer::accumulate, reducer::combine);
+      if (!configTypeNames.isEmpty()) {
+        generated = true;
+        if (!roundEnv.errorRaised()) {
+          generate();
+        }
+        return false;
+      }
 
-      JavaFile.builder(configClass.packageName(), configClass.build()).build().writeTo(filer);
+      validateConfigValueAnnotatedElements(roundEnv.getElementsAnnotatedWith(ConfigValue.class));
+      roundEnv.getElementsAnnotatedWith(ConfigType.class).stream()
+          .filter(e -> !e.getAnnotation(ConfigType.class).nested())
+          .forEach(e -> configTypeNames.add(((TypeElement) e).getQualifiedName().toString()));
     } catch (AnnotationProcessingException ape) {
       messager.printMessage(Kind.ERROR, ape.getMessage());
     } catch (IOException ioe) {
       messager.printMessage(Kind.WARNING, ioe.getMessage());
     }
-    return true;
+    return false;
+  }
+
+  private void generate() throws IOException {
+    final long start = System.nanoTime();
+    ConfigTypeSpec configClass = reducer.compose(configTypeNames.stream()
+        .map(elementUtils::getTypeElement)
+        .collect(Collectors.toList()));
+    final long accumulated = System.nanoTime();
+    TypeSpec implementation = configClass.build();
+    final long built = System.nanoTime();
+    JavaFile.builder(configClass.packageName(), implementation).build().writeTo(filer);
+    final long written = System.nanoTime();
+    registerFactory(configClass);
+    if (bakedFile != null) {
+      bake(configClass);
+    }
+
+    if (reportTimings) {
+      messager.printMessage(Kind.NOTE, String.format("%s accumulate=%d build=%d writeTo=%d", TIMINGS_NOTE,
+          accumulated - start, built - accumulated, written - built));
+    }
+  }
+
+  private void registerFactory(ConfigTypeSpec configClass) throws IOException {
+    FileObject services = filer.createResource(StandardLocation.CLASS_OUTPUT, "",
+        "META-INF/services/" + GlobalConfigFactory.class.getName(),
+        configClass.originatingElements()
+    );
+    try (Writer writer = services.openWriter()) {
+      writer.write(configClass.factoryName().reflectionName() + "\n");
+    }
+  }
+
+  /**
+   * Reads the values of the config file given by {@link #BAKE_OPTION} with their mappers, the ones the processor can
+   * load, and writes them to a snapshot resource for the generated config to start from. The values and validators
+   * left to runtime are reported as notes. The file is not an input
+   * tracked by incremental builds, so changing it alone does not bake it again.
+   */
+  private void bake(ConfigTypeSpec configClass) throws IOException {
+    File file = new File(bakedFile);
+    if (!file.isFile()) {
+      messager.printMessage(Kind.ERROR, "Cannot find the config to bake " + file.getAbsolutePath());
+      return;
+    }
+    Config config;
+    try {
+      config = ConfigFactory.parseFile(file).resolve();
+    } catch (ConfigException e) {
+      messager.printMessage(Kind.ERROR, "Cannot parse the config to bake: " + e.getMessage());
+      return;
+    }
+    Predicate<String> dynamic = path -> dynamicPaths.stream()
+        .anyMatch(prefix -> path.equals(prefix) || path.startsWith(prefix + "."));
+    ClassLoader loader = ConfigProcessor.class.getClassLoader();
+    ByteArrayOutputStream baked = new ByteArrayOutputStream();
+    try (SnapshotOutput snapshot = new SnapshotOutput(baked, loader)) {
+      snapshot.writeSchema(configClass.snapshotSchema());
+      for (TypeElement type : configClass.readerTypes()) {
+        reducer.reader(type).bake(config, dynamic, loader, messager, snapshot);
+      }
+    }
+    FileObject resource = filer.createResource(StandardLocation.CLASS_OUTPUT, "", GlobalConfigFactory.BAKED_SNAPSHOT,
+        configClass.originatingElements());
+    try (OutputStream out = resource.openOutputStream()) {
+      baked.writeTo(out);
+    }
   }
 
   private void validateConfigValueAnnotatedElements(Set<? extends Element> elements) {
@@ -105,6 +243,7 @@ public class ConfigProcessor extends AbstractProcessor {
     }
 
     List<Element> duplicates = elements.stream()
+        .filter(e -> !e.getEnclosingElement().getAnnotation(ConfigType.class).nested())
         .collect(Collectors.groupingBy(Element::getSimpleName))
         .values().stream().filter(list -> list.size() > 1)
         .flatMap(List::stream)
@@ -0,0 +1,120 @@
+package com.mylaesoftware;
+
+import com.mylaesoftware.annotations.ConfigBean;
+import com.mylaesoftware.annotations.ConfigType;
+import com.mylaesoftware.exceptions.AnnotationProcessingException;
+import com.mylaesoftware.specs.ConfigBeanSpec;
+import com.mylaesoftware.specs.ConfigReaderSpec;
+import com.mylaesoftware.specs.ConfigTypeSpecReducer;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.mylaesoftware.Annotations.CONFIG_BEAN;
+import static com.mylaesoftware.Annotations.CONFIG_TYPE;
+
+/**
+ * Generates the reader of every config type, see {@link ConfigReaderSpec}, and the mapper of every bean, see
+ * {@link ConfigBeanSpec}.
+ *
+ * <p>Each reader is generated from its config type alone, and each mapper from its bean alone, so this processor is
+ * isolating: when a config type changes only its reader is generated and compiled again. The {@link ConfigProcessor}
+ * composes the readers.</p>
+ */
+public class ConfigReaderProcessor extends AbstractProcessor {
+
+  private Filer filer;
+  private Messager messager;
+  private ConfigTypeSpecReducer reducer;
+  private boolean reportTimings;
+
+  @Override
+  public synchronized void init(ProcessingEnvironment env) {
+    super.init(env);
+    filer = env.getFiler();
+    messager = env.getMessager();
+    reducer = new ConfigTypeSpecReducer(new AnnotationParamExtractor(env.getTypeUtils(), env.getElementUtils()));
+    reportTimings = ConfigProcessor.reportTimings(env);
+  }
+
+  @Override
+  public Set<String> getSupportedOptions() {
+    return Collections.singleton(ConfigProcessor.TIMINGS_OPTION);
+  }
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return new HashSet<>(Arrays.asList(CONFIG_TYPE.canonicalName, CONFIG_BEAN.canonicalName));
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  /**
+   * A config type or bean misusing the annotations is reported and skipped, the readers and mappers of the others are
+   * still generated.
+   */
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getElementsAnnotatedWith(ConfigBean.class)) {
+      try {
+        ConfigBeanSpec mapper = new ConfigBeanSpec((TypeElement) element);
+        JavaFile.builder(mapper.packageName(), mapper.build()).build().writeTo(filer);
+      } catch (AnnotationProcessingException ape) {
+        messager.printMessage(Kind.ERROR, ape.getMessage());
+      } catch (IOException ioe) {
+        messager.printMessage(Kind.WARNING, ioe.getMessage());
+      }
+    }
+    Set<? extends Element> configTypes = roundEnv.getElementsAnnotatedWith(ConfigType.class);
+    if (configTypes.isEmpty()) {
+      return false;
+    }
+    long specsNanos = 0;
+    long buildNanos = 0;
+    long writeToNanos = 0;
+    for (Element element : configTypes) {
+      try {
+        final long start = System.nanoTime();
+        ConfigReaderSpec reader = reducer.reader((TypeElement) element);
+        final long specified = System.nanoTime();
+        specsNanos += specified - start;
+        if (reader.isEmpty()) {
+          continue;
+        }
+        TypeSpec readerClass = reader.build();
+        final long built = System.nanoTime();
+        JavaFile.builder(reader.packageName(), readerClass).build().writeTo(filer);
+        buildNanos += built - specified;
+        writeToNanos += System.nanoTime() - built;
+      } catch (AnnotationProcessingException ape) {
+        messager.printMessage(Kind.ERROR, ape.getMessage());
+      } catch (IOException ioe) {
+        messager.printMessage(Kind.WARNING, ioe.getMessage());
+      }
+    }
+
+    if (reportTimings) {
+      messager.printMessage(Kind.NOTE, String.format("%s readerSpecs=%d readerBuild=%d readerWriteTo=%d",
+          ConfigProcessor.TIMINGS_NOTE, specsNanos, buildNanos, writeToNanos));
+    }
+    return false;
+  }
+}
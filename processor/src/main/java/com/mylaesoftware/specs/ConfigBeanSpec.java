@@ -0,0 +1,265 @@
+package com.mylaesoftware.specs;
+
+import com.mylaesoftware.Annotations;
+import com.mylaesoftware.WiringSupport;
+import com.mylaesoftware.annotations.ConfigBean;
+import com.mylaesoftware.exceptions.AnnotationProcessingException;
+import com.mylaesoftware.mappers.ConfigMapper;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.typesafe.config.Config;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The mapper of a single {@link ConfigBean}: a class in the package of the bean reading it from the subtree at the
+ * path it is given, by calling the constructor and setters of the bean directly.
+ *
+ * <p>Like a reader, a mapper only depends on the bean it is generated from, which is its only originating element.
+ * The properties of a bean that are beans themselves are read by their own mapper.</p>
+ */
+public class ConfigBeanSpec {
+
+  static final String READ_METHOD_NAME = "read";
+
+  private static final String SUFFIX = "_ConfigMapper";
+  private static final String SETTER_PREFIX = "set";
+  private static final String BEAN = "bean";
+
+  private final TypeElement element;
+  private final ClassName beanType;
+  private final ExecutableElement constructor;
+  private final List<ExecutableElement> setters;
+
+  /**
+   * Creates the mapper of a bean, failing on the first misuse of the annotation found in the bean.
+   *
+   * @param element the bean
+   * @throws AnnotationProcessingException if the bean cannot be read by a generated mapper
+   */
+  public ConfigBeanSpec(TypeElement element) {
+    this.element = element;
+    this.beanType = ClassName.get(element);
+
+    throwIfFalse(element.getKind() == ElementKind.CLASS && !element.getModifiers().contains(Modifier.ABSTRACT),
+        "annotation can only be used on concrete classes");
+
+    throwIfFalse(element.getTypeParameters().isEmpty(), "generics are not supported on ConfigBean");
+
+    throwIfFalse(element.getModifiers().contains(Modifier.PUBLIC)
+            && (!element.getNestingKind().isNested() || element.getModifiers().contains(Modifier.STATIC)),
+        "annotation cannot be used on non public or inner classes");
+
+    List<ExecutableElement> constructors = element.getEnclosedElements().stream()
+        .filter(e -> e.getKind() == ElementKind.CONSTRUCTOR && e.getModifiers().contains(Modifier.PUBLIC))
+        .map(e -> (ExecutableElement) e)
+        .collect(toList());
+    this.constructor = constructors.stream().filter(c -> c.getParameters().isEmpty()).findFirst()
+        .orElseGet(() -> constructors.size() == 1 ? constructors.get(0) : null);
+
+    throwIfFalse(constructor != null,
+        "annotation needs a public constructor without parameters, or a single public constructor");
+
+    this.setters = constructor.getParameters().isEmpty() ? setters(element) : new ArrayList<>();
+  }
+
+  /**
+   * The name of the mapper generated for a bean, a sibling of the bean in the same package.
+   *
+   * @param beanType the bean
+   * @return the name of its mapper
+   */
+  public static ClassName mapperName(ClassName beanType) {
+    return ClassName.get(beanType.packageName(), String.join("_", beanType.simpleNames()) + SUFFIX);
+  }
+
+  public String packageName() {
+    return beanType.packageName();
+  }
+
+  public TypeSpec build() {
+    return TypeSpec.classBuilder(mapperName(beanType))
+        .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+        .addOriginatingElement(element)
+        .addSuperinterface(ParameterizedTypeName.get(ClassName.get(ConfigMapper.class), beanType))
+        .addMethod(MethodSpec.methodBuilder("apply")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override.class)
+            .addParameter(Config.class, "config", Modifier.FINAL)
+            .addParameter(String.class, "key", Modifier.FINAL)
+            .returns(beanType)
+            .addStatement("return $L(key.trim().isEmpty() ? config : config.getConfig(key))", READ_METHOD_NAME)
+            .build())
+        .addMethod(buildRead())
+        .build();
+  }
+
+  private MethodSpec buildRead() {
+    MethodSpec.Builder read = MethodSpec.methodBuilder(READ_METHOD_NAME)
+        .addJavadoc("Reads the bean from its subtree.\n")
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addParameter(Config.class, "config", Modifier.FINAL)
+        .returns(beanType);
+    if (!constructor.getParameters().isEmpty()) {
+      return read.addStatement("return new $T($L)", beanType, constructor.getParameters().stream()
+          .map(parameter -> property(parameter.asType(), parameter.getSimpleName().toString(), parameter))
+          .collect(CodeBlock.joining(", ")))
+          .build();
+    }
+    read.addStatement("final $T $L = new $T()", beanType, BEAN, beanType);
+    for (ExecutableElement setter : setters) {
+      String name = propertyName(setter);
+      CodeBlock value = property(setter.getParameters().get(0).asType(), name, setter);
+      if (isOptional(name)) {
+        read.beginControlFlow("if (config.hasPath($L))", key(name))
+            .addStatement("$L.$L($L)", BEAN, setter.getSimpleName(), value)
+            .endControlFlow();
+      } else {
+        read.addStatement("$L.$L($L)", BEAN, setter.getSimpleName(), value);
+      }
+    }
+    return read.addStatement("return $L", BEAN).build();
+  }
+
+  /**
+   * Reads a property with the {@link Config} getter of its type, or with the mapper of its bean.
+   */
+  private CodeBlock property(TypeMirror type, String name, Element property) {
+    CodeBlock key = key(name);
+    Element typeElement = type.getKind() == TypeKind.DECLARED ? ((DeclaredType) type).asElement() : null;
+    if (typeElement != null && typeElement.getKind() == ElementKind.ENUM) {
+      return CodeBlock.of("config.getEnum($T.class, $L)", TypeName.get(type), key);
+    }
+    if (typeElement != null && typeElement.getAnnotation(ConfigBean.class) != null) {
+      return CodeBlock.of("$T.$L(config.getConfig($L))",
+          mapperName(ClassName.get((TypeElement) typeElement)), READ_METHOD_NAME, key);
+    }
+    TypeElement elementBean = listElementBean(type);
+    if (elementBean != null) {
+      return CodeBlock.of("$T.<$T>nestedList(config.getConfigList($L), $T::$L)", WiringSupport.class,
+          ClassName.get(elementBean), key, mapperName(ClassName.get(elementBean)), READ_METHOD_NAME);
+    }
+    CodeBlock read = ConfigValueSpec.getterExpression(TypeName.get(type), key);
+    if (read == null) {
+      throw new AnnotationProcessingException(
+          String.format("Unsupported property type '%s' of %s '%s'", type, Annotations.CONFIG_BEAN.name, name),
+          property);
+    }
+    return read;
+  }
+
+  private static TypeElement listElementBean(TypeMirror type) {
+    if (type.getKind() != TypeKind.DECLARED || ((DeclaredType) type).getTypeArguments().size() != 1
+        || !((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(List.class.getName())) {
+      return null;
+    }
+    TypeMirror elementType = ((DeclaredType) type).getTypeArguments().get(0);
+    if (elementType.getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+    Element element = ((DeclaredType) elementType).asElement();
+    return element.getAnnotation(ConfigBean.class) == null ? null : (TypeElement) element;
+  }
+
+  /**
+   * Properties with more than one word are read at their name if the config has it, otherwise at their hyphenated
+   * form, like {@link com.typesafe.config.ConfigBeanFactory} does.
+   */
+  private static CodeBlock key(String name) {
+    String hyphenated = name.replaceAll("([A-Z])", "-$1").toLowerCase(Locale.ROOT);
+    return Character.isLowerCase(name.charAt(0)) && !hyphenated.equals(name)
+        ? CodeBlock.of("$T.beanKey(config, $S, $S)", WiringSupport.class, name, hyphenated)
+        : CodeBlock.of("$S", name);
+  }
+
+  /**
+   * Whether the field backing a property, declared by the bean or one of its superclasses, is annotated with
+   * {@link com.typesafe.config.Optional}.
+   */
+  private boolean isOptional(String name) {
+    return hierarchy(element).stream()
+        .flatMap(type -> type.getEnclosedElements().stream())
+        .filter(e -> e.getKind() == ElementKind.FIELD && e.getSimpleName().contentEquals(name))
+        .anyMatch(field -> field.getAnnotation(com.typesafe.config.Optional.class) != null);
+  }
+
+  /**
+   * The public setters of the bean and its superclasses, superclasses first. A setter overridden by a subclass is only
+   * called once, through the subclass, and otherwise a property can only have one setter.
+   */
+  private List<ExecutableElement> setters(TypeElement bean) {
+    Map<String, ExecutableElement> signatures = new LinkedHashMap<>();
+    hierarchy(bean).stream()
+        .flatMap(type -> type.getEnclosedElements().stream())
+        .filter(e -> e.getKind() == ElementKind.METHOD)
+        .map(e -> (ExecutableElement) e)
+        .filter(ConfigBeanSpec::isSetter)
+        .forEach(setter -> signatures.put(setter.getSimpleName() + "(" + setter.getParameters().get(0).asType() + ")",
+            setter));
+    List<ExecutableElement> setters = new ArrayList<>(signatures.values());
+    Set<String> properties = new HashSet<>();
+    for (ExecutableElement setter : setters) {
+      if (!properties.add(propertyName(setter))) {
+        throw new AnnotationProcessingException(String.format("%s property '%s' has more than one setter",
+            Annotations.CONFIG_BEAN.name, propertyName(setter)), setter);
+      }
+    }
+    return setters;
+  }
+
+  private static boolean isSetter(ExecutableElement method) {
+    String name = method.getSimpleName().toString();
+    return method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC)
+        && method.getParameters().size() == 1 && name.length() > SETTER_PREFIX.length()
+        && name.startsWith(SETTER_PREFIX) && Character.isUpperCase(name.charAt(SETTER_PREFIX.length()));
+  }
+
+  /**
+   * The property name of a setter, decapitalized like {@link java.beans.Introspector#decapitalize(String)} does.
+   */
+  private static String propertyName(ExecutableElement setter) {
+    String name = setter.getSimpleName().toString().substring(SETTER_PREFIX.length());
+    if (name.length() > 1 && Character.isUpperCase(name.charAt(1))) {
+      return name;
+    }
+    return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+  }
+
+  private static List<TypeElement> hierarchy(TypeElement bean) {
+    List<TypeElement> hierarchy = new ArrayList<>();
+    TypeElement type = bean;
+    while (type != null && !type.getQualifiedName().contentEquals(Object.class.getName())) {
+      hierarchy.add(0, type);
+      TypeMirror superclass = type.getSuperclass();
+      type = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+    return hierarchy;
+  }
+
+  private void throwIfFalse(boolean condition, String errorMessage) {
+    if (!condition) {
+      throw new AnnotationProcessingException(Annotations.CONFIG_BEAN.name + " " + errorMessage, element);
+    }
+  }
+}
@@ -0,0 +1,711 @@
+package com.mylaesoftware.specs;
+
+import com.mylaesoftware.ConfigWiringListener;
+import com.mylaesoftware.NestedConfig;
+import com.mylaesoftware.WiringOptions;
+import com.mylaesoftware.WiringSupport;
+import com.mylaesoftware.annotations.ConfigType;
+import com.mylaesoftware.snapshot.SnapshotInput;
+import com.mylaesoftware.snapshot.SnapshotOutput;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.typesafe.config.Config;
+
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The reader of a single config type: a class in the package of the type holding its values, reading them from a
+ * {@link Config} and running their validators.
+ *
+ * <p>A reader only depends on the config type it is generated from, which is its only originating element, so that
+ * changing one config type only regenerates and recompiles its own reader. The values are assigned positions in the
+ * order of their names, so that the generated source is the same on every run.</p>
+ */
+public class ConfigReaderSpec {
+
+  static final String CHANGED_METHOD_NAME = "changed$";
+  static final String WRITE_SNAPSHOT_METHOD_NAME = "writeSnapshot";
+  static final String NESTED_METHOD_NAME = "nested$";
+  static final String UPDATE_METHOD_NAME = "update$";
+
+  private static final String SUFFIX = "_ConfigReader";
+  private static final String SOURCE_CONFIG_FIELD_NAME = "config$";
+  private static final String CONTEXT_FIELD_NAME = "context$";
+  private static final String DYNAMIC_FIELD_NAME = "dynamic$";
+  private static final String CONTEXT = "context";
+  private static final String OPTIONS_FIELD_NAME = "options$";
+  private static final String CHANGED_FIELD_NAME = "changed$";
+  private static final String CHANGED_VALUES = "changed";
+  private static final String EXECUTOR = "executor";
+  private static final String LISTENER = "listener";
+  private static final String VALIDATION = "validation";
+  private static final String SNAPSHOT = "snapshot";
+  private static final String BINDING = "binding";
+
+  /**
+   * The types written to snapshots by the typed methods of {@link SnapshotOutput}, with the suffix of the methods.
+   * Values of any other type are written behind a tag.
+   */
+  private static final Map<TypeName, String> SNAPSHOT_METHODS = new HashMap<>();
+
+  static {
+    SNAPSHOT_METHODS.put(TypeName.BOOLEAN, "Boolean");
+    SNAPSHOT_METHODS.put(TypeName.INT, "Int");
+    SNAPSHOT_METHODS.put(TypeName.LONG, "Long");
+    SNAPSHOT_METHODS.put(TypeName.DOUBLE, "Double");
+    SNAPSHOT_METHODS.put(TypeName.get(String.class), "String");
+    SNAPSHOT_METHODS.put(TypeName.get(Duration.class), "Duration");
+  }
+
+  private final TypeElement element;
+  private final ClassName configType;
+  private final String contextPath;
+  private final boolean nested;
+  private final List<ClassName> typeValidators;
+  private final List<ConfigValueSpec> values = new ArrayList<>();
+  private final Map<ClassName, FieldSpec> validatorFields = new LinkedHashMap<>();
+  private final Map<String, Integer> validatorNames = new HashMap<>();
+
+  /**
+   * Creates the reader of a config type.
+   *
+   * @param element        the config type
+   * @param configValues   the values declared by the type
+   * @param typeValidators the validators of the type, only run by the reader of a nested type
+   */
+  public ConfigReaderSpec(TypeElement element, Collection<ConfigValueSpec> configValues,
+                          Collection<ClassName> typeValidators) {
+    this.element = element;
+    this.configType = ClassName.get(element);
+    this.contextPath = element.getAnnotation(ConfigType.class).contextPath();
+    this.nested = element.getAnnotation(ConfigType.class).nested();
+    configValues.stream()
+        .sorted(Comparator.comparing(value -> value.getField().name))
+        .forEach(values::add);
+    values.forEach(value -> value.getValidators().stream()
+        .sorted(Comparator.comparing(ClassName::reflectionName))
+        .forEach(this::validatorField));
+    this.typeValidators = nested
+        ? typeValidators.stream().sorted(Comparator.comparing(ClassName::reflectionName)).collect(toList())
+        : emptyList();
+    this.typeValidators.forEach(this::validatorField);
+  }
+
+  /**
+   * The name of the reader generated for a config type, a sibling of the type in the same package.
+   *
+   * @param configType the config type
+   * @return the name of its reader
+   */
+  public static ClassName readerName(ClassName configType) {
+    return ClassName.get(configType.packageName(), String.join("_", configType.simpleNames()) + SUFFIX);
+  }
+
+  public String packageName() {
+    return configType.packageName();
+  }
+
+  public boolean isEmpty() {
+    return values.isEmpty();
+  }
+
+  public TypeSpec build() {
+    ClassName readerName = readerName(configType);
+    TypeSpec.Builder builder = TypeSpec.classBuilder(readerName)
+        .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+        .addOriginatingElement(element)
+        .addFields(validatorFields.values())
+        .addField(Config.class, SOURCE_CONFIG_FIELD_NAME, Modifier.PRIVATE, Modifier.FINAL);
+    if (hasContextValues()) {
+      builder.addField(Config.class, CONTEXT_FIELD_NAME, Modifier.PRIVATE, Modifier.FINAL);
+    }
+    if (hasLazyValues()) {
+      builder.addField(WiringOptions.class, OPTIONS_FIELD_NAME, Modifier.PRIVATE, Modifier.FINAL);
+    }
+    if (hasDynamicValues()) {
+      builder.addField(Config.class, DYNAMIC_FIELD_NAME, Modifier.PRIVATE, Modifier.VOLATILE)
+          .addMethod(buildUpdate());
+    }
+    builder.addField(TypeName.BOOLEAN, CHANGED_FIELD_NAME, Modifier.PRIVATE, Modifier.FINAL)
+        .addType(buildBinding(readerName))
+        .addMethod(buildConstructor(readerName))
+        .addMethod(buildSnapshotConstructor(readerName))
+        .addMethod(MethodSpec.methodBuilder(CHANGED_METHOD_NAME)
+            .addJavadoc("Whether any value was read again rather than taken from the previous reader.\n")
+            .addModifiers(Modifier.PUBLIC)
+            .returns(TypeName.BOOLEAN)
+            .addStatement("return $L", CHANGED_FIELD_NAME)
+            .build())
+        .addMethod(buildWriteSnapshot());
+    if (nested) {
+      builder.addSuperinterface(configType)
+          .addSuperinterface(NestedConfig.class)
+          .addMethod(buildNestedFactory(readerName))
+          .addMethod(MethodSpec.methodBuilder("nestedSource")
+              .addModifiers(Modifier.PUBLIC)
+              .addAnnotation(Override.class)
+              .returns(Config.class)
+              .addStatement("return $L", SOURCE_CONFIG_FIELD_NAME)
+              .build());
+    }
+
+    for (int position = 0; position < values.size(); position++) {
+      ConfigValueSpec value = values.get(position);
+      builder.addFields(value.getConstants())
+          .addField(value.getField())
+          .addMethod(value.getInitMethod());
+      if (value.isLazy()) {
+        builder.addField(buildLazyFlag(value))
+            .addMethod(buildLazyAccessor(value));
+      } else {
+        builder.addMethod(value.getAccessor());
+      }
+      if (value.isReadByMapper() && !value.isLazy()) {
+        builder.addMethod(buildSubmit(readerName, value, position));
+      }
+      builder.addMethod(buildBind(readerName, value, position));
+    }
+    return builder.build();
+  }
+
+  private boolean hasLazyValues() {
+    return values.stream().anyMatch(ConfigValueSpec::isLazy);
+  }
+
+  /**
+   * Whether the type declares values that can be updated in place, see {@link ConfigValueSpec#isDynamic()}.
+   *
+   * @return true if the reader has an update method
+   */
+  public boolean hasDynamicValues() {
+    return values.stream().anyMatch(ConfigValueSpec::isDynamic);
+  }
+
+  private boolean hasContextValues() {
+    return values.stream().anyMatch(ConfigValueSpec::isReadFromContext);
+  }
+
+  /**
+   * The subtree at the context path is resolved once, for all the values read from it, see
+   * {@link ConfigValueSpec#isReadFromContext()}.
+   */
+  private CodeBlock contextCode() {
+    if (!hasContextValues()) {
+      return CodeBlock.of("");
+    }
+    return CodeBlock.builder()
+        .addStatement("final $T $L = $T.context($N, $S)", Config.class, CONTEXT, WiringSupport.class, "config",
+            contextPath)
+        .add(retained(CONTEXT_FIELD_NAME, CodeBlock.of("$L", CONTEXT),
+            values.stream().anyMatch(value -> value.isLazy() && value.isReadFromContext())))
+        .build();
+  }
+
+  /**
+   * The config the values were read from is only kept when it is needed to read values later, for lazy values and
+   * nested types, or when the options ask to rebind incrementally, see {@link WiringOptions#incrementalRebind()}.
+   * Readers that do not keep it tell every value as changed when rebinding.
+   */
+  private static CodeBlock retained(String field, CodeBlock config, boolean needed) {
+    return needed
+        ? CodeBlock.builder().addStatement("this.$L = $L", field, config).build()
+        : CodeBlock.builder().addStatement("this.$L = $N.incrementalRebind() ? $L : null", field, "options", config)
+        .build();
+  }
+
+  private CodeBlock sourceCode() {
+    return retained(SOURCE_CONFIG_FIELD_NAME, CodeBlock.of("$N", "config"),
+        nested || values.stream().anyMatch(value -> value.isLazy() && !value.isReadFromContext()));
+  }
+
+  /**
+   * Dynamic values may be updated after the constructor is done, so the config they were last read from is kept apart
+   * from the config the other values were read from, to tell which values changed when rebinding or updating.
+   */
+  private CodeBlock dynamicCode() {
+    return hasDynamicValues()
+        ? retained(DYNAMIC_FIELD_NAME, CodeBlock.of("$N", "config"), false)
+        : CodeBlock.of("");
+  }
+
+  /**
+   * Reads the dynamic values that changed and runs their validators, returning the action publishing them so that no
+   * value is updated until the values of all the readers are read and valid. The values that did not change keep
+   * their current instance. Readers that did not keep the config they were last updated from read every value again,
+   * and keep not holding it.
+   */
+  private MethodSpec buildUpdate() {
+    List<ConfigValueSpec> dynamicValues = values.stream().filter(ConfigValueSpec::isDynamic).collect(toList());
+    MethodSpec.Builder update = MethodSpec.methodBuilder(UPDATE_METHOD_NAME)
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(Config.class, "config", Modifier.FINAL)
+        .addParameter(ConfigWiringListener.class, LISTENER, Modifier.FINAL)
+        .addParameter(WiringSupport.Validation.class, VALIDATION, Modifier.FINAL)
+        .returns(Runnable.class)
+        .addStatement("final $T $L = this.$L", Config.class, "previous", DYNAMIC_FIELD_NAME);
+    if (dynamicValues.stream().anyMatch(ConfigValueSpec::isReadFromContext)) {
+      update.addStatement("final $T $L = $T.context($N, $S)", Config.class, CONTEXT, WiringSupport.class, "config",
+          contextPath);
+    }
+    CodeBlock.Builder publish = CodeBlock.builder()
+        .add("return () -> {\n")
+        .indent()
+        .addStatement("this.$L = $N == null ? null : $N", DYNAMIC_FIELD_NAME, "previous", "config");
+    for (ConfigValueSpec value : dynamicValues) {
+      update.addStatement("final boolean $L = $T.hasChanged($N, $N, $S)", changedFlag(value), WiringSupport.class,
+          "previous", "config", value.getConfigPath())
+          .addStatement("final $T $N = $L ? $N($L, $L) : this.$N", value.getField().type, value.getField(),
+              changedFlag(value), value.getInitMethod(), source(value), LISTENER, value.getField());
+      if (!value.getValidators().isEmpty()) {
+        update.beginControlFlow("if ($L)", changedFlag(value))
+            .addCode(validatorCalls(value, VALIDATION, CodeBlock.of("$N", value.getField())))
+            .endControlFlow();
+      }
+      publish.addStatement("this.$N = $N", value.getField(), value.getField());
+    }
+    return update.addCode(publish.unindent().add("};\n").build()).build();
+  }
+
+  private MethodSpec buildConstructor(ClassName readerName) {
+    MethodSpec.Builder constructor = MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(Config.class, "config", Modifier.FINAL)
+        .addParameter(readerName, "previous", Modifier.FINAL)
+        .addParameter(WiringOptions.class, "options", Modifier.FINAL)
+        .addParameter(WiringSupport.Validation.class, VALIDATION, Modifier.FINAL)
+        .addCode(sourceCode())
+        .addCode(contextCode())
+        .addCode(dynamicCode());
+    if (hasLazyValues()) {
+      constructor.addStatement("this.$L = $N", OPTIONS_FIELD_NAME, "options");
+    }
+    return constructor
+        .addStatement("final $T $L = new $T($L, $N, null, $N, $L)", bindingName(readerName), BINDING,
+            bindingName(readerName), sources(), "previous", "options", VALIDATION)
+        .addCode(fieldsAssignmentCode())
+        .addStatement("this.$L = $T.anyChanged($L.$L)", CHANGED_FIELD_NAME, WiringSupport.class, BINDING,
+            CHANGED_VALUES)
+        .build();
+  }
+
+  /**
+   * Reads a nested value of this type from its subtree, validating it on its own, type validators included, as it is
+   * not part of the <tt>GlobalConfigImpl</tt> running them for the other types.
+   */
+  private MethodSpec buildNestedFactory(ClassName readerName) {
+    MethodSpec.Builder factory = MethodSpec.methodBuilder(NESTED_METHOD_NAME)
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addParameter(Config.class, "config", Modifier.FINAL)
+        .addParameter(ConfigWiringListener.class, LISTENER, Modifier.FINAL)
+        .returns(readerName)
+        .addStatement("final $T $N = $T.nestedOptions($L)", WiringOptions.class, "options", WiringSupport.class,
+            LISTENER)
+        .addStatement("final $T $L = $T.validation($N)", WiringSupport.Validation.class, VALIDATION,
+            WiringSupport.class, "options")
+        .addStatement("final $T $N = new $T($N, null, $N, $L)", readerName, "reader", readerName, "config", "options",
+            VALIDATION);
+    typeValidators.forEach(validator -> factory.addStatement("$L.type($N, $N, $T.class)", VALIDATION,
+        validatorField(validator), "reader", configType));
+    return factory
+        .addStatement("$L.complete()", VALIDATION)
+        .addStatement("return $N", "reader")
+        .build();
+  }
+
+  /**
+   * Reads every value from a snapshot, in the order {@link #buildWriteSnapshot()} writes them. Each value is preceded
+   * by whether the snapshot holds it: written snapshots hold them all, lazy ones included, while baked snapshots leave
+   * out the values to be read from the config at runtime. Values left out are read like the constructor reading the
+   * config does, lazy ones on first access, and only the values read here are validated here.
+   */
+  private MethodSpec buildSnapshotConstructor(ClassName readerName) {
+    MethodSpec.Builder constructor = MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(SnapshotInput.class, SNAPSHOT, Modifier.FINAL)
+        .addParameter(Config.class, "config", Modifier.FINAL)
+        .addParameter(WiringOptions.class, "options", Modifier.FINAL)
+        .addParameter(WiringSupport.Validation.class, VALIDATION, Modifier.FINAL)
+        .addCode(sourceCode())
+        .addCode(contextCode())
+        .addCode(dynamicCode());
+    if (hasLazyValues()) {
+      constructor.addStatement("this.$L = $N", OPTIONS_FIELD_NAME, "options");
+    }
+    constructor.addStatement("final $T $L = new $T($L, null, $N, $N, $L)", bindingName(readerName), BINDING,
+        bindingName(readerName), sources(), SNAPSHOT, "options", VALIDATION);
+    for (ConfigValueSpec value : values) {
+      constructor.addCode(bindCode(value, value.isReadByMapper() && !value.isLazy()
+          ? CodeBlock.of(", null")
+          : CodeBlock.of("")));
+    }
+    return constructor.addStatement("this.$L = true", CHANGED_FIELD_NAME).build();
+  }
+
+  /**
+   * Writes every value to a snapshot, going through the accessors so that lazy values are read first. Streamed values,
+   * which cannot be lazy, are written as the iterable they are held in rather than as a stream.
+   */
+  private MethodSpec buildWriteSnapshot() {
+    MethodSpec.Builder write = MethodSpec.methodBuilder(WRITE_SNAPSHOT_METHOD_NAME)
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(SnapshotOutput.class, SNAPSHOT, Modifier.FINAL)
+        .addException(IOException.class);
+    for (ConfigValueSpec value : values) {
+      String typed = SNAPSHOT_METHODS.get(value.getField().type);
+      write.addStatement("$N.writeBoolean(true)", SNAPSHOT)
+          .addStatement("$N.write$L($L)", SNAPSHOT, typed == null ? "Value" : typed, value.isStreamed()
+              ? CodeBlock.of("$N", value.getField())
+              : CodeBlock.of("$N()", value.getAccessor()));
+    }
+    return write.build();
+  }
+
+  /**
+   * Bakes the values of a config known at build time, in the order {@link #buildWriteSnapshot()} writes them. Values
+   * on a dynamic path, or that cannot be read at build time, are left out of the snapshot, see
+   * {@link ConfigValueSpec#bake}.
+   *
+   * @param config   the config to bake
+   * @param dynamic  whether a path is to be read at runtime
+   * @param loader   the class loader to load mappers and validators from
+   * @param messager the messager to report what only runs at runtime to
+   * @param snapshot the snapshot to write the values to
+   * @throws IOException if the snapshot cannot be written
+   */
+  public void bake(Config config, Predicate<String> dynamic, ClassLoader loader, Messager messager,
+                   SnapshotOutput snapshot) throws IOException {
+    for (ConfigValueSpec value : values) {
+      Optional<Object> baked = dynamic.test(value.getConfigPath())
+          ? Optional.empty()
+          : value.bake(config, loader, messager);
+      snapshot.writeBoolean(baked.isPresent());
+      if (baked.isPresent()) {
+        writeBaked(snapshot, value.getField().type, baked.get());
+      }
+    }
+  }
+
+  private static void writeBaked(SnapshotOutput snapshot, TypeName type, Object value) throws IOException {
+    switch (SNAPSHOT_METHODS.getOrDefault(type, "Value")) {
+      case "Boolean":
+        snapshot.writeBoolean((Boolean) value);
+        break;
+      case "Int":
+        snapshot.writeInt((Integer) value);
+        break;
+      case "Long":
+        snapshot.writeLong((Long) value);
+        break;
+      case "Double":
+        snapshot.writeDouble((Double) value);
+        break;
+      case "String":
+        snapshot.writeString((String) value);
+        break;
+      case "Duration":
+        snapshot.writeDuration((Duration) value);
+        break;
+      default:
+        snapshot.writeValue(value);
+    }
+  }
+
+  /**
+   * Values read by a mapper are submitted to the executor, when given, as soon as they are known to have changed, so
+   * that they are read while the calling thread reads the other values. They are joined last.
+   */
+  private CodeBlock fieldsAssignmentCode() {
+    CodeBlock.Builder code = CodeBlock.builder();
+    for (ConfigValueSpec value : values) {
+      if (value.isReadByMapper() && !value.isLazy()) {
+        code.addStatement("final $T<$T> $L = $N($L)", CompletableFuture.class, value.getField().type.box(),
+            pendingRead(value), helperName("submit", value), BINDING);
+      }
+    }
+    for (ConfigValueSpec value : values) {
+      if (!value.isReadByMapper() || value.isLazy()) {
+        code.add(bindCode(value, CodeBlock.of("")));
+      }
+    }
+    for (ConfigValueSpec value : values) {
+      if (value.isReadByMapper() && !value.isLazy()) {
+        code.add(bindCode(value, CodeBlock.of(", $L", pendingRead(value))));
+      }
+    }
+    return code.build();
+  }
+
+  /**
+   * Every value takes a single statement in the constructors, its own method telling whether it changed, reading and
+   * validating it, so that the constructors stay within the size limit of methods however many values the type
+   * declares.
+   */
+  private static CodeBlock bindCode(ConfigValueSpec value, CodeBlock pending) {
+    return value.isLazy()
+        ? CodeBlock.builder().addStatement("$N($L)", helperName("bind", value), BINDING).build()
+        : CodeBlock.builder().addStatement("this.$N = $N($L$L)", value.getField(), helperName("bind", value), BINDING,
+            pending).build();
+  }
+
+  /**
+   * What the values of a reader are read with, shared by the methods binding each value, see
+   * {@link #bindCode(ConfigValueSpec, CodeBlock)}. Readers are read either from a config, rebinding the values of
+   * the previous reader if any, or from a snapshot.
+   */
+  private TypeSpec buildBinding(ClassName readerName) {
+    MethodSpec.Builder constructor = MethodSpec.constructorBuilder()
+        .addParameter(Config.class, "config", Modifier.FINAL);
+    TypeSpec.Builder binding = TypeSpec.classBuilder(bindingName(readerName))
+        .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+        .addField(Config.class, "config", Modifier.PRIVATE, Modifier.FINAL);
+    if (hasContextValues()) {
+      constructor.addParameter(Config.class, CONTEXT, Modifier.FINAL);
+      binding.addField(Config.class, CONTEXT, Modifier.PRIVATE, Modifier.FINAL);
+    }
+    constructor.addParameter(readerName, "previous", Modifier.FINAL)
+        .addParameter(SnapshotInput.class, SNAPSHOT, Modifier.FINAL)
+        .addParameter(WiringOptions.class, "options", Modifier.FINAL)
+        .addParameter(WiringSupport.Validation.class, VALIDATION, Modifier.FINAL)
+        .addStatement("this.$N = $N", "config", "config");
+    if (hasContextValues()) {
+      constructor.addStatement("this.$L = $L", CONTEXT, CONTEXT);
+    }
+    constructor.addStatement("this.$N = $N", "previous", "previous")
+        .addStatement("this.$L = $L", SNAPSHOT, SNAPSHOT)
+        .addStatement("this.$N = $N", "options", "options")
+        .addStatement("this.$L = $N.listener()", LISTENER, "options")
+        .addStatement("this.$L = $N.executor()", EXECUTOR, "options")
+        .addStatement("this.$L = $L", VALIDATION, VALIDATION)
+        .addStatement("this.$L = new boolean[$L]", CHANGED_VALUES, values.size());
+    return binding.addField(readerName, "previous", Modifier.PRIVATE, Modifier.FINAL)
+        .addField(SnapshotInput.class, SNAPSHOT, Modifier.PRIVATE, Modifier.FINAL)
+        .addField(WiringOptions.class, "options", Modifier.PRIVATE, Modifier.FINAL)
+        .addField(ConfigWiringListener.class, LISTENER, Modifier.PRIVATE, Modifier.FINAL)
+        .addField(Executor.class, EXECUTOR, Modifier.PRIVATE, Modifier.FINAL)
+        .addField(WiringSupport.Validation.class, VALIDATION, Modifier.PRIVATE, Modifier.FINAL)
+        .addField(boolean[].class, CHANGED_VALUES, Modifier.PRIVATE, Modifier.FINAL)
+        .addMethod(constructor.build())
+        .build();
+  }
+
+  /**
+   * Tells whether a value read by a mapper changed and, if so, submits reading it to the executor when there is one.
+   */
+  private MethodSpec buildSubmit(ClassName readerName, ConfigValueSpec value, int position) {
+    TypeName pending = ParameterizedTypeName.get(ClassName.get(CompletableFuture.class), value.getField().type.box());
+    return MethodSpec.methodBuilder(helperName("submit", value))
+        .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+        .addParameter(bindingName(readerName), BINDING, Modifier.FINAL)
+        .returns(pending)
+        .addCode(changedCode(value, position))
+        .addStatement("return $L.$L[$L] && $L.$L != null ? $T.supplyAsync(() -> $N($L.$L, $L.$L), $L.$L) : null",
+            BINDING, CHANGED_VALUES, position, BINDING, EXECUTOR, CompletableFuture.class, value.getInitMethod(),
+            BINDING, source(value), BINDING, LISTENER, BINDING, EXECUTOR)
+        .build();
+  }
+
+  /**
+   * Binds a value, from the snapshot when there is one and it holds the value, otherwise from the config. A value
+   * read from the config is only read again if it changed since the previous reader read it, otherwise the instance
+   * of the previous reader is kept, and only the values read here are validated here. Lazy values that are not read
+   * here keep the instance of the previous reader if it was read, and are otherwise read and validated on first
+   * access.
+   */
+  private MethodSpec buildBind(ClassName readerName, ConfigValueSpec value, int position) {
+    MethodSpec.Builder bind = MethodSpec.methodBuilder(helperName("bind", value))
+        .addModifiers(Modifier.PRIVATE)
+        .addParameter(bindingName(readerName), BINDING, Modifier.FINAL);
+    if (value.isLazy()) {
+      return bind.beginControlFlow("if ($L.$L != null)", BINDING, SNAPSHOT)
+          .beginControlFlow("if ($L.$L.readBoolean())", BINDING, SNAPSHOT)
+          .addStatement("this.$N = $L", value.getField(), snapshotRead(value))
+          .addStatement("this.$L = true", lazyFlag(value))
+          .addCode(validatorCalls(value, BINDING + "." + VALIDATION, CodeBlock.of("this.$N", value.getField())))
+          .endControlFlow()
+          .addStatement("return")
+          .endControlFlow()
+          .addCode(changedCode(value, position))
+          .beginControlFlow("if (!$L.$L[$L] && $L.$N.$L)", BINDING, CHANGED_VALUES, position, BINDING, "previous",
+              lazyFlag(value))
+          .addStatement("this.$N = $L.$N.$N", value.getField(), BINDING, "previous", value.getField())
+          .addStatement("this.$L = true", lazyFlag(value))
+          .endControlFlow()
+          .build();
+    }
+    CodeBlock read = CodeBlock.of("$N($L.$L, $L.$L)", value.getInitMethod(), BINDING, source(value), BINDING,
+        LISTENER);
+    if (value.isReadByMapper()) {
+      bind.addParameter(ParameterizedTypeName.get(ClassName.get(CompletableFuture.class),
+          value.getField().type.box()), pendingRead(value), Modifier.FINAL);
+      read = CodeBlock.of("$L != null ? $T.await($L) : $L", pendingRead(value), WiringSupport.class,
+          pendingRead(value), read);
+      bind.beginControlFlow("if ($L.$N != null && !$L.$L[$L])", BINDING, "previous", BINDING, CHANGED_VALUES,
+          position);
+    } else {
+      bind.addCode(changedCode(value, position))
+          .beginControlFlow("if (!$L.$L[$L])", BINDING, CHANGED_VALUES, position);
+    }
+    return bind.addModifiers(Modifier.STATIC)
+        .returns(value.getField().type)
+        .addStatement("return $L.$N.$N", BINDING, "previous", value.getField())
+        .endControlFlow()
+        .addStatement("final $T $N = $L.$L != null && $L.$L.readBoolean() ? $L : $L", value.getField().type,
+            value.getField(), BINDING, SNAPSHOT, BINDING, SNAPSHOT, snapshotRead(value),
+            shared(value, BINDING + ".options", read))
+        .addCode(validatorCalls(value, BINDING + "." + VALIDATION, CodeBlock.of("$N", value.getField())))
+        .addStatement("return $N", value.getField())
+        .build();
+  }
+
+  private CodeBlock snapshotRead(ConfigValueSpec value) {
+    CodeBlock snapshot = CodeBlock.of("$L.$L", BINDING, SNAPSHOT);
+    String typed = SNAPSHOT_METHODS.get(value.getField().type);
+    if (value.isNested() || value.isStreamed() || value.isIndexed()) {
+      return CodeBlock.of("$N($T.nestedSnapshot($L.readValue(), $S), $L.$L)", value.getInitMethod(),
+          WiringSupport.class, snapshot, value.getReadPath(), BINDING, LISTENER);
+    } else if (typed == null) {
+      return value.fromSnapshot(CodeBlock.of("$L.<$T>readValue()", snapshot, value.getField().type.box()));
+    }
+    return CodeBlock.of("$L.read$L()", snapshot, typed);
+  }
+
+  /**
+   * Dynamic values are compared with the config they were last updated from, the other values with the config the
+   * previous reader read them from. Readers read from a snapshot have no previous reader, all their values changed.
+   */
+  private CodeBlock changedCode(ConfigValueSpec value, int position) {
+    CodeBlock changed = value.isDynamic()
+        ? CodeBlock.of("$T.hasChanged($L.$N.$L, $L.$N, $S)", WiringSupport.class, BINDING, "previous",
+        DYNAMIC_FIELD_NAME, BINDING, "config", value.getConfigPath())
+        : CodeBlock.of("$T.hasChanged($L.$N.$L, $L.$L, $S)", WiringSupport.class, BINDING, "previous",
+        sourceField(value), BINDING, source(value), value.getReadPath());
+    return CodeBlock.builder()
+        .addStatement("$L.$L[$L] = $L.$N == null || $L", BINDING, CHANGED_VALUES, position, BINDING, "previous",
+            changed)
+        .build();
+  }
+
+  private CodeBlock sources() {
+    return hasContextValues() ? CodeBlock.of("$N, $L", "config", CONTEXT) : CodeBlock.of("$N", "config");
+  }
+
+  private static ClassName bindingName(ClassName readerName) {
+    return readerName.nestedClass("Binding");
+  }
+
+  private static String helperName(String prefix, ConfigValueSpec value) {
+    return prefix + value.getInitMethod().name.substring("read".length());
+  }
+
+  private CodeBlock validatorCalls(ConfigValueSpec value, String validation, CodeBlock held) {
+    CodeBlock.Builder code = CodeBlock.builder();
+    value.getValidators().stream()
+        .sorted(Comparator.comparing(ClassName::reflectionName))
+        .forEach(validator -> code.addStatement("$L.value($N, $L, $S, $T.class, $S)", validation,
+            validatorField(validator), value.returned(held), value.getConfigPath(), configType,
+            value.getField().name));
+    return code.build();
+  }
+
+  /**
+   * Values that can be shared are handed to {@link WiringSupport#canonical}, which shares them with the other configs
+   * wired in the same batch.
+   */
+  private static CodeBlock shared(ConfigValueSpec value, String options, CodeBlock read) {
+    return value.isShareable() ? CodeBlock.of("$T.canonical($L, $L)", WiringSupport.class, options, read) : read;
+  }
+
+  /**
+   * The local variable holding the config a value is read from in the constructors.
+   */
+  private static String source(ConfigValueSpec value) {
+    return value.isReadFromContext() ? CONTEXT : "config";
+  }
+
+  /**
+   * The field holding the config a value is read from once the constructor is done, to read lazy values and to tell
+   * which values changed when rebinding.
+   */
+  private static String sourceField(ConfigValueSpec value) {
+    return value.isReadFromContext() ? CONTEXT_FIELD_NAME : SOURCE_CONFIG_FIELD_NAME;
+  }
+
+  private static String changedFlag(ConfigValueSpec value) {
+    return value.getField().name + "$changed";
+  }
+
+  private static String pendingRead(ConfigValueSpec value) {
+    return value.getField().name + "$";
+  }
+
+  private static String lazyFlag(ConfigValueSpec value) {
+    return value.getField().name + "$read";
+  }
+
+  private static FieldSpec buildLazyFlag(ConfigValueSpec value) {
+    return FieldSpec.builder(TypeName.BOOLEAN, lazyFlag(value), Modifier.PRIVATE, Modifier.VOLATILE).build();
+  }
+
+  /**
+   * Lazy values are read and validated under double-checked locking: the flag is only set once the value passed
+   * validation, and being volatile it publishes the value written before it.
+   */
+  private MethodSpec buildLazyAccessor(ConfigValueSpec value) {
+    CodeBlock.Builder read = CodeBlock.builder()
+        .beginControlFlow("if (!$L)", lazyFlag(value))
+        .beginControlFlow("synchronized (this)")
+        .beginControlFlow("if (!$L)", lazyFlag(value))
+        .addStatement("final $T $L = $L.listener()", ConfigWiringListener.class, LISTENER, OPTIONS_FIELD_NAME)
+        .addStatement("$N = $L", value.getField(), shared(value, OPTIONS_FIELD_NAME,
+            CodeBlock.of("$N($L, $L)", value.getInitMethod(), sourceField(value), LISTENER)));
+    if (!value.getValidators().isEmpty()) {
+      read.addStatement("final $T $L = $T.lazyValidation($L)", WiringSupport.Validation.class, VALIDATION,
+          WiringSupport.class, OPTIONS_FIELD_NAME)
+          .add(validatorCalls(value, VALIDATION, CodeBlock.of("$N", value.getField())))
+          .addStatement("$L.complete()", VALIDATION);
+    }
+    return MethodSpec.methodBuilder(value.getAccessor().name)
+        .addModifiers(Modifier.PUBLIC)
+        .returns(value.getField().type)
+        .addCode(read
+            .addStatement("$L = true", lazyFlag(value))
+            .endControlFlow()
+            .endControlFlow()
+            .endControlFlow()
+            .build())
+        .addStatement("return $N", value.getField())
+        .build();
+  }
+
+  /**
+   * Validators are stateless, so a single instance of each is shared by all the values it validates.
+   */
+  private FieldSpec validatorField(ClassName validator) {
+    return validatorFields.computeIfAbsent(validator, v -> ConfigTypeSpec.validatorField(v, validatorNames));
+  }
+}
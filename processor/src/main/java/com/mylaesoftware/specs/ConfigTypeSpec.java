@@ -1,169 +1,369 @@
 package com.mylaesoftware.specs;
 
 import com.mylaesoftware.GlobalConfig;
-import com.mylaesoftware.validators.ConfigValidationException;
-import com.mylaesoftware.validators.ValidationError;
+import com.mylaesoftware.GlobalConfigFactory;
+import com.mylaesoftware.WiringOptions;
+import com.mylaesoftware.WiringSupport;
+import com.mylaesoftware.annotations.ConfigValue;
+import com.mylaesoftware.snapshot.SnapshotInput;
+import com.mylaesoftware.snapshot.SnapshotOutput;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
-import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.typesafe.config.Config;
 
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
-import javax.lang.model.type.TypeMirror;
+import javax.lang.model.element.TypeElement;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collector;
-import java.util.stream.Collectors;
 
-import static com.mylaesoftware.specs.ConfigTypeSpecReducer.merge;
-import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptySet;
-import static java.util.stream.Collectors.toSet;
+import static java.util.stream.Collectors.toList;
 
+/**
+ * The <tt>GlobalConfigImpl</tt> composing the readers of all the config types, see {@link ConfigReaderSpec}.
+ *
+ * <p>It holds one reader per config type declaring values, delegates every config value method to the reader of the
+ * type declaring it and runs the validators of the config types, which may cover the values of several readers. All
+ * the reading is left to the readers, so this class stays small however many values there are.</p>
+ */
 public class ConfigTypeSpec {
 
-  private static final ConfigTypeSpec EMPTY = new ConfigTypeSpec();
+  private static final String OPTIONS_FIELD_NAME = "options$";
+  private static final String VALIDATION = "validation";
+  private static final String SNAPSHOT = "snapshot";
+  private static final String SNAPSHOT_SCHEMA_FIELD_NAME = "SNAPSHOT_SCHEMA";
 
-  private static final Collector<CodeBlock, ?, CodeBlock> TO_CODE_BLOCK = CodeBlock.joining("");
-  private static final String VALIDATION_METHOD_NAME = "validate";
-
-  final Set<TypeMirror> superInterfaces;
-  final Map<ClassName, Collection<ConfigValueSpec>> configValues;
+  final Collection<TypeElement> configTypes;
+  final Map<ClassName, List<ExecutableElement>> configValues;
   final Map<ClassName, Collection<ClassName>> validators;
+  final Map<ClassName, Collection<ClassName>> supertypes;
 
-  private ConfigTypeSpec() {
-    superInterfaces = emptySet();
-    configValues = emptyMap();
-    validators = emptyMap();
-  }
-
-  public ConfigTypeSpec(Set<TypeMirror> superInterfaces,
-                        Map<ClassName, Collection<ConfigValueSpec>> configValues,
-                        Map<ClassName, Collection<ClassName>> validators) {
-    this.superInterfaces = superInterfaces;
+  public ConfigTypeSpec(Collection<TypeElement> configTypes,
+                        Map<ClassName, List<ExecutableElement>> configValues,
+                        Map<ClassName, Collection<ClassName>> validators,
+                        Map<ClassName, Collection<ClassName>> supertypes) {
+    this.configTypes = configTypes;
     this.configValues = configValues;
     this.validators = validators;
+    this.supertypes = supertypes;
   }
 
   public String packageName() {
     return GlobalConfig.class.getPackage().getName();
   }
 
+  public ClassName factoryName() {
+    return ClassName.get(packageName(), GlobalConfig.IMPLEMENTATION_NAME, GlobalConfigFactory.IMPLEMENTATION_NAME);
+  }
+
+  /**
+   * The config types, which the implementation and the registration of its factory are generated from.
+   *
+   * @return the elements of all the config types
+   */
+  public Element[] originatingElements() {
+    return configTypes.toArray(new Element[0]);
+  }
+
+  /**
+   * The config types declaring values, in the order the implementation reads their readers from snapshots.
+   *
+   * @return the elements of the config types with a reader
+   */
+  public List<TypeElement> readerTypes() {
+    Map<ClassName, String> readers = readerFields(types());
+    return configTypes.stream()
+        .filter(element -> readers.containsKey(ClassName.get(element)))
+        .sorted(Comparator.comparing(element -> ClassName.get(element).reflectionName()))
+        .collect(toList());
+  }
+
+  /**
+   * The fingerprint of the config types written to snapshots, see {@link SnapshotOutput#writeSchema(long)}.
+   *
+   * @return the fingerprint
+   */
+  public long snapshotSchema() {
+    return schema(readerFields(types()));
+  }
+
+  private List<ClassName> types() {
+    return configValues.keySet().stream()
+        .sorted(Comparator.comparing(ClassName::reflectionName))
+        .collect(toList());
+  }
+
+  private ClassName implementationName() {
+    return ClassName.get(packageName(), GlobalConfig.IMPLEMENTATION_NAME);
+  }
+
+  /**
+   * Builds the implementation in a single pass over the config types, taken in the order of their names so that the
+   * generated source is the same on every run. Every config type is an originating element of the implementation.
+   */
   public TypeSpec build() {
+    List<ClassName> types = types();
+    Map<ClassName, String> readers = readerFields(types);
+    Map<ClassName, FieldSpec> validatorFields = new LinkedHashMap<>();
+    Map<String, Integer> validatorNames = new HashMap<>();
+    CodeBlock.Builder typeValidation = CodeBlock.builder();
+    for (ClassName type : types) {
+      validators.getOrDefault(type, emptySet()).stream()
+          .sorted(Comparator.comparing(ClassName::reflectionName))
+          .map(validator -> validatorFields.computeIfAbsent(validator, v -> validatorField(v, validatorNames)))
+          .forEach(validator -> typeValidation.add(typeValidationCode(type, validator, readers)));
+    }
 
-    TypeSpec spec = TypeSpec.classBuilder(GlobalConfig.IMPLEMENTATION_NAME)
+    TypeSpec.Builder builder = TypeSpec.classBuilder(GlobalConfig.IMPLEMENTATION_NAME)
         .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
-        .addSuperinterfaces(superInterfaces.parallelStream().map(TypeName::get).collect(toSet()))
+        .addSuperinterfaces(types)
         .addSuperinterface(ClassName.get(GlobalConfig.class))
-        .addMethod(buildConstructor())
-        .addMethod(buildValidationMethod())
-        .build();
+        .addFields(validatorFields.values())
+        .addField(FieldSpec.builder(TypeName.LONG, SNAPSHOT_SCHEMA_FIELD_NAME, Modifier.PRIVATE, Modifier.STATIC,
+            Modifier.FINAL).initializer("$LL", schema(readers)).build())
+        .addField(WiringOptions.class, OPTIONS_FIELD_NAME, Modifier.PRIVATE, Modifier.FINAL);
+    configTypes.forEach(builder::addOriginatingElement);
+    readers.forEach((type, field) -> builder.addField(ConfigReaderSpec.readerName(type), field, Modifier.PRIVATE,
+        Modifier.FINAL));
+    builder.addMethod(buildConstructor())
+        .addMethod(buildRebindingConstructor(readers, typeValidation.build()))
+        .addMethod(buildSnapshotConstructor(readers, typeValidation.build()))
+        .addMethod(buildRebindMethod())
+        .addMethod(buildUpdateMethod(readers))
+        .addMethod(buildWriteSnapshotMethod(readers));
 
-    return configValues.values().stream().flatMap(Collection::stream).parallel()
-        .reduce(spec, ConfigTypeSpec::accumulate, ConfigTypeSpec::combine);
+    readers.forEach((type, field) -> configValues.get(type).stream()
+        .sorted(Comparator.comparing(method -> method.getSimpleName().toString()))
+        .forEach(method -> builder.addMethod(MethodSpec.overriding(method)
+            .addStatement("return $L.$L()", field, method.getSimpleName())
+            .build())));
+
+    return builder.addType(buildFactory()).build();
+  }
 
+  /**
+   * Names the field holding the reader of each config type declaring values after the type, keeping the names of
+   * types with the same simple name apart.
+   */
+  private Map<ClassName, String> readerFields(List<ClassName> types) {
+    Map<ClassName, String> readers = new LinkedHashMap<>();
+    Map<String, Integer> names = new HashMap<>();
+    types.stream().filter(type -> !configValues.get(type).isEmpty()).forEach(type -> {
+      String joined = String.join("_", type.simpleNames());
+      String name = Character.toLowerCase(joined.charAt(0)) + joined.substring(1) + "$";
+      int sameName = names.merge(name, 1, Integer::sum) - 1;
+      readers.put(type, sameName == 0 ? name : name + sameName);
+    });
+    return readers;
   }
 
   private MethodSpec buildConstructor() {
     return MethodSpec.constructorBuilder()
         .addModifiers(Modifier.PUBLIC)
         .addParameter(Config.class, "config", Modifier.FINAL)
-        .addCode(fieldsAssignmentCode())
-        .addStatement("$T<$T> errors = $L()", List.class, ValidationError.class, VALIDATION_METHOD_NAME)
-        .beginControlFlow("if (!errors.isEmpty())")
-        .addStatement("throw new $T(errors)", ConfigValidationException.class)
-        .endControlFlow()
+        .addStatement("this($N, null, $T.defaults())", "config", WiringOptions.class)
         .build();
   }
 
-  private CodeBlock fieldsAssignmentCode() {
-    return configValues.values().stream().flatMap(Collection::stream).parallel()
-        .map(value ->
-            CodeBlock.builder()
-                .addStatement(value.getField().name + " = " + value.getInitMethod().name + "($N)", "config")
-                .build())
-        .collect(TO_CODE_BLOCK);
-  }
-
-  private MethodSpec buildValidationMethod() {
-    return MethodSpec.methodBuilder(VALIDATION_METHOD_NAME)
-        .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
-        .returns(ParameterizedTypeName.get(List.class, ValidationError.class))
-        .addStatement("$T<$T> errors = new $T<>()", List.class, ValidationError.class, ArrayList.class)
-        .addCode(typesValidationCode())
-        .addCode(fieldsValidationCode())
-        .addStatement("return errors")
+  private MethodSpec buildRebindingConstructor(Map<ClassName, String> readers, CodeBlock typeValidation) {
+    MethodSpec.Builder constructor = MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PRIVATE)
+        .addParameter(Config.class, "config", Modifier.FINAL)
+        .addParameter(implementationName(), "previous", Modifier.FINAL)
+        .addParameter(WiringOptions.class, "options", Modifier.FINAL)
+        .addStatement("this.$L = $N", OPTIONS_FIELD_NAME, "options")
+        .addStatement("final $T $L = $T.validation($N)", WiringSupport.Validation.class, VALIDATION,
+            WiringSupport.class, "options");
+    readers.forEach((type, field) -> constructor.addStatement(
+        "this.$L = new $T($N, $N == null ? null : $N.$L, $N, $L)", field, ConfigReaderSpec.readerName(type), "config",
+        "previous", "previous", field, "options", VALIDATION));
+    return constructor
+        .addCode(typeValidation)
+        .addStatement("$L.complete()", VALIDATION)
         .build();
   }
 
-  private CodeBlock fieldsValidationCode() {
-    return validators.entrySet().parallelStream()
-        .map(this::toTypesValidationCode)
-        .collect(CodeBlock.joining(""));
+  /**
+   * The values are read from the snapshot reader by reader, in the order the readers are held, and validated as the
+   * readers go unless the validators are skipped. The values the snapshot leaves out are read from the config.
+   */
+  private MethodSpec buildSnapshotConstructor(Map<ClassName, String> readers, CodeBlock typeValidation) {
+    MethodSpec.Builder constructor = MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PRIVATE)
+        .addParameter(SnapshotInput.class, SNAPSHOT, Modifier.FINAL)
+        .addParameter(Config.class, "config", Modifier.FINAL)
+        .addParameter(WiringOptions.class, "options", Modifier.FINAL)
+        .addParameter(TypeName.BOOLEAN, "validate", Modifier.FINAL)
+        .addStatement("this.$L = $N", OPTIONS_FIELD_NAME, "options")
+        .addStatement("final $T $L = $N ? $T.validation($N) : $T.skippedValidation()", WiringSupport.Validation.class,
+            VALIDATION, "validate", WiringSupport.class, "options", WiringSupport.class)
+        .addStatement("$N.expectSchema($L)", SNAPSHOT, SNAPSHOT_SCHEMA_FIELD_NAME);
+    readers.forEach((type, field) -> constructor.addStatement("this.$L = new $T($N, $N, $N, $L)", field,
+        ConfigReaderSpec.readerName(type), SNAPSHOT, "config", "options", VALIDATION));
+    return constructor
+        .addCode(typeValidation)
+        .addStatement("$L.complete()", VALIDATION)
+        .build();
   }
 
-  private CodeBlock typesValidationCode() {
-    return configValues.entrySet().parallelStream()
-        .map(this::toFieldsValidationCode)
-        .collect(TO_CODE_BLOCK);
+  private MethodSpec buildWriteSnapshotMethod(Map<ClassName, String> readers) {
+    MethodSpec.Builder write = MethodSpec.methodBuilder(ConfigReaderSpec.WRITE_SNAPSHOT_METHOD_NAME)
+        .addModifiers(Modifier.PUBLIC)
+        .addAnnotation(Override.class)
+        .addParameter(SnapshotOutput.class, SNAPSHOT, Modifier.FINAL)
+        .addException(IOException.class)
+        .addStatement("$N.writeSchema($L)", SNAPSHOT, SNAPSHOT_SCHEMA_FIELD_NAME);
+    readers.values().forEach(field -> write.addStatement("$L.$L($N)", field,
+        ConfigReaderSpec.WRITE_SNAPSHOT_METHOD_NAME, SNAPSHOT));
+    return write.build();
   }
 
-  private CodeBlock toFieldsValidationCode(Map.Entry<ClassName, Collection<ConfigValueSpec>> entry) {
-
-    return entry.getValue().parallelStream().flatMap(configValue ->
-        configValue.getValidators().parallelStream()
-            .map(validator ->
-                CodeBlock.builder().add("errors.addAll(\n")
-                    .add("new $T().apply($L).stream()\n", validator, configValue.getField().name)
-                    .add(".map(e -> e.withFieldInfo($T.class, \"$L\"))\n", entry.getKey(), configValue.getField().name)
-                    .add(".collect($T.toList())\n", Collectors.class)
-                    .addStatement(")")
-                    .build()
-
-            )
-    ).collect(TO_CODE_BLOCK);
+  /**
+   * Snapshots hold values only, so a snapshot can only be read by an implementation holding the same values, of the
+   * same types, in the same order. That is told by a hash of the name and type of every value, in the order the
+   * readers write them.
+   */
+  private long schema(Map<ClassName, String> readers) {
+    long hash = 0xcbf29ce484222325L;
+    for (ClassName type : readers.keySet()) {
+      List<String> values = configValues.get(type).stream()
+          .map(method -> type.reflectionName() + "#" + method.getSimpleName() + ":" + method.getReturnType())
+          .sorted()
+          .collect(toList());
+      for (String value : values) {
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+          hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        hash = (hash ^ '\n') * 0x100000001b3L;
+      }
+    }
+    return hash;
   }
 
-  private CodeBlock toTypesValidationCode(Map.Entry<ClassName, Collection<ClassName>> entry) {
-
-    return entry.getValue().parallelStream().map(validator ->
-        CodeBlock.builder().add("errors.addAll(\n")
-            .add("new $T().apply($L).stream()\n", validator, "this")
-            .add(".map(e -> e.withClassInfo($T.class))\n", entry.getKey())
-            .add(".collect($T.toList())\n", Collectors.class)
-            .addStatement(")")
-            .build()
-    ).collect(TO_CODE_BLOCK);
+  private MethodSpec buildRebindMethod() {
+    return MethodSpec.methodBuilder("rebind")
+        .addModifiers(Modifier.PUBLIC)
+        .addAnnotation(Override.class)
+        .addParameter(Config.class, "config", Modifier.FINAL)
+        .returns(implementationName())
+        .addStatement("return new $T($N, this, $L)", implementationName(), "config", OPTIONS_FIELD_NAME)
+        .build();
   }
 
-  private static TypeSpec combine(TypeSpec one, TypeSpec other) {
-    return TypeSpec.classBuilder(GlobalConfig.IMPLEMENTATION_NAME)
-        .addModifiers(ConfigTypeSpecReducer.merge(one.modifiers, other.modifiers).toArray(new Modifier[0]))
-        .addSuperinterfaces(ConfigTypeSpecReducer.merge(one.superinterfaces, other.superinterfaces))
-        .addFields(ConfigTypeSpecReducer.merge(one.fieldSpecs, other.fieldSpecs))
-        .addMethods(ConfigTypeSpecReducer.merge(one.methodSpecs, other.methodSpecs)).build();
+  /**
+   * Every reader holding dynamic values reads and validates them before any of them publishes its values, so that an
+   * update failing in one reader leaves all the values as they were.
+   */
+  private MethodSpec buildUpdateMethod(Map<ClassName, String> readers) {
+    MethodSpec.Builder update = MethodSpec.methodBuilder("update")
+        .addModifiers(Modifier.PUBLIC)
+        .addAnnotation(Override.class)
+        .addParameter(Config.class, "config", Modifier.FINAL);
+    List<String> dynamicReaders = readers.entrySet().stream()
+        .filter(reader -> configValues.get(reader.getKey()).stream()
+            .anyMatch(method -> method.getAnnotation(ConfigValue.class).dynamic()))
+        .map(Map.Entry::getValue)
+        .collect(toList());
+    if (dynamicReaders.isEmpty()) {
+      return update.build();
+    }
+    update.addStatement("final $T $L = $T.validation($L)", WiringSupport.Validation.class, VALIDATION,
+        WiringSupport.class, OPTIONS_FIELD_NAME);
+    dynamicReaders.forEach(field -> update.addStatement("final $T $L = $L.$L($N, $L.listener(), $L)", Runnable.class,
+        field + "update", field, ConfigReaderSpec.UPDATE_METHOD_NAME, "config", OPTIONS_FIELD_NAME, VALIDATION));
+    update.addStatement("$L.complete()", VALIDATION);
+    dynamicReaders.forEach(field -> update.addStatement("$L.run()", field + "update"));
+    return update.build();
   }
 
-  private static TypeSpec accumulate(TypeSpec accumulated, ConfigValueSpec value) {
-    return accumulated.toBuilder().addField(value.getField())
-        .addMethod(value.getInitMethod())
-        .addMethod(value.getOverrideMethod())
+  private TypeSpec buildFactory() {
+    return TypeSpec.classBuilder(factoryName())
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+        .addSuperinterface(GlobalConfigFactory.class)
+        .addMethod(MethodSpec.methodBuilder("create")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override.class)
+            .addParameter(Config.class, "config", Modifier.FINAL)
+            .returns(implementationName())
+            .addStatement("return new $L($N)", GlobalConfig.IMPLEMENTATION_NAME, "config")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("create")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override.class)
+            .addParameter(Config.class, "config", Modifier.FINAL)
+            .addParameter(WiringOptions.class, "options", Modifier.FINAL)
+            .returns(implementationName())
+            .addStatement("return new $L($N, null, $N)", GlobalConfig.IMPLEMENTATION_NAME, "config", "options")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("create")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override.class)
+            .addParameter(SnapshotInput.class, SNAPSHOT, Modifier.FINAL)
+            .addParameter(Config.class, "config", Modifier.FINAL)
+            .addParameter(WiringOptions.class, "options", Modifier.FINAL)
+            .addParameter(TypeName.BOOLEAN, "validate", Modifier.FINAL)
+            .returns(implementationName())
+            .addStatement("return new $L($N, $N, $N, $N)", GlobalConfig.IMPLEMENTATION_NAME, SNAPSHOT, "config",
+                "options", "validate")
+            .build())
         .build();
   }
 
-  public static ConfigTypeSpec empty() {
-    return EMPTY;
+  /**
+   * Type validators are given the whole config type, which includes the values inherited from other config types, so
+   * they run again when any of the readers of those types read a value again. A type without any value cannot be told
+   * apart between two configs, so its validators always run.
+   */
+  private CodeBlock typeValidationCode(ClassName type, FieldSpec validator, Map<ClassName, String> readers) {
+    List<ClassName> covered = new ArrayList<>(supertypes.getOrDefault(type, emptyList()));
+    covered.add(type);
+    List<CodeBlock> conditions = covered.stream()
+        .filter(readers::containsKey)
+        .sorted(Comparator.comparing(ClassName::reflectionName))
+        .map(coveredType -> CodeBlock.of("$L.$L()", readers.get(coveredType), ConfigReaderSpec.CHANGED_METHOD_NAME))
+        .collect(toList());
+    CodeBlock validation = CodeBlock.of("$L.type($N, this, $T.class);\n", VALIDATION, validator, type);
+    if (conditions.isEmpty()) {
+      return validation;
+    }
+    return CodeBlock.builder()
+        .beginControlFlow("if ($L)", CodeBlock.join(conditions, " || "))
+        .add(validation)
+        .endControlFlow()
+        .build();
   }
 
-  public boolean isEmpty() {
-    return this.equals(EMPTY);
+  /**
+   * Validators are stateless, so a single instance of each is shared by all the values and types it validates.
+   *
+   * @param validator the validator class
+   * @param names     how many constants of each name the generated class already holds
+   * @return the constant holding the validator instance
+   */
+  static FieldSpec validatorField(ClassName validator, Map<String, Integer> names) {
+    String constant = String.join("_", validator.simpleNames()).replaceAll("([a-z0-9])([A-Z])", "$1_$2")
+        .toUpperCase(Locale.ROOT);
+    String name = constant.endsWith("_VALIDATOR") ? constant : constant + "_VALIDATOR";
+    int sameName = names.merge(name, 1, Integer::sum) - 1;
+    return FieldSpec.builder(validator, sameName == 0 ? name : name + "$" + sameName,
+        Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+        .initializer("new $T()", validator)
+        .build();
   }
-
 }
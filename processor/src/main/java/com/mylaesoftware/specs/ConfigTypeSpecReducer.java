@@ -10,12 +10,15 @@ import com.squareup.javapoet.ClassName;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -25,20 +28,27 @@ import java.util.stream.Stream;
 
 import static com.mylaesoftware.Annotations.CONFIG_VALUE;
 import static com.sun.tools.javac.code.Symbol.MethodSymbol;
-import static java.util.Collections.singletonList;
-import static java.util.Collections.singletonMap;
-import static java.util.stream.Collectors.toMap;
+import static java.util.Collections.emptySet;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
 public class ConfigTypeSpecReducer {
 
+  private static final String NESTED_SOURCE = "nestedSource";
+
   private final AnnotationParamExtractor typesExtractor;
 
   public ConfigTypeSpecReducer(AnnotationParamExtractor typesExtractor) {
     this.typesExtractor = typesExtractor;
   }
 
-  public ConfigTypeSpec accumulate(ConfigTypeSpec accumulated, TypeElement element) {
+  /**
+   * The reader of a single config type, failing on the first misuse of the annotations found in the type.
+   *
+   * @param element the config type
+   * @return the reader of the type, empty if the type declares no value
+   */
+  public ConfigReaderSpec reader(TypeElement element) {
 
     throwIfFalse(element.getKind().isInterface(), "annotation can only be used on interfaces", element);
 
@@ -50,33 +60,58 @@ public class ConfigTypeSpecReducer {
 
     ConfigType annotation = element.getAnnotation(ConfigType.class);
 
-    ClassName interfaceName = ClassName.get(element);
-    Map<ClassName, Collection<ClassName>> validators = singletonMap(interfaceName, validators(annotation, element));
-
-    Set<TypeMirror> interfaces = new HashSet<>(singletonList(element.asType()));
-    Map<ClassName, Collection<ConfigValueSpec>> configValues = singletonMap(
-        interfaceName,
-        element.getEnclosedElements().stream()
-            .filter(e -> ElementKind.METHOD.equals(e.getKind()))
-            .flatMap(toConfigValue(annotation))
-            .collect(toSet())
-    );
-
-    ConfigTypeSpec spec = new ConfigTypeSpec(
-        merge(interfaces, accumulated.superInterfaces),
-        merge(configValues, accumulated.configValues),
-        merge(validators, accumulated.validators)
-    );
-
-    return combine(accumulated, spec);
+    if (annotation.nested()) {
+      throwIfFalse(annotation.contextPath().isEmpty(), "nested types cannot have a context path", element);
+
+      throwIfFalse(element.getInterfaces().stream().noneMatch(ConfigTypeSpecReducer::hasAbstractMethods),
+          "nested types cannot extend interfaces with abstract methods", element);
+
+      throwIfFalse(element.getEnclosedElements().stream()
+              .noneMatch(e -> e.getSimpleName().contentEquals(NESTED_SOURCE)),
+          "nested types cannot declare a method named " + NESTED_SOURCE, element);
+    }
+
+    List<ConfigValueSpec> values = element.getEnclosedElements().stream()
+        .filter(e -> ElementKind.METHOD.equals(e.getKind()))
+        .flatMap(toConfigValue(annotation))
+        .collect(toList());
+
+    throwIfFalse(!annotation.nested() || values.stream().noneMatch(ConfigValueSpec::isDynamic),
+        "nested types cannot have dynamic values", element);
+
+    return new ConfigReaderSpec(element, values, annotation.nested() ? validators(annotation, element) : emptySet());
   }
 
-  public ConfigTypeSpec combine(ConfigTypeSpec one, ConfigTypeSpec other) {
-    return new ConfigTypeSpec(
-        merge(one.superInterfaces, other.superInterfaces),
-        merge(one.configValues, other.configValues),
-        merge(one.validators, other.validators)
-    );
+  /**
+   * The implementation composing the readers of the given config types, collected in a single pass. The types are
+   * expected to have been checked by {@link #reader(TypeElement)} already, only their validators are checked here.
+   *
+   * @param elements the config types
+   * @return the implementation of all the config types
+   */
+  public ConfigTypeSpec compose(Collection<TypeElement> elements) {
+    Map<ClassName, List<ExecutableElement>> configValues = new HashMap<>();
+    Map<ClassName, Collection<ClassName>> validators = new HashMap<>();
+    Map<ClassName, Collection<ClassName>> supertypes = new HashMap<>();
+    for (TypeElement element : elements) {
+      ClassName interfaceName = ClassName.get(element);
+      configValues.put(interfaceName, valueMethods(element));
+      validators.put(interfaceName, validators(element.getAnnotation(ConfigType.class), element));
+      supertypes.put(interfaceName, supertypes(element));
+    }
+    return new ConfigTypeSpec(elements, configValues, validators, supertypes);
+  }
+
+  /**
+   * The methods a reader is generated for, see {@link ConfigReaderSpec#isEmpty()}.
+   */
+  private static List<ExecutableElement> valueMethods(TypeElement element) {
+    return element.getEnclosedElements().stream()
+        .filter(e -> ElementKind.METHOD.equals(e.getKind()))
+        .filter(method -> !method.getModifiers().contains(Modifier.DEFAULT))
+        .filter(method -> method.getAnnotation(ConfigValue.class) != null)
+        .map(method -> (ExecutableElement) method)
+        .collect(toList());
   }
 
   private Collection<ClassName> validators(ConfigType type, TypeElement element) {
@@ -86,17 +121,30 @@ public class ConfigTypeSpecReducer {
     ).stream().map(ClassName::get).collect(toSet());
   }
 
-  public static <T> Set<T> merge(Set<T> one, Set<T> other) {
-    return Stream.concat(one.stream(), other.stream()).collect(toSet());
-  }
-
-  public static <T> Set<T> merge(List<T> one, List<T> other) {
-    return Stream.concat(one.stream(), other.stream()).collect(toSet());
+  /**
+   * Whether an interface declares or inherits methods that the reader of a nested type extending it would have to
+   * implement.
+   */
+  private static boolean hasAbstractMethods(TypeMirror type) {
+    if (!(type instanceof DeclaredType)) {
+      return false;
+    }
+    TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+    return element.getEnclosedElements().stream()
+        .anyMatch(e -> ElementKind.METHOD.equals(e.getKind()) && e.getModifiers().contains(Modifier.ABSTRACT))
+        || element.getInterfaces().stream().anyMatch(ConfigTypeSpecReducer::hasAbstractMethods);
   }
 
-  public static <K, V> Map<K, V> merge(Map<K, V> one, Map<K, V> other) {
-    return Stream.concat(one.entrySet().stream(), other.entrySet().stream())
-        .collect(toMap(Map.Entry::getKey, Map.Entry::getValue, (l, r) -> r));
+  private static Collection<ClassName> supertypes(TypeElement element) {
+    Set<ClassName> supertypes = new LinkedHashSet<>();
+    element.getInterfaces().stream()
+        .filter(DeclaredType.class::isInstance)
+        .map(type -> (TypeElement) ((DeclaredType) type).asElement())
+        .forEach(supertype -> {
+          supertypes.add(ClassName.get(supertype));
+          supertypes.addAll(supertypes(supertype));
+        });
+    return supertypes;
   }
 
   private Function<Element, Stream<ConfigValueSpec>> toConfigValue(ConfigType type) {
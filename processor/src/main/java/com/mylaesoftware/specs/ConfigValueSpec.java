@@ -1,59 +1,160 @@
 package com.mylaesoftware.specs;
 
 import com.mylaesoftware.AnnotationParamExtractor;
+import com.mylaesoftware.Annotations;
+import com.mylaesoftware.ConfigWiringListener;
+import com.mylaesoftware.ConfigWiringListener.Outcome;
+import com.mylaesoftware.WiringSupport;
+import com.mylaesoftware.annotations.ConfigBean;
+import com.mylaesoftware.annotations.ConfigType;
 import com.mylaesoftware.annotations.ConfigValue;
 import com.mylaesoftware.exceptions.AnnotationProcessingException;
+import com.mylaesoftware.mappers.BasicMappers;
+import com.mylaesoftware.mappers.BasicMappers.AnyRefM;
 import com.mylaesoftware.mappers.BasicMappers.BeanM;
+import com.mylaesoftware.mappers.BasicMappers.BooleanM;
+import com.mylaesoftware.mappers.BasicMappers.ConfigM;
+import com.mylaesoftware.mappers.BasicMappers.ConfigValueM;
+import com.mylaesoftware.mappers.BasicMappers.DoubleM;
+import com.mylaesoftware.mappers.BasicMappers.DurationM;
 import com.mylaesoftware.mappers.BasicMappers.EnumM;
+import com.mylaesoftware.mappers.BasicMappers.IntM;
+import com.mylaesoftware.mappers.BasicMappers.LongM;
+import com.mylaesoftware.mappers.BasicMappers.NumberM;
 import com.mylaesoftware.mappers.BasicMappers.StringM;
+import com.mylaesoftware.mappers.CollectionsMappers;
+import com.mylaesoftware.mappers.CollectionsMappers.AnyRefListM;
+import com.mylaesoftware.mappers.CollectionsMappers.BooleanArrayM;
+import com.mylaesoftware.mappers.CollectionsMappers.BooleanListM;
+import com.mylaesoftware.mappers.CollectionsMappers.ConfigListM;
+import com.mylaesoftware.mappers.CollectionsMappers.DoubleArrayM;
+import com.mylaesoftware.mappers.CollectionsMappers.DoubleListM;
+import com.mylaesoftware.mappers.CollectionsMappers.DurationListM;
+import com.mylaesoftware.mappers.CollectionsMappers.IntArrayM;
+import com.mylaesoftware.mappers.CollectionsMappers.IntListM;
+import com.mylaesoftware.mappers.CollectionsMappers.IterableM;
+import com.mylaesoftware.mappers.CollectionsMappers.LongArrayM;
+import com.mylaesoftware.mappers.CollectionsMappers.LongListM;
+import com.mylaesoftware.mappers.CollectionsMappers.MapM;
+import com.mylaesoftware.mappers.CollectionsMappers.NumberListM;
+import com.mylaesoftware.mappers.CollectionsMappers.StringListM;
 import com.mylaesoftware.mappers.ConfigMapper;
 import com.mylaesoftware.validators.ConfigValidator;
+import com.mylaesoftware.validators.UniqueIndexKeys;
+import com.mylaesoftware.validators.ValidationError;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Type;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigException;
 import org.apache.commons.lang3.StringUtils;
 
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import static com.mylaesoftware.mappers.BasicMappers.AnyRefM;
-import static com.mylaesoftware.mappers.BasicMappers.BooleanM;
-import static com.mylaesoftware.mappers.BasicMappers.ConfigM;
-import static com.mylaesoftware.mappers.BasicMappers.ConfigValueM;
-import static com.mylaesoftware.mappers.BasicMappers.DoubleM;
-import static com.mylaesoftware.mappers.BasicMappers.DurationM;
-import static com.mylaesoftware.mappers.BasicMappers.IntM;
-import static com.mylaesoftware.mappers.BasicMappers.LongM;
-import static com.mylaesoftware.mappers.BasicMappers.NumberM;
-import static com.mylaesoftware.mappers.CollectionsMappers.AnyRefListM;
-import static com.mylaesoftware.mappers.CollectionsMappers.BooleanListM;
-import static com.mylaesoftware.mappers.CollectionsMappers.ConfigListM;
-import static com.mylaesoftware.mappers.CollectionsMappers.DoubleListM;
-import static com.mylaesoftware.mappers.CollectionsMappers.DurationListM;
-import static com.mylaesoftware.mappers.CollectionsMappers.IntListM;
-import static com.mylaesoftware.mappers.CollectionsMappers.LongListM;
-import static com.mylaesoftware.mappers.CollectionsMappers.NumberListM;
-import static com.mylaesoftware.mappers.CollectionsMappers.StringListM;
 import static com.sun.tools.javac.code.Symbol.MethodSymbol;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
 public class ConfigValueSpec {
 
+  private static final Map<TypeName, String> GETTERS = new HashMap<>();
+  private static final Map<String, Class<?>> GETTER_MAPPERS = new HashMap<>();
+  private static final Map<TypeName, ClassName> ARRAY_MAPPERS = new HashMap<>();
+  private static final Set<TypeName> SHAREABLE_TYPES = new HashSet<>();
+  private static final Set<ClassName> BUILT_IN_MAPPERS = new HashSet<>(asList(
+      ClassName.get(BasicMappers.class), ClassName.get(CollectionsMappers.class)));
+  private static final Set<String> WILDCARD_LIST_GETTERS = new HashSet<>(asList("getConfigList", "getAnyRefList"));
+
+  static {
+    GETTERS.put(TypeName.get(Config.class), "getConfig");
+    GETTERS.put(TypeName.get(com.typesafe.config.ConfigValue.class), "getValue");
+    GETTERS.put(TypeName.get(Duration.class), "getDuration");
+    GETTERS.put(TypeName.BOOLEAN, "getBoolean");
+    GETTERS.put(TypeName.INT, "getInt");
+    GETTERS.put(TypeName.LONG, "getLong");
+    GETTERS.put(TypeName.get(Number.class), "getNumber");
+    GETTERS.put(TypeName.DOUBLE, "getDouble");
+    GETTERS.put(TypeName.get(String.class), "getString");
+    GETTERS.put(TypeName.OBJECT, "getAnyRef");
+    GETTERS.put(ParameterizedTypeName.get(List.class, Config.class), "getConfigList");
+    GETTERS.put(ParameterizedTypeName.get(List.class, Duration.class), "getDurationList");
+    GETTERS.put(ParameterizedTypeName.get(List.class, Boolean.class), "getBooleanList");
+    GETTERS.put(ParameterizedTypeName.get(List.class, Integer.class), "getIntList");
+    GETTERS.put(ParameterizedTypeName.get(List.class, Long.class), "getLongList");
+    GETTERS.put(ParameterizedTypeName.get(List.class, Number.class), "getNumberList");
+    GETTERS.put(ParameterizedTypeName.get(List.class, Double.class), "getDoubleList");
+    GETTERS.put(ParameterizedTypeName.get(List.class, String.class), "getStringList");
+    GETTERS.put(ParameterizedTypeName.get(List.class, Object.class), "getAnyRefList");
+    GETTER_MAPPERS.put("getConfig", ConfigM.class);
+    GETTER_MAPPERS.put("getValue", ConfigValueM.class);
+    GETTER_MAPPERS.put("getDuration", DurationM.class);
+    GETTER_MAPPERS.put("getBoolean", BooleanM.class);
+    GETTER_MAPPERS.put("getInt", IntM.class);
+    GETTER_MAPPERS.put("getLong", LongM.class);
+    GETTER_MAPPERS.put("getNumber", NumberM.class);
+    GETTER_MAPPERS.put("getDouble", DoubleM.class);
+    GETTER_MAPPERS.put("getString", StringM.class);
+    GETTER_MAPPERS.put("getAnyRef", AnyRefM.class);
+    GETTER_MAPPERS.put("getConfigList", ConfigListM.class);
+    GETTER_MAPPERS.put("getDurationList", DurationListM.class);
+    GETTER_MAPPERS.put("getBooleanList", BooleanListM.class);
+    GETTER_MAPPERS.put("getIntList", IntListM.class);
+    GETTER_MAPPERS.put("getLongList", LongListM.class);
+    GETTER_MAPPERS.put("getNumberList", NumberListM.class);
+    GETTER_MAPPERS.put("getDoubleList", DoubleListM.class);
+    GETTER_MAPPERS.put("getStringList", StringListM.class);
+    GETTER_MAPPERS.put("getAnyRefList", AnyRefListM.class);
+    Stream.of(String.class, Duration.class, Boolean.class, Integer.class, Long.class, Double.class, Number.class)
+        .forEach(type -> {
+          SHAREABLE_TYPES.add(TypeName.get(type));
+          SHAREABLE_TYPES.add(ParameterizedTypeName.get(List.class, type));
+        });
+    ARRAY_MAPPERS.put(ArrayTypeName.of(TypeName.INT), ClassName.get(IntArrayM.class));
+    ARRAY_MAPPERS.put(ArrayTypeName.of(TypeName.LONG), ClassName.get(LongArrayM.class));
+    ARRAY_MAPPERS.put(ArrayTypeName.of(TypeName.DOUBLE), ClassName.get(DoubleArrayM.class));
+    ARRAY_MAPPERS.put(ArrayTypeName.of(TypeName.BOOLEAN), ClassName.get(BooleanArrayM.class));
+  }
+
   private final AnnotationParamExtractor typesExtractor;
   private final MethodSymbol abstractMethod;
   private final ConfigValue configValueAnnotation;
+  private final String configPath;
+  private final String readPath;
   private final FieldSpec field;
+  private final Type streamedElement;
+  private final TypeElement nestedType;
+  private final TypeElement beanType;
+  private final String indexBy;
+  private final FieldSpec mapperField;
+  private final FieldSpec defaultField;
   private final MethodSpec initMethod;
-  private final MethodSpec overrideMethod;
+  private final MethodSpec accessor;
   private final Collection<ClassName> validators;
   private final boolean enableBeanMapperFallback;
 
@@ -66,175 +167,745 @@ public class ConfigValueSpec {
     this.configValueAnnotation = annotation;
     this.enableBeanMapperFallback = enableBeanMapperFallback;
 
-    String configPath = contextPath.isEmpty()
+    configPath = contextPath.isEmpty()
         ? configValueAnnotation.atPath()
         : contextPath.concat("." + configValueAnnotation.atPath());
 
+    if (configValueAnnotation.lazy() && configValueAnnotation.dynamic()) {
+      throw new AnnotationProcessingException("Config values cannot be both lazy and dynamic", abstractMethod);
+    }
+    streamedElement = streamedElement();
+    if (streamedElement != null && configValueAnnotation.lazy()) {
+      throw new AnnotationProcessingException(
+          "Stream and Iterable config values cannot be lazy, their elements are already read as they are consumed",
+          abstractMethod);
+    }
     String methodName = abstractMethod.getSimpleName().toString();
-    field = FieldSpec.builder(
-        TypeName.get(abstractMethod.getReturnType()),
-        methodName,
-        Modifier.PRIVATE,
-        Modifier.FINAL
-    ).build();
+    TypeName fieldType = streamedElement == null
+        ? TypeName.get(abstractMethod.getReturnType())
+        : ParameterizedTypeName.get(ClassName.get(Iterable.class), TypeName.get(streamedElement));
+    FieldSpec.Builder fieldBuilder = FieldSpec.builder(fieldType, methodName, Modifier.PRIVATE);
+    if (configValueAnnotation.dynamic()) {
+      fieldBuilder.addModifiers(Modifier.VOLATILE);
+    } else if (!configValueAnnotation.lazy()) {
+      fieldBuilder.addModifiers(Modifier.FINAL);
+    }
+    field = fieldBuilder.build();
+
+    nestedType = nestedType();
+    beanType = beanType();
+    indexBy = indexBy();
+    mapperField = mapperField(methodName, valueType());
+    defaultField = defaultField(methodName);
+    readPath = readsFromContext(contextPath) ? configValueAnnotation.atPath() : configPath;
 
     initMethod = MethodSpec.methodBuilder("read" + StringUtils.capitalize(methodName))
         .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
         .addParameter(Config.class, "config", Modifier.FINAL)
+        .addParameter(ConfigWiringListener.class, "listener", Modifier.FINAL)
         .returns(field.type)
-        .addCode(buildInitStatement(configPath, isOptionalField()))
+        .addCode(buildInitStatement(isOptionalField()))
         .build();
 
-    overrideMethod = MethodSpec.methodBuilder(methodName)
+    accessor = MethodSpec.methodBuilder(methodName)
         .addModifiers(Modifier.PUBLIC)
-        .addAnnotation(Override.class)
-        .returns(field.type)
-        .addStatement("return $L", field.name)
+        .returns(TypeName.get(abstractMethod.getReturnType()))
+        .addStatement("return $L", returned(CodeBlock.of("$N", field)))
         .build();
 
     validators = validators();
   }
 
+  public String getConfigPath() {
+    return configPath;
+  }
+
+  /**
+   * The path the init method reads this value at, relative to the context subtree of its config type when the value
+   * is read from it, see {@link #isReadFromContext()}.
+   *
+   * @return the path the value is read at
+   */
+  public String getReadPath() {
+    return readPath;
+  }
+
+  /**
+   * Whether this value is read with one of the {@link Config} getters from the subtree at the context path of its
+   * config type, which is resolved once for all such values. Mappers are always given the whole config, as they may
+   * read more than the path they are given.
+   *
+   * @return true if the init method is to be given the context subtree rather than the whole config
+   */
+  public boolean isReadFromContext() {
+    return !readPath.equals(configPath);
+  }
+
   public FieldSpec getField() {
     return field;
   }
 
+  /**
+   * The <tt>static final</tt> fields needed to read this value: the mapper instance shared by every read, when the
+   * value is not read with one of the {@link Config} getters, and the default value, when one is declared.
+   *
+   * @return the constant fields, possibly none
+   */
+  public List<FieldSpec> getConstants() {
+    return Stream.of(mapperField, defaultField).filter(Objects::nonNull).collect(toList());
+  }
+
+  /**
+   * Whether this value is read through a mapper instance rather than one of the {@link Config} getters, in which
+   * case reading it may be expensive enough to be worth running concurrently.
+   *
+   * @return true if the value is read by a mapper
+   */
+  public boolean isReadByMapper() {
+    return mapperField != null;
+  }
+
+  /**
+   * Whether this value is immutable and read by one of the built-in mappers, or the equivalent {@link Config} getter,
+   * so that equal values can be shared between the configs wired in the same batch.
+   *
+   * @return true if the value can be shared
+   */
+  public boolean isShareable() {
+    if (mapperField != null && !(mapperField.type instanceof ClassName
+        && BUILT_IN_MAPPERS.contains(((ClassName) mapperField.type).enclosingClassName()))) {
+      return false;
+    }
+    return SHAREABLE_TYPES.contains(valueType());
+  }
+
+  /**
+   * Whether this value is read as a nested config type, see {@link ConfigType#nested()}, in which case snapshots hold
+   * the subtree it was read from.
+   *
+   * @return true if the value is a nested config type, or a list or map of them
+   */
+  public boolean isNested() {
+    return nestedType != null;
+  }
+
+  /**
+   * Whether this value is a map with string keys read by the built-in {@link MapM}, which reads it into a compact
+   * immutable map.
+   *
+   * @return true if the value is a map of values of a natively supported type
+   */
+  public boolean isCompactMap() {
+    return mapperField != null && mapperField.type instanceof ParameterizedTypeName
+        && ((ParameterizedTypeName) mapperField.type).rawType.equals(ClassName.get(MapM.class));
+  }
+
+  /**
+   * Turns a map read back from a snapshot, which is mutable like all the collections in snapshots, into the compact
+   * map {@link MapM} would have read. Any other value is returned as read.
+   *
+   * @param read the expression reading the value from the snapshot
+   * @return the expression evaluating to the value
+   */
+  CodeBlock fromSnapshot(CodeBlock read) {
+    if (!isCompactMap()) {
+      return read;
+    }
+    return isOptionalField()
+        ? CodeBlock.of("$L.map($T::compactMap)", read, CollectionsMappers.class)
+        : CodeBlock.of("$T.compactMap($L)", CollectionsMappers.class, read);
+  }
+
+  /**
+   * Whether this value is a list of objects indexed by a key, see {@link ConfigValue#indexBy()}, in which case it is
+   * read into a {@link com.mylaesoftware.ConfigIndex} and snapshots hold the list it was read from.
+   *
+   * @return true if the value is indexed
+   */
+  public boolean isIndexed() {
+    return indexBy != null;
+  }
+
+  /**
+   * Whether this value is a <tt>Stream</tt> or an <tt>Iterable</tt> whose elements are read as they are consumed, in
+   * which case it is held as the {@link com.mylaesoftware.mappers.LazyConfigList} of its elements and snapshots hold
+   * the list it was read from.
+   *
+   * @return true if the elements of the value are read lazily
+   */
+  public boolean isStreamed() {
+    return streamedElement != null;
+  }
+
+  /**
+   * The value the accessor returns and the validators are given, from the field holding it. Streams are held as the
+   * iterable of their elements, and a new stream of them is created on every call.
+   *
+   * @param field the expression evaluating to the field
+   * @return the expression evaluating to the value
+   */
+  CodeBlock returned(CodeBlock field) {
+    if (streamedElement == null
+        || !abstractMethod.getReturnType().tsym.getQualifiedName().contentEquals(Stream.class.getName())) {
+      return field;
+    }
+    return CodeBlock.of("$T.stream($L.spliterator(), false)", StreamSupport.class, field);
+  }
+
+  /**
+   * Whether this value can be updated in place, in which case it is held in a volatile field.
+   *
+   * @return true if the value is dynamic
+   */
+  public boolean isDynamic() {
+    return configValueAnnotation.dynamic();
+  }
+
+  /**
+   * Whether this value is read on first access instead of in the constructor.
+   *
+   * @return true if the value is lazy
+   */
+  public boolean isLazy() {
+    return configValueAnnotation.lazy();
+  }
+
   public MethodSpec getInitMethod() {
     return initMethod;
   }
 
-  public MethodSpec getOverrideMethod() {
-    return overrideMethod;
+  /**
+   * The public method of the reader returning this value, named after the annotated method it backs.
+   *
+   * @return the accessor method
+   */
+  public MethodSpec getAccessor() {
+    return accessor;
   }
 
   public Collection<ClassName> getValidators() {
     return validators;
   }
 
-  private boolean isOptionalField() {
-    return ParameterizedTypeName.class.equals(field.type.getClass())
-        && ((ParameterizedTypeName) field.type).rawType.equals(ClassName.get(Optional.class));
+  /**
+   * Reads this value from a config at build time, the way the generated reader would. Only the mappers and validators
+   * the processor can load run at build time: values read by any other mapper, as nested config types, as beans with
+   * a generated mapper, lazily as streams or as indexes, are left to be read at runtime, as are values with a default
+   * whose path is missing, so that the default stays in the generated code only. A note names every value whose mapper,
+   * or any of whose validators, cannot run at build time.
+   *
+   * @param config   the config baked at build time
+   * @param loader   the class loader to load mappers and validators from
+   * @param messager the messager to report what only runs at runtime to
+   * @return the value, empty if it is to be read at runtime
+   * @throws AnnotationProcessingException if the value is missing, cannot be read or is not valid
+   */
+  @SuppressWarnings("unchecked")
+  Optional<Object> bake(Config config, ClassLoader loader, Messager messager) {
+    Optional<ConfigMapper<?>> mapper = nestedType == null && beanType == null && streamedElement == null
+        && indexBy == null
+        ? bakingMapper(loader)
+        : Optional.empty();
+    boolean missing = !configPath.trim().isEmpty() && !config.hasPath(configPath);
+    if (!mapper.isPresent()) {
+      messager.printMessage(Kind.NOTE, String.format("Config value at path '%s' is read at runtime, as its mapper "
+          + "cannot run at build time", configPath), abstractMethod);
+      return Optional.empty();
+    }
+    if (missing && defaultField != null) {
+      return Optional.empty();
+    }
+    Object value = bakedValue(mapper.get(), config, missing);
+    List<ConfigValidator<?>> loaded = new ArrayList<>();
+    for (ClassName validator : validators) {
+      ConfigValidator<?> instance = (ConfigValidator<?>) newInstance(validator, loader);
+      if (instance == null) {
+        messager.printMessage(Kind.NOTE, String.format("Validator '%s' of config value at path '%s' only runs at "
+            + "runtime, as it cannot be loaded at build time", validator.simpleName(), configPath), abstractMethod);
+      } else {
+        loaded.add(instance);
+      }
+    }
+    List<String> errors = loaded.stream()
+        .flatMap(validator -> ((ConfigValidator<Object>) validator).apply(value).stream())
+        .map(ValidationError::toString)
+        .collect(toList());
+    if (!errors.isEmpty()) {
+      throw new AnnotationProcessingException(
+          String.format("Invalid baked config value at path '%s': %s", configPath, String.join(", ", errors)),
+          abstractMethod);
+    }
+    return Optional.of(value);
   }
 
-  private CodeBlock buildInitStatement(String configPath, boolean isOptional) {
-    TypeName typeName = isOptional ? ((ParameterizedTypeName) field.type).typeArguments.get(0) : field.type;
+  private Object bakedValue(ConfigMapper<?> mapper, Config config, boolean missing) {
+    try {
+      if (isOptionalField()) {
+        return missing ? Optional.empty() : Optional.ofNullable(mapper.apply(config, configPath));
+      }
+      return mapper.apply(config, configPath);
+    } catch (ConfigException e) {
+      throw new AnnotationProcessingException(
+          String.format("Cannot bake config value at path '%s': %s", configPath, e.getMessage()), abstractMethod);
+    }
+  }
 
-    Optional<ClassName> enumMapper = maybeEnumMapper();
-    ClassName mapper = customMapper().orElseGet(() -> enumMapper.orElseGet(() -> mapperFor(typeName)));
+  /**
+   * The mapper the generated reader reads this value with, when it can be loaded by the processor. Config types and
+   * the mappers compiled with them cannot, so enums and beans are only baked when their class is already compiled.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Optional<ConfigMapper<?>> bakingMapper(ClassLoader loader) {
+    if (mapperField == null) {
+      if (abstractMethod.getReturnType().asElement().isEnum()) {
+        return load(ClassName.get((TypeElement) abstractMethod.getReturnType().asElement()), loader)
+            .map(type -> new EnumM(type));
+      }
+      return Optional.of((ConfigMapper<?>) newInstance(mapperClass(), loader));
+    }
+    if (isCompactMap()) {
+      Type values = elementType();
+      Optional<ConfigMapper<?>> valuesMapper = values.tsym.isEnum()
+          ? load(ClassName.get((TypeElement) values.tsym), loader).map(type -> new EnumM(type))
+          : Optional.of((ConfigMapper<?>) newInstance(
+              ClassName.get(GETTER_MAPPERS.get(getterFor(TypeName.get(values)))), loader));
+      return valuesMapper.map(mapper -> new MapM(mapper));
+    }
+    if (mapperField.type instanceof ParameterizedTypeName) {
+      return load((ClassName) valueType(), loader).map(type -> new BeanM<>(type));
+    }
+    return Optional.ofNullable((ConfigMapper<?>) newInstance((ClassName) mapperField.type, loader));
+  }
 
-    CodeBlock returnExpression = returnExpression(mapper, typeName, configPath).build();
+  private static Optional<Class<?>> load(ClassName type, ClassLoader loader) {
+    try {
+      return Optional.of(Class.forName(type.reflectionName(), true, loader));
+    } catch (ClassNotFoundException | LinkageError e) {
+      return Optional.empty();
+    }
+  }
 
-    CodeBlock.Builder builder = CodeBlock.builder();
+  private static Object newInstance(ClassName type, ClassLoader loader) {
+    return load(type, loader).map(loaded -> {
+      try {
+        return loaded.getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException e) {
+        return null;
+      }
+    }).orElse(null);
+  }
 
-    if (isOptional) {
-      return builder.beginControlFlow("try")
-          .add("return Optional.ofNullable(").add(returnExpression).add(");\n")
-          .nextControlFlow("catch ($T e)", ConfigException.Missing.class)
-          .addStatement("return Optional.empty()")
-          .endControlFlow()
-          .build();
-    }
-    return builder.add("return ").add(returnExpression).add(";\n").build();
+  private boolean readsFromContext(String contextPath) {
+    return !contextPath.isEmpty() && mapperField == null;
   }
 
-  private CodeBlock.Builder returnExpression(ClassName mapper, TypeName type, String configPath) {
-    return mapper.equals(ClassName.get(EnumM.class)) || mapper.equals(ClassName.get(BeanM.class))
-        ? CodeBlock.builder().add("new $T<>($T.class).apply(config, \"$L\")", mapper, type, configPath)
-        : CodeBlock.builder().add("new $T().apply(config, \"$L\")", mapper, configPath);
+  /**
+   * The type of the elements of a <tt>Stream</tt> or <tt>Iterable</tt> value read by the built-in {@link IterableM},
+   * <tt>null</tt> if the value is of any other type or has a custom mapper.
+   */
+  private Type streamedElement() {
+    Type type = abstractMethod.getReturnType();
+    boolean streamed = type.getTypeArguments().size() == 1
+        && (type.tsym.getQualifiedName().contentEquals(Stream.class.getName())
+        || type.tsym.getQualifiedName().contentEquals(Iterable.class.getName()));
+    return streamed && !customMapper().isPresent() ? type.getTypeArguments().get(0) : null;
+  }
 
+  /**
+   * The path of the key this value is indexed by, <tt>null</tt> if it is not indexed. Only maps with string keys of
+   * configs, nested config types or beans can be indexed, read from a list of their subtrees.
+   */
+  private String indexBy() {
+    String key = configValueAnnotation.indexBy();
+    if (key.isEmpty()) {
+      return null;
+    }
+    TypeName type = valueType();
+    boolean isStringMap = type instanceof ParameterizedTypeName
+        && ((ParameterizedTypeName) type).rawType.equals(ClassName.get(Map.class))
+        && ((ParameterizedTypeName) type).typeArguments.get(0).equals(TypeName.get(String.class));
+    boolean isIndexable = nestedType != null || beanType != null
+        || TypeName.get(elementType()).equals(TypeName.get(Config.class));
+    if (!isStringMap || !isIndexable) {
+      throw new AnnotationProcessingException(String.format("Config values indexed by '%s' need to be maps with String"
+          + " keys of Config, nested config types or config beans, not '%s'", key, type), abstractMethod);
+    }
+    if (customMapper().isPresent()) {
+      throw new AnnotationProcessingException("Indexed config values cannot have a custom mapper", abstractMethod);
+    }
+    return key;
+  }
+
+  /**
+   * The nested config type this value is read as, on its own or as the elements of a list or the values of a map
+   * with string keys, <tt>null</tt> if the value is of any other type.
+   */
+  private TypeElement nestedType() {
+    Type type = elementType();
+    ConfigType configType = type.tsym == null ? null : type.tsym.getAnnotation(ConfigType.class);
+    if (configType == null) {
+      return null;
+    }
+    if (!configType.nested()) {
+      throw new AnnotationProcessingException(String.format(
+          "Config value of type '%s' needs to be annotated with %s(nested = true)", type, Annotations.CONFIG_TYPE.name),
+          abstractMethod);
+    }
+    return (TypeElement) type.tsym;
+  }
 
+  /**
+   * The {@link ConfigBean} this value is read as, with the mapper generated for it, on its own or as the elements of
+   * a list or the values of a map with string keys, <tt>null</tt> if the value is of any other type.
+   */
+  private TypeElement beanType() {
+    Type type = elementType();
+    return type.tsym == null || type.tsym.getAnnotation(ConfigBean.class) == null ? null : (TypeElement) type.tsym;
   }
 
-  private Optional<ClassName> maybeEnumMapper() {
-    if (abstractMethod.getReturnType().asElement().isEnum()) {
-      return Optional.of(ClassName.get(EnumM.class));
+  /**
+   * The type of this value, or of its elements when it is a list or a map with string keys.
+   */
+  private Type elementType() {
+    Type type = abstractMethod.getReturnType();
+    if (isOptionalField()) {
+      type = type.getTypeArguments().get(0);
+    }
+    String rawType = type.tsym.getQualifiedName().toString();
+    if (rawType.equals(List.class.getName()) && type.getTypeArguments().size() == 1) {
+      return type.getTypeArguments().get(0);
+    }
+    if (rawType.equals(Map.class.getName()) && type.getTypeArguments().size() == 2
+        && type.getTypeArguments().get(0).tsym.getQualifiedName().contentEquals(String.class.getName())) {
+      return type.getTypeArguments().get(1);
     }
-    return Optional.empty();
+    return type;
   }
 
-  private Optional<ClassName> customMapper() {
-    return typesExtractor.extractElement(configValueAnnotation::mappedBy, ConfigMapper.class,
-        "mappedBy", abstractMethod)
-        .map(ClassName::get);
+  private boolean isOptionalField() {
+    return ParameterizedTypeName.class.equals(field.type.getClass())
+        && ((ParameterizedTypeName) field.type).rawType.equals(ClassName.get(Optional.class));
   }
 
+  private TypeName valueType() {
+    return isOptionalField() ? ((ParameterizedTypeName) field.type).typeArguments.get(0) : field.type;
+  }
 
-  private Collection<ClassName> validators() {
-    return typesExtractor.extractElements(configValueAnnotation::validatedBy, ConfigValidator.class,
-        "validatedBy",
-        abstractMethod
-    ).stream()
-        .map(ClassName::get)
-        .collect(toSet());
+  private CodeBlock readExpression(boolean isOptional) {
+    CodeBlock returnExpression = returnExpression(valueType(), readPath);
+
+    if (isOptional && !readPath.trim().isEmpty()) {
+      return CodeBlock.of("config.hasPath($S) ? $T.ofNullable($L) : $T.empty()",
+          readPath, Optional.class, returnExpression, Optional.class);
+    }
+    if (isOptional) {
+      return CodeBlock.of("$T.ofNullable($L)", Optional.class, returnExpression);
+    }
+    if (defaultField != null) {
+      return CodeBlock.of(field.type instanceof ArrayTypeName
+              ? "config.hasPath($S) ? $L : $N.clone()"
+              : "config.hasPath($S) ? $L : $N",
+          readPath, returnExpression, defaultField);
+    }
+    return returnExpression;
   }
 
+  /**
+   * Without a listener the value is read straight away, otherwise the read is timed and its outcome reported. Values
+   * read from the context subtree report a missing or invalid value at its full path, like when reading from the whole
+   * config.
+   */
+  private CodeBlock buildInitStatement(boolean isOptional) {
+    CodeBlock read = readExpression(isOptional);
+    if (isReadFromContext()) {
+      return CodeBlock.builder()
+          .beginControlFlow("try")
+          .add(buildTimedRead(read))
+          .nextControlFlow("catch ($T e)", ConfigException.class)
+          .addStatement("throw $T.atFullPath(e, $S, $S)", WiringSupport.class, configPath, readPath)
+          .endControlFlow()
+          .build();
+    }
+    return buildTimedRead(read);
+  }
 
-  private ClassName mapperFor(TypeName type) {
-    type = type.isBoxedPrimitive() ? type.unbox() : type;
-    if (type.toString().equals(Config.class.getCanonicalName())) {
-      return ClassName.get(ConfigM.class);
+  private CodeBlock buildTimedRead(CodeBlock read) {
+    return CodeBlock.builder()
+        .beginControlFlow("if (listener == null)")
+        .addStatement("return $L", read)
+        .endControlFlow()
+        .addStatement("final long start = $T.nanoTime()", System.class)
+        .beginControlFlow("try")
+        .addStatement("final $T value = $L", field.type, read)
+        .addStatement("listener.valueRead($S, $T.class, $T.nanoTime() - start, $T.$L)", configPath, mapperClass(),
+            System.class, Outcome.class, Outcome.SUCCESS)
+        .addStatement("return value")
+        .nextControlFlow("catch ($T e)", RuntimeException.class)
+        .addStatement("listener.valueRead($S, $T.class, $T.nanoTime() - start, $T.$L)", configPath, mapperClass(),
+            System.class, Outcome.class, Outcome.FAILURE)
+        .addStatement("throw e")
+        .endControlFlow()
+        .build();
+  }
+
+  /**
+   * The mapper reported to listeners: the mapper instance when there is one, otherwise the built-in mapper equivalent
+   * to the inlined {@link Config} getter.
+   */
+  private ClassName mapperClass() {
+    if (nestedType != null) {
+      return ConfigReaderSpec.readerName(ClassName.get(nestedType));
     }
-    if (type.toString().equals(com.typesafe.config.ConfigValue.class.getCanonicalName())) {
-      return ClassName.get(ConfigValueM.class);
+    if (beanType != null) {
+      return ConfigBeanSpec.mapperName(ClassName.get(beanType));
     }
-    if (type.toString().equals(Duration.class.getCanonicalName())) {
-      return ClassName.get(DurationM.class);
+    if (indexBy != null) {
+      return ClassName.get(ConfigListM.class);
     }
-    if (type.equals(TypeName.BOOLEAN)) {
-      return ClassName.get(BooleanM.class);
+    if (mapperField != null) {
+      TypeName mapperType = mapperField.type;
+      return mapperType instanceof ParameterizedTypeName
+          ? ((ParameterizedTypeName) mapperType).rawType
+          : (ClassName) mapperType;
     }
-    if (type.equals(TypeName.INT)) {
-      return ClassName.get(IntM.class);
+    if (abstractMethod.getReturnType().asElement().isEnum()) {
+      return ClassName.get(EnumM.class);
     }
-    if (type.equals(TypeName.LONG)) {
-      return ClassName.get(LongM.class);
+    return ClassName.get(GETTER_MAPPERS.get(getterFor(valueType())));
+  }
+
+  private CodeBlock returnExpression(TypeName type, String configPath) {
+    if (indexBy != null) {
+      return indexExpression(configPath);
     }
-    if (type.toString().equals(Number.class.getCanonicalName())) {
-      return ClassName.get(NumberM.class);
+    if (mapperField != null) {
+      return CodeBlock.of("$N.apply(config, $S)", mapperField, configPath);
     }
-    if (type.equals(TypeName.DOUBLE)) {
-      return ClassName.get(DoubleM.class);
+    if (nestedType != null || beanType != null) {
+      return nestedExpression(type, configPath);
     }
-    if (type.equals(TypeName.get(String.class))) {
-      return ClassName.get(StringM.class);
+    if (abstractMethod.getReturnType().asElement().isEnum()) {
+      return CodeBlock.of("config.getEnum($T.class, $S)", type, configPath);
     }
-    if (type.equals(TypeName.OBJECT)) {
-      return ClassName.get(AnyRefM.class);
+    if (type.equals(TypeName.get(Config.class)) && configPath.trim().isEmpty()) {
+      return CodeBlock.of("config");
     }
+    return getterExpression(type, CodeBlock.of("$S", configPath));
+  }
 
-    return collectionMapperFor(type);
+  /**
+   * Reads a value of one of the types natively supported by the {@link Config} getters.
+   *
+   * @param type the type of the value
+   * @param path the expression evaluating to the path of the value
+   * @return the expression reading the value, <tt>null</tt> if no getter supports the type
+   */
+  static CodeBlock getterExpression(TypeName type, CodeBlock path) {
+    String getter = GETTERS.get(type.isBoxedPrimitive() ? type.unbox() : type);
+    if (getter == null) {
+      return null;
+    }
+    return WILDCARD_LIST_GETTERS.contains(getter)
+        ? CodeBlock.of("$T.unmodifiableList(config.$L($L))", Collections.class, getter, path)
+        : CodeBlock.of("config.$L($L)", getter, path);
   }
 
-  private ClassName collectionMapperFor(TypeName type) {
-    if (type.equals(ParameterizedTypeName.get(List.class, Config.class))) {
-      return ClassName.get(ConfigListM.class);
+  /**
+   * Nested values are read by the factory generated in the reader of their type, and beans by their generated mapper,
+   * given the subtree of each value.
+   */
+  private CodeBlock nestedExpression(TypeName type, String path) {
+    ClassName nested = ClassName.get(nestedType != null ? nestedType : beanType);
+    TypeName rawType = type instanceof ParameterizedTypeName ? ((ParameterizedTypeName) type).rawType : type;
+    if (rawType.equals(ClassName.get(List.class))) {
+      return CodeBlock.of("$T.<$T>nestedList(config.getConfigList($S), nested -> $L)",
+          WiringSupport.class, nested, path, nestedRead(nested, CodeBlock.of("nested")));
     }
-    if (type.equals(ParameterizedTypeName.get(List.class, Duration.class))) {
-      return ClassName.get(DurationListM.class);
+    if (rawType.equals(ClassName.get(Map.class))) {
+      return CodeBlock.of("$T.<$T>nestedMap(config.getObject($S), nested -> $L)",
+          WiringSupport.class, nested, path, nestedRead(nested, CodeBlock.of("nested")));
     }
-    if (type.equals(ParameterizedTypeName.get(List.class, Boolean.class))) {
-      return ClassName.get(BooleanListM.class);
+    return path.trim().isEmpty()
+        ? nestedRead(nested, CodeBlock.of("config"))
+        : nestedRead(nested, CodeBlock.of("config.getConfig($S)", path));
+  }
+
+  /**
+   * Indexed values are read from the list at their path, each element as a config or with the reader of its nested
+   * type or bean.
+   */
+  private CodeBlock indexExpression(String path) {
+    CodeBlock element = nestedType != null || beanType != null
+        ? nestedRead(ClassName.get(nestedType != null ? nestedType : beanType), CodeBlock.of("element"))
+        : CodeBlock.of("element");
+    return CodeBlock.of("$T.<$T>index(config.getList($S), $S, $S, element -> $L)", WiringSupport.class,
+        TypeName.get(elementType()), path, configPath, indexBy, element);
+  }
+
+  private CodeBlock nestedRead(ClassName nested, CodeBlock subtree) {
+    return nestedType != null
+        ? CodeBlock.of("$T.$L($L, listener)", ConfigReaderSpec.readerName(nested), ConfigReaderSpec.NESTED_METHOD_NAME,
+            subtree)
+        : CodeBlock.of("$T.$L($L)", ConfigBeanSpec.mapperName(nested), ConfigBeanSpec.READ_METHOD_NAME, subtree);
+  }
+
+  private FieldSpec mapperField(String methodName, TypeName type) {
+    if (indexBy != null) {
+      return null;
     }
-    if (type.equals(ParameterizedTypeName.get(List.class, Integer.class))) {
-      return ClassName.get(IntListM.class);
+    Optional<ClassName> customMapper = customMapper();
+    if (!customMapper.isPresent()) {
+      customMapper = arrayMapperFor(type);
     }
-    if (type.equals(ParameterizedTypeName.get(List.class, Long.class))) {
-      return ClassName.get(LongListM.class);
+    if (streamedElement != null) {
+      TypeName element = TypeName.get(streamedElement);
+      CodeBlock elements = elementMapper(element, streamedElement.tsym.isEnum()).orElseThrow(() ->
+          new AnnotationProcessingException(String.format("Unsupported element type '%s' of Stream or Iterable config"
+              + " value, elements can be enums or of a type natively supported by config values", element),
+              abstractMethod));
+      return FieldSpec.builder(ParameterizedTypeName.get(ClassName.get(IterableM.class), element),
+          constantName(methodName, "MAPPER"), Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+          .initializer("new $T<>($L)", IterableM.class, elements)
+          .build();
     }
-    if (type.equals(ParameterizedTypeName.get(List.class, Number.class))) {
-      return ClassName.get(NumberListM.class);
+    Optional<CodeBlock> mapValues = customMapper.isPresent() ? Optional.empty() : mapValuesMapper(type);
+    if (mapValues.isPresent()) {
+      return FieldSpec.builder(
+          ParameterizedTypeName.get(ClassName.get(MapM.class), ((ParameterizedTypeName) type).typeArguments.get(1)),
+          constantName(methodName, "MAPPER"), Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+          .initializer("new $T<>($L)", MapM.class, mapValues.get())
+          .build();
     }
-    if (type.equals(ParameterizedTypeName.get(List.class, Double.class))) {
-      return ClassName.get(DoubleListM.class);
+    if (!customMapper.isPresent() && !isBeanMapped(type)) {
+      return null;
     }
-    if (type.equals(ParameterizedTypeName.get(List.class, String.class))) {
-      return ClassName.get(StringListM.class);
+    FieldSpec.Builder builder = customMapper
+        .map(mapper -> FieldSpec.builder(mapper, constantName(methodName, "MAPPER"))
+            .initializer("new $T()", mapper))
+        .orElseGet(() -> FieldSpec.builder(ParameterizedTypeName.get(ClassName.get(BeanM.class), type),
+            constantName(methodName, "MAPPER")).initializer("new $T<>($T.class)", BeanM.class, type));
+    return builder.addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).build();
+  }
+
+  /**
+   * The built-in mapper reading the values of a map with string keys, when they are of a type natively supported by
+   * the {@link Config} getters or an enum. Lists of configs or of any value are left out, as their mappers return
+   * wildcard lists.
+   */
+  private Optional<CodeBlock> mapValuesMapper(TypeName type) {
+    if (!(type instanceof ParameterizedTypeName) || !((ParameterizedTypeName) type).rawType.equals(
+        ClassName.get(Map.class)) || !((ParameterizedTypeName) type).typeArguments.get(0).equals(
+        TypeName.get(String.class))) {
+      return Optional.empty();
     }
-    if (type.equals(ParameterizedTypeName.get(List.class, Object.class))) {
-      return ClassName.get(AnyRefListM.class);
+    return elementMapper(((ParameterizedTypeName) type).typeArguments.get(1), elementType().tsym.isEnum());
+  }
+
+  /**
+   * The built-in mapper reading single elements of the given type, be they the values of a map or the elements of a
+   * list read lazily.
+   */
+  private static Optional<CodeBlock> elementMapper(TypeName element, boolean isEnum) {
+    if (isEnum) {
+      return Optional.of(CodeBlock.of("new $T<>($T.class)", EnumM.class, element));
     }
-    if (enableBeanMapperFallback) {
-      return ClassName.get(BeanM.class);
+    String getter = GETTERS.get(element.isBoxedPrimitive() ? element.unbox() : element);
+    return getter == null || WILDCARD_LIST_GETTERS.contains(getter)
+        ? Optional.empty()
+        : Optional.of(CodeBlock.of("new $T()", GETTER_MAPPERS.get(getter)));
+  }
+
+  private FieldSpec defaultField(String methodName) {
+    String defaultValue = configValueAnnotation.defaultValue();
+    if (ConfigValue.NO_DEFAULT.equals(defaultValue)) {
+      return null;
+    }
+    if (isOptionalField()) {
+      throw new AnnotationProcessingException("Default values cannot be used on Optional config values",
+          abstractMethod);
+    }
+    CodeBlock literal = mapperField == null || arrayMapperFor(field.type).isPresent()
+        ? defaultLiteral(defaultValue)
+        : null;
+    if (literal == null) {
+      throw new AnnotationProcessingException(
+          String.format("Default values are not supported for config values of type '%s'", field.type),
+          abstractMethod
+      );
+    }
+    return FieldSpec.builder(field.type, constantName(methodName, "DEFAULT"),
+        Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+        .initializer(literal)
+        .build();
+  }
+
+  private CodeBlock defaultLiteral(String defaultValue) {
+    Symbol returnType = abstractMethod.getReturnType().asElement();
+    if (returnType.isEnum()) {
+      boolean isConstant = returnType.getEnclosedElements().stream()
+          .anyMatch(e -> e.getKind() == ElementKind.ENUM_CONSTANT && e.getSimpleName().contentEquals(defaultValue));
+      if (!isConstant) {
+        throw invalidDefault(defaultValue, "no such enum constant");
+      }
+      return CodeBlock.of("$T.$L", field.type, defaultValue);
+    }
+    try {
+      return DefaultValueSpec.literal(field.type, defaultValue).orElse(null);
+    } catch (IllegalArgumentException e) {
+      throw invalidDefault(defaultValue, e.getMessage());
+    }
+  }
+
+  private AnnotationProcessingException invalidDefault(String defaultValue, String reason) {
+    return new AnnotationProcessingException(
+        String.format("Invalid default value '%s' for config value of type '%s': %s", defaultValue, field.type, reason),
+        abstractMethod
+    );
+  }
+
+  private boolean isBeanMapped(TypeName type) {
+    return nestedType == null && beanType == null && !abstractMethod.getReturnType().asElement().isEnum()
+        && getterFor(type) == null;
+  }
+
+  private static String constantName(String methodName, String suffix) {
+    return methodName.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT) + "_" + suffix;
+  }
+
+  private Optional<ClassName> customMapper() {
+    return typesExtractor.extractElement(configValueAnnotation::mappedBy, ConfigMapper.class,
+        "mappedBy", abstractMethod)
+        .map(ClassName::get);
+  }
+
+
+  /**
+   * The declared validators, and the one reporting duplicated keys when the value is indexed.
+   */
+  private Collection<ClassName> validators() {
+    Set<ClassName> validators = typesExtractor.extractElements(configValueAnnotation::validatedBy,
+        ConfigValidator.class,
+        "validatedBy",
+        abstractMethod
+    ).stream()
+        .map(ClassName::get)
+        .collect(toSet());
+    if (indexBy != null) {
+      validators.add(ClassName.get(UniqueIndexKeys.class));
+    }
+    return validators;
+  }
+
+
+  private static Optional<ClassName> arrayMapperFor(TypeName type) {
+    return Optional.ofNullable(ARRAY_MAPPERS.get(type));
+  }
+
+  private String getterFor(TypeName type) {
+    type = type.isBoxedPrimitive() ? type.unbox() : type;
+    String getter = GETTERS.get(type);
+    if (getter != null || enableBeanMapperFallback) {
+      return getter;
     }
 
     throw new AnnotationProcessingException(
@@ -0,0 +1,100 @@
+package com.mylaesoftware.specs;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Turns the {@code defaultValue} of a {@code @ConfigValue} into a Java expression, parsing it at compile time with
+ * the same {@link Config} getter used to read the value at runtime.
+ */
+final class DefaultValueSpec {
+
+  private static final String KEY = "value";
+  private static final Map<TypeName, Function<Config, CodeBlock>> LITERALS = new HashMap<>();
+
+  static {
+    LITERALS.put(TypeName.INT, config -> CodeBlock.of("$L", config.getInt(KEY)));
+    LITERALS.put(TypeName.LONG, config -> CodeBlock.of("$LL", config.getLong(KEY)));
+    LITERALS.put(TypeName.DOUBLE, config -> CodeBlock.of("$L", config.getDouble(KEY)));
+    LITERALS.put(TypeName.BOOLEAN, config -> CodeBlock.of("$L", config.getBoolean(KEY)));
+    LITERALS.put(TypeName.get(Duration.class), config -> duration(config.getDuration(KEY)));
+    LITERALS.put(listOf(String.class), config -> list(config.getStringList(KEY), s -> CodeBlock.of("$S", s)));
+    LITERALS.put(listOf(Integer.class), config -> list(config.getIntList(KEY), i -> CodeBlock.of("$L", i)));
+    LITERALS.put(listOf(Long.class), config -> list(config.getLongList(KEY), l -> CodeBlock.of("$LL", l)));
+    LITERALS.put(listOf(Double.class), config -> list(config.getDoubleList(KEY), d -> CodeBlock.of("$L", d)));
+    LITERALS.put(listOf(Boolean.class), config -> list(config.getBooleanList(KEY), b -> CodeBlock.of("$L", b)));
+    LITERALS.put(listOf(Duration.class), config -> list(config.getDurationList(KEY), DefaultValueSpec::duration));
+    LITERALS.put(arrayOf(TypeName.INT), config -> array(TypeName.INT, config.getIntList(KEY), "$L"));
+    LITERALS.put(arrayOf(TypeName.LONG), config -> array(TypeName.LONG, config.getLongList(KEY), "$LL"));
+    LITERALS.put(arrayOf(TypeName.DOUBLE), config -> array(TypeName.DOUBLE, config.getDoubleList(KEY), "$L"));
+    LITERALS.put(arrayOf(TypeName.BOOLEAN), config -> array(TypeName.BOOLEAN, config.getBooleanList(KEY), "$L"));
+  }
+
+  private DefaultValueSpec() {
+  }
+
+  /**
+   * Parses the default value of a config value of a basic type.
+   *
+   * @param type  the type of the config value
+   * @param value the default value as written in the annotation
+   * @return the expression evaluating to the default value, or empty if the type does not support defaults
+   * @throws IllegalArgumentException if the default value cannot be read as the given type
+   */
+  static Optional<CodeBlock> literal(TypeName type, String value) {
+    TypeName unboxed = type.isBoxedPrimitive() ? type.unbox() : type;
+    if (unboxed.equals(TypeName.get(String.class))) {
+      return Optional.of(CodeBlock.of("$S", value));
+    }
+    Function<Config, CodeBlock> literal = LITERALS.get(unboxed);
+    if (literal == null) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(literal.apply(ConfigFactory.parseString(KEY + " = " + value)));
+    } catch (ConfigException e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
+    }
+  }
+
+  private static TypeName listOf(Class<?> elementType) {
+    return ParameterizedTypeName.get(List.class, elementType);
+  }
+
+  private static TypeName arrayOf(TypeName componentType) {
+    return ArrayTypeName.of(componentType);
+  }
+
+  private static CodeBlock array(TypeName componentType, List<?> elements, String format) {
+    return CodeBlock.of("new $T[] {$L}", componentType,
+        CodeBlock.join(elements.stream().map(e -> CodeBlock.of(format, e)).collect(toList()), ", "));
+  }
+
+  private static CodeBlock duration(Duration duration) {
+    return CodeBlock.of("$T.ofNanos($LL)", Duration.class, duration.toNanos());
+  }
+
+  private static <T> CodeBlock list(List<T> elements, Function<T, CodeBlock> literal) {
+    if (elements.isEmpty()) {
+      return CodeBlock.of("$T.emptyList()", Collections.class);
+    }
+    return CodeBlock.of("$T.unmodifiableList($T.asList($L))", Collections.class, Arrays.class,
+        CodeBlock.join(elements.stream().map(literal).collect(toList()), ", "));
+  }
+}
@@ -0,0 +1,898 @@
+package com.mylaesoftware;
+
+import com.mylaesoftware.ConfigWiringListener.Outcome;
+import com.mylaesoftware.mappers.LazyConfigList;
+import com.mylaesoftware.validators.ConfigValidationException;
+import com.mylaesoftware.validators.ValidationMode;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigValueFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConfigComposerTest {
+
+  private static final ClassLoader GENERATED = GeneratedCodeLoader.compileAndLoad("runtime/NamedConfig.java");
+  private static final ClassLoader REBIND = GeneratedCodeLoader.compileAndLoad("runtime/RebindConfig.java");
+  private static final ClassLoader DEFAULTS = GeneratedCodeLoader.compileAndLoad("runtime/DefaultsConfig.java");
+  private static final ClassLoader LAZY = GeneratedCodeLoader.compileAndLoad("runtime/LazyConfig.java");
+  private static final ClassLoader SNAPSHOT = GeneratedCodeLoader.compileAndLoad("runtime/SnapshotConfig.java");
+  private static final ClassLoader NESTED = GeneratedCodeLoader.compileAndLoad("runtime/EndpointsConfig.java");
+  private static final ClassLoader BEANS = GeneratedCodeLoader.compileAndLoad("runtime/BeansConfig.java");
+  private static final ClassLoader LIMITS = GeneratedCodeLoader.compileAndLoad("runtime/LimitsConfig.java");
+  private static final ClassLoader DYNAMIC = GeneratedCodeLoader.compileAndLoad("runtime/DynamicConfig.java");
+  private static final ClassLoader ROUTES = GeneratedCodeLoader.compileAndLoad("runtime/RoutesConfig.java");
+  private static final ClassLoader CATALOG = GeneratedCodeLoader.compileAndLoad("runtime/CatalogConfig.java");
+  private static final ClassLoader BAKED = GeneratedCodeLoader.compileAndLoad(Arrays.asList(
+      "-A" + ConfigProcessor.BAKE_OPTION + "=" + resourcePath("baked/lazy.conf"),
+      "-A" + ConfigProcessor.BAKE_DYNAMIC_OPTION + "=lazy.size"), "runtime/LazyConfig.java");
+
+  private static final String REBIND_CONFIG = "rebind { stable = [a, b], changing = %d }, other.name = 1";
+  private static final String LIMITS_CONFIG = "limits { per-tenant { a = 1, \"b.c\" = 2 }, timeouts { read = 5s }, "
+      + "levels { x = HIGH }, routes { r = [p, q] } }";
+  private static final String DYNAMIC_CONFIG = "flags { enabled = %s, rate = %d, name = %s }";
+  private static final String ROUTES_CONFIG = "routing { ports = [%s], routes = [a, b], levels = [%s] }";
+  private static final String CATALOG_CONFIG = "catalog { services = [{ id = b, port = 1 }, { id = a, port = 2 }, "
+      + "{ id = %s, port = 3 }], regions = [{ name = eu, zones = 3 }, { name = us, zones = 4 }] }";
+  private static final String NESTED_CONFIG = "upstreams { primary { host = %s }, all = [{ host = b, port = 81 }, "
+      + "{ host = c }], by-name { z { host = z }, y { host = y, port = 82 } } }";
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void wireShouldCreateGeneratedConfigFromTheGivenClassLoader() {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString("name = foo"), GENERATED);
+
+    assertThat(config.getClass().getClassLoader()).isSameAs(GENERATED);
+    assertThat(((Supplier<String>) config).get()).isEqualTo("foo");
+  }
+
+  @Test
+  public void wireShouldUseTheContextClassLoaderByDefault() {
+    Thread current = Thread.currentThread();
+    ClassLoader previous = current.getContextClassLoader();
+    current.setContextClassLoader(GENERATED);
+    try {
+      GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString("name = foo"));
+      assertThat(config.getClass().getName()).isEqualTo(
+          GlobalConfig.class.getPackage().getName() + "." + GlobalConfig.IMPLEMENTATION_NAME
+      );
+    } finally {
+      current.setContextClassLoader(previous);
+    }
+  }
+
+  @Test
+  public void wireShouldPropagateValidationErrorsWithoutWrapping() {
+    Config invalid = ConfigFactory.parseString("name = \" \"");
+
+    assertThatThrownBy(() -> ConfigComposer.wire(invalid, GENERATED))
+        .isInstanceOf(ConfigValidationException.class)
+        .hasMessageContaining("cannot be empty");
+  }
+
+  @Test
+  public void wireShouldReportMissingValuesAtTheirFullPath() {
+    Config missing = ConfigFactory.parseString("rebind { stable = [a] }, other.name = 1");
+
+    assertThatThrownBy(() -> ConfigComposer.wire(missing, REBIND))
+        .isInstanceOf(ConfigException.Missing.class)
+        .hasMessageContaining("'rebind.changing'");
+  }
+
+  @Test
+  public void wireShouldReportValuesOfTheWrongTypeAtTheirFullPath() {
+    Config wrongType = ConfigFactory.parseString("rebind { stable = [a], changing = abc }, other.name = 1");
+
+    assertThatThrownBy(() -> ConfigComposer.wire(wrongType, REBIND))
+        .isInstanceOf(ConfigException.WrongType.class)
+        .hasMessageContaining("rebind.changing has type STRING rather than NUMBER");
+  }
+
+  @Test
+  public void wireShouldReportBadValuesAtTheirFullPath() {
+    Config badValue = ConfigFactory.parseString("defaults.timeout = never");
+
+    assertThatThrownBy(() -> ConfigComposer.wire(badValue, DEFAULTS))
+        .isInstanceOf(ConfigException.BadValue.class)
+        .hasMessageContaining("Invalid value at 'defaults.timeout'");
+  }
+
+  @Test
+  public void wireShouldFailWhenNoGeneratedFactoryCanBeFound() {
+    ClassLoader withoutGeneratedCode = getClass().getClassLoader();
+
+    assertThatThrownBy(() -> ConfigComposer.wire(ConfigFactory.empty(), withoutGeneratedCode))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining(GlobalConfigFactory.class.getName());
+  }
+
+  @Test
+  public void wireShouldUseDefaultsForMissingValuesOnly() throws Exception {
+    GlobalConfig defaults = ConfigComposer.wire(ConfigFactory.empty(), DEFAULTS);
+
+    assertThat(value(defaults, "name")).isEqualTo("");
+    assertThat(value(defaults, "retries")).isEqualTo(3);
+    assertThat(value(defaults, "ratio")).isEqualTo(0.75);
+    assertThat(value(defaults, "timeout")).isEqualTo(Duration.ofSeconds(2));
+    assertThat(value(defaults, "unit")).isEqualTo(TimeUnit.SECONDS);
+    assertThat(value(defaults, "ports")).isEqualTo(Arrays.asList(8080, 8081));
+    assertThat(value(defaults, "buckets")).isEqualTo(new long[] {1, 5, 10});
+    assertThat(value(defaults, "tag")).isEqualTo(Optional.empty());
+
+    GlobalConfig overridden = ConfigComposer.wire(
+        ConfigFactory.parseString("defaults { retries = 5, ports = [], buckets = [2, 4], tag = beta }"), DEFAULTS
+    );
+
+    assertThat(value(overridden, "retries")).isEqualTo(5);
+    assertThat(value(overridden, "ports")).isEqualTo(Collections.emptyList());
+    assertThat(value(overridden, "buckets")).isEqualTo(new long[] {2, 4});
+    assertThat(value(overridden, "tag")).isEqualTo(Optional.of("beta"));
+  }
+
+  @Test
+  public void wireShouldRunMappersOnTheGivenExecutor() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    AtomicInteger submitted = new AtomicInteger();
+    Executor executor = command -> {
+      submitted.incrementAndGet();
+      pool.execute(command);
+    };
+    try {
+      WiringOptions options = WiringOptions.defaults().withExecutor(executor);
+      GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString(String.format(REBIND_CONFIG, 1)), REBIND,
+          options);
+
+      assertThat(value(config, "stable")).isEqualTo(Arrays.asList("a", "b"));
+      assertThat(value(config, "changing")).isEqualTo(1);
+      assertThat(submitted).hasValue(1);
+
+      assertThatThrownBy(() -> ConfigComposer.wire(ConfigFactory.parseString("rebind.changing = 1, other.name = 1"),
+          REBIND, options))
+          .isInstanceOf(ConfigException.Missing.class);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void wireAllShouldShareEqualValuesBetweenTheWiredConfigs() throws Exception {
+    String tenant = "defaults { name = shop, timeout = 5 seconds, ports = [80, 443], tag = %s }";
+    Map<String, Config> configs = new LinkedHashMap<>();
+    configs.put("b", ConfigFactory.parseString(String.format(tenant, "beta")));
+    configs.put("a", ConfigFactory.parseString(String.format(tenant, "alpha")));
+    configs.put("c", ConfigFactory.parseString(String.format(tenant, "beta")));
+
+    Map<String, GlobalConfig> wired = ConfigComposer.wireAll(configs, DEFAULTS, WiringOptions.defaults());
+
+    assertThat(wired.keySet()).containsExactly("b", "a", "c");
+    GlobalConfig first = wired.get("b");
+    for (GlobalConfig config : wired.values()) {
+      assertThat(value(config, "name")).isEqualTo("shop").isSameAs(value(first, "name"));
+      assertThat(value(config, "timeout")).isEqualTo(Duration.ofSeconds(5)).isSameAs(value(first, "timeout"));
+      assertThat(value(config, "ports")).isEqualTo(Arrays.asList(80, 443)).isSameAs(value(first, "ports"));
+    }
+    assertThat(value(wired.get("c"), "tag")).isSameAs(value(first, "tag"));
+    assertThat(value(wired.get("a"), "tag")).isEqualTo(Optional.of("alpha"));
+    assertThatThrownBy(() -> ((List<?>) value(first, "ports")).clear())
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  public void wireAllShouldRetainFarFewerObjectsThanWiringNearlyIdenticalConfigsOneByOne() throws Exception {
+    String ports = IntStream.range(0, 50).mapToObj(port -> String.valueOf(8000 + port))
+        .collect(Collectors.joining(", "));
+    String tenant = "defaults { name = shop, timeout = 5 seconds, ports = [" + ports + "], tag = retail }, "
+        + "tenant { id = %d, owner = \"owner %<d\" }";
+    Map<Integer, Config> configs = new LinkedHashMap<>();
+    IntStream.range(0, 200).forEach(id -> configs.put(id, ConfigFactory.parseString(String.format(tenant, id))));
+
+    List<GlobalConfig> oneByOne = new ArrayList<>();
+    for (Config config : configs.values()) {
+      oneByOne.add(ConfigComposer.wire(config, DEFAULTS));
+    }
+    Map<Integer, GlobalConfig> batch = ConfigComposer.wireAll(configs, DEFAULTS, WiringOptions.defaults());
+
+    Set<Object> retainedOneByOne = reachable(oneByOne);
+    Set<Object> retainedInBatch = reachable(batch.values());
+    assertThat(retainedOneByOne).noneMatch(object -> object instanceof com.typesafe.config.ConfigValue
+        || object instanceof Config);
+    assertThat(retainedInBatch.size()).isLessThan(retainedOneByOne.size() / 10);
+  }
+
+  @Test
+  public void wireShouldNotShareValuesOutsideOfABatch() throws Exception {
+    String tenant = "defaults { name = shop }";
+    GlobalConfig first = ConfigComposer.wire(ConfigFactory.parseString(tenant), DEFAULTS);
+    GlobalConfig second = ConfigComposer.wire(ConfigFactory.parseString(tenant), DEFAULTS);
+
+    assertThat(value(first, "name")).isEqualTo(value(second, "name")).isNotSameAs(value(second, "name"));
+  }
+
+  @Test
+  public void wireAllShouldPropagateValidationErrors() {
+    Map<String, Config> configs = new LinkedHashMap<>();
+    configs.put("valid", ConfigFactory.parseString("name = foo"));
+    configs.put("invalid", ConfigFactory.parseString("name = \" \""));
+
+    assertThatThrownBy(() -> ConfigComposer.wireAll(configs, GENERATED, WiringOptions.defaults()))
+        .isInstanceOf(ConfigValidationException.class)
+        .hasMessageContaining("cannot be empty");
+  }
+
+  @Test
+  public void lazyValuesShouldBeReadOnceOnFirstAccess() throws Exception {
+    Config source = ConfigFactory.parseString("lazy { rules = [a, b], name = foo, size = 1 }");
+    GlobalConfig config = ConfigComposer.wire(source, LAZY);
+    int mappings = lazyMappings();
+
+    assertThat(value(config, "rules")).isEqualTo(Arrays.asList("a", "b"));
+    assertThat(value(config, "rules")).isSameAs(value(config, "rules"));
+    assertThat(lazyMappings()).isEqualTo(mappings + 1);
+
+    GlobalConfig rebound = ConfigComposer.rebind(config,
+        source.withValue("lazy.size", ConfigValueFactory.fromAnyRef(2)));
+
+    assertThat(value(rebound, "rules")).isSameAs(value(config, "rules"));
+    assertThat(lazyMappings()).isEqualTo(mappings + 1);
+  }
+
+  @Test
+  public void lazyValuesShouldBeValidatedOnFirstAccess() throws Exception {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString("lazy { name = \" \", size = 1 }"), LAZY);
+
+    assertThatThrownBy(() -> value(config, "name"))
+        .hasRootCauseInstanceOf(ConfigValidationException.class)
+        .hasStackTraceContaining("cannot be empty");
+    assertThatThrownBy(() -> value(config, "rules"))
+        .hasRootCauseInstanceOf(ConfigException.Missing.class);
+  }
+
+  @Test
+  public void wireShouldCollectAllValidationErrorsByDefault() {
+    Config invalid = ConfigFactory.parseString("rebind { stable = [a], changing = 0 }, other.name = 0");
+
+    assertThatThrownBy(() -> ConfigComposer.wire(invalid, REBIND))
+        .isInstanceOf(ConfigValidationException.class)
+        .satisfies(e -> assertThat(e.getMessage().split("must be positive", -1)).hasSize(3));
+  }
+
+  @Test
+  public void wireShouldStopAtTheFirstValidationErrorWhenFailingFast() {
+    Config invalid = ConfigFactory.parseString("rebind { stable = [a], changing = 0 }, other.name = 0");
+    WiringOptions failFast = WiringOptions.defaults().withValidationMode(ValidationMode.FAIL_FAST);
+
+    assertThatThrownBy(() -> ConfigComposer.wire(invalid, REBIND, failFast))
+        .isInstanceOf(ConfigValidationException.class)
+        .satisfies(e -> assertThat(e.getMessage().split("must be positive", -1)).hasSize(2));
+  }
+
+  @Test
+  public void wireShouldRunValidatorsOnTheExecutorWhenValidatingInParallel() {
+    Config invalid = ConfigFactory.parseString("rebind { stable = [a], changing = 0 }, other.name = 0");
+    AtomicInteger submitted = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    WiringOptions parallel = WiringOptions.defaults()
+        .withValidationMode(ValidationMode.PARALLEL)
+        .withExecutor(command -> {
+          submitted.incrementAndGet();
+          pool.execute(command);
+        });
+    try {
+      assertThatThrownBy(() -> ConfigComposer.wire(invalid, REBIND, parallel))
+          .isInstanceOf(ConfigValidationException.class)
+          .satisfies(e -> assertThat(e.getMessage().split("must be positive", -1)).hasSize(3));
+      assertThat(submitted).hasValue(4);
+    } finally {
+      pool.shutdown();
+    }
+
+    assertThatThrownBy(() -> ConfigComposer.wire(invalid, REBIND,
+        WiringOptions.defaults().withValidationMode(ValidationMode.PARALLEL)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void wireWithStatsShouldTimeEveryReadAndValidatorRun() {
+    Queue<String> reported = new ConcurrentLinkedQueue<>();
+    ConfigWiringListener listener = new ConfigWiringListener() {
+      @Override
+      public void valueRead(String path, Class<?> mapper, long elapsedNanos, Outcome outcome) {
+        reported.add(path + " " + mapper.getSimpleName() + " " + outcome);
+      }
+
+      @Override
+      public void validatorRun(String target, Class<?> validator, long elapsedNanos, Outcome outcome) {
+        reported.add(target + " " + validator.getSimpleName() + " " + outcome);
+      }
+    };
+
+    Config source = ConfigFactory.parseString(String.format(REBIND_CONFIG, 1));
+    Wired<GlobalConfig> wired = ConfigComposer.wireWithStats(source, REBIND,
+        WiringOptions.defaults().withListener(listener));
+
+    WiringStats stats = wired.stats();
+    assertThat(stats.reads()).extracting(WiringStats.Timing::target)
+        .containsExactlyInAnyOrder("rebind.stable", "rebind.changing", "other.name");
+    assertThat(stats.reads()).extracting(timing -> timing.type().getSimpleName())
+        .containsExactlyInAnyOrder("CountingMapper", "IntM", "IntM");
+    assertThat(stats.validations()).extracting(WiringStats.Timing::target)
+        .containsExactlyInAnyOrder("com.mylaesoftware.example.RebindConfig", "rebind.changing", "other.name");
+    assertThat(stats.slowest(10)).hasSize(6).allMatch(timing -> timing.outcome() == Outcome.SUCCESS);
+    assertThat(stats.elapsedNanos()).isGreaterThanOrEqualTo(stats.readNanos());
+    assertThat(reported).hasSize(6);
+
+    assertThatThrownBy(() -> ConfigComposer.rebind(wired.config(),
+        ConfigFactory.parseString("rebind { stable = [a, b], changing = 0 }, other.name = 1")))
+        .isInstanceOf(ConfigValidationException.class);
+    assertThat(reported).contains("rebind.changing IntM SUCCESS", "rebind.changing PositiveNumber INVALID");
+    assertThat(stats.reads()).hasSize(3);
+  }
+
+  @Test
+  public void wireShouldReadConfigBeansWithTheirGeneratedMappers() throws Exception {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString("beans { server { host = a, "
+        + "max-connections = 5, maxConnections = 6, mode = SAFE, corners = [{ x = 1, y = 2 }] }, "
+        + "points = [{ x = 3, y = 4 }, { x = 5, y = 6 }] }"), BEANS);
+
+    Object server = value(config, "server");
+    assertThat(value(server, "getHost")).isEqualTo("a");
+    assertThat(value(server, "getMaxConnections")).isEqualTo(6);
+    assertThat(value(server, "getTimeout")).isEqualTo(Duration.ofSeconds(1));
+    assertThat(value(server, "getMode").toString()).isEqualTo("SAFE");
+    assertThat(value(((List<?>) value(server, "getCorners")).get(0), "getY")).isEqualTo(2);
+    List<?> points = (List<?>) value(config, "points");
+    assertThat(points).hasSize(2);
+    assertThat(value(points.get(1), "getX")).isEqualTo(5);
+  }
+
+  @Test
+  public void wireShouldReadNestedConfigTypesFromTheirSubtrees() throws Exception {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString(String.format(NESTED_CONFIG, "a")), NESTED);
+
+    assertThat(value(value(config, "primary"), "host")).isEqualTo("a");
+    assertThat(value(value(config, "primary"), "port")).isEqualTo(80);
+    List<?> all = (List<?>) value(config, "all");
+    assertThat(all).hasSize(2);
+    assertThat(value(all.get(0), "port")).isEqualTo(81);
+    assertThat(value(all.get(1), "host")).isEqualTo("c");
+    Map<?, ?> byName = (Map<?, ?>) value(config, "byName");
+    assertThat(new ArrayList<Object>(byName.keySet())).containsExactly("y", "z");
+    assertThat(value(byName.get("y"), "port")).isEqualTo(82);
+    assertThat(value(config, "backup")).isEqualTo(Optional.empty());
+  }
+
+  @Test
+  public void wireShouldValidateNestedConfigTypes() {
+    assertThatThrownBy(() -> ConfigComposer.wire(ConfigFactory.parseString(String.format(NESTED_CONFIG, "localhost")),
+        NESTED))
+        .isInstanceOf(ConfigValidationException.class)
+        .hasMessageContaining("cannot be local");
+
+    assertThatThrownBy(() -> ConfigComposer.wire(ConfigFactory.parseString(String.format(NESTED_CONFIG, "\" \"")),
+        NESTED))
+        .isInstanceOf(ConfigValidationException.class)
+        .hasMessageContaining("cannot be empty");
+  }
+
+  @Test
+  public void rebindShouldReuseUnchangedValuesAndOnlyRevalidateWhatChangedWhenIncremental() throws Exception {
+    GlobalConfig initial = ConfigComposer.wire(ConfigFactory.parseString(String.format(REBIND_CONFIG, 1)), REBIND,
+        WiringOptions.defaults().withIncrementalRebind(true));
+    int mappings = counter("MAPPINGS");
+    int typeValidations = counter("TYPE_VALIDATIONS");
+    int valueValidations = counter("VALUE_VALIDATIONS");
+
+    GlobalConfig unchanged = ConfigComposer.rebind(initial, ConfigFactory.parseString(String.format(REBIND_CONFIG, 1)));
+
+    assertThat(unchanged).isNotSameAs(initial);
+    assertThat(value(unchanged, "stable")).isSameAs(value(initial, "stable"));
+    assertThat(counter("MAPPINGS")).isEqualTo(mappings);
+    assertThat(counter("TYPE_VALIDATIONS")).isEqualTo(typeValidations);
+    assertThat(counter("VALUE_VALIDATIONS")).isEqualTo(valueValidations);
+
+    GlobalConfig changed = ConfigComposer.rebind(unchanged, ConfigFactory.parseString(String.format(REBIND_CONFIG, 2)));
+
+    assertThat(value(changed, "changing")).isEqualTo(2);
+    assertThat(value(changed, "stable")).isSameAs(value(initial, "stable"));
+    assertThat(counter("MAPPINGS")).isEqualTo(mappings);
+    assertThat(counter("TYPE_VALIDATIONS")).isEqualTo(typeValidations + 1);
+    assertThat(counter("VALUE_VALIDATIONS")).isEqualTo(valueValidations + 1);
+  }
+
+  @Test
+  public void rebindShouldReadAndValidateEveryValueAgainWhenNotIncremental() throws Exception {
+    GlobalConfig initial = ConfigComposer.wire(ConfigFactory.parseString(String.format(REBIND_CONFIG, 1)), REBIND);
+    int mappings = counter("MAPPINGS");
+    int typeValidations = counter("TYPE_VALIDATIONS");
+    int valueValidations = counter("VALUE_VALIDATIONS");
+
+    GlobalConfig rebound = ConfigComposer.rebind(initial, ConfigFactory.parseString(String.format(REBIND_CONFIG, 1)));
+
+    assertThat(value(rebound, "stable")).isEqualTo(value(initial, "stable")).isNotSameAs(value(initial, "stable"));
+    assertThat(counter("MAPPINGS")).isEqualTo(mappings + 1);
+    assertThat(counter("TYPE_VALIDATIONS")).isEqualTo(typeValidations + 1);
+    assertThat(counter("VALUE_VALIDATIONS")).isEqualTo(valueValidations + 2);
+  }
+
+  @Test
+  public void rebindShouldFailWhenChangedValuesAreNotValid() {
+    GlobalConfig initial = ConfigComposer.wire(ConfigFactory.parseString(String.format(REBIND_CONFIG, 1)), REBIND);
+
+    assertThatThrownBy(() -> ConfigComposer.rebind(initial, ConfigFactory.parseString(String.format(REBIND_CONFIG, 0))))
+        .isInstanceOf(ConfigValidationException.class)
+        .hasMessageContaining("must be positive");
+  }
+
+  @Test
+  public void loadSnapshotShouldCreateAnEqualConfigWithoutValidatingIt() throws Exception {
+    GlobalConfig defaults = ConfigComposer.wire(
+        ConfigFactory.parseString("defaults { name = shop, ratio = 0.5, tag = beta }"), DEFAULTS);
+
+    GlobalConfig loaded = ConfigComposer.loadSnapshot(snapshot(defaults), DEFAULTS, WiringOptions.defaults(), false);
+
+    for (String name : Arrays.asList("name", "retries", "ratio", "timeout", "unit", "ports", "buckets", "tag")) {
+      assertThat(value(loaded, name)).as(name).isEqualTo(value(defaults, name));
+    }
+
+    GlobalConfig rebind = ConfigComposer.wire(ConfigFactory.parseString(String.format(REBIND_CONFIG, 1)), REBIND);
+    int typeValidations = counter("TYPE_VALIDATIONS");
+    int valueValidations = counter("VALUE_VALIDATIONS");
+
+    GlobalConfig unvalidated = ConfigComposer.loadSnapshot(snapshot(rebind), REBIND, WiringOptions.defaults(), false);
+
+    assertThat(value(unvalidated, "stable")).isEqualTo(Arrays.asList("a", "b"));
+    assertThat(value(unvalidated, "changing")).isEqualTo(1);
+    assertThat(counter("TYPE_VALIDATIONS")).isEqualTo(typeValidations);
+    assertThat(counter("VALUE_VALIDATIONS")).isEqualTo(valueValidations);
+
+    ConfigComposer.loadSnapshot(snapshot(rebind), REBIND, WiringOptions.defaults(), true);
+
+    assertThat(counter("TYPE_VALIDATIONS")).isEqualTo(typeValidations + 1);
+    assertThat(counter("VALUE_VALIDATIONS")).isEqualTo(valueValidations + 2);
+  }
+
+  @Test
+  public void loadSnapshotShouldReadLazyValuesAndCustomTypesFromTheSnapshot() throws Exception {
+    GlobalConfig lazy = ConfigComposer.wire(
+        ConfigFactory.parseString("lazy { rules = [a, b], name = foo, size = 1 }"), LAZY);
+    Path lazySnapshot = snapshot(lazy);
+    int mappings = lazyMappings();
+
+    GlobalConfig loadedLazy = ConfigComposer.loadSnapshot(lazySnapshot, LAZY, WiringOptions.defaults(), false);
+
+    assertThat(value(loadedLazy, "rules")).isEqualTo(Arrays.asList("a", "b"));
+    assertThat(value(loadedLazy, "name")).isEqualTo("foo");
+    assertThat(lazyMappings()).isEqualTo(mappings);
+
+    GlobalConfig custom = ConfigComposer.wire(ConfigFactory.parseString("snapshot { bean = value, "
+        + "nested { a = 1, b = [x] }, timeouts = [1 ms, 2 seconds], weights = [0.5, 1.5], anything { k = v } }"),
+        SNAPSHOT);
+
+    GlobalConfig loadedCustom = ConfigComposer.loadSnapshot(snapshot(custom), SNAPSHOT, WiringOptions.defaults(),
+        false);
+
+    assertThat(((TestBean) value(loadedCustom, "bean")).getField()).isEqualTo("value");
+    assertThat(value(loadedCustom, "nested")).isEqualTo(value(custom, "nested"));
+    assertThat(value(loadedCustom, "timeouts")).isEqualTo(Arrays.asList(Duration.ofMillis(1), Duration.ofSeconds(2)));
+    assertThat(value(loadedCustom, "weights")).isEqualTo(new double[] {0.5, 1.5});
+    assertThat(value(loadedCustom, "anything")).isEqualTo(Collections.singletonMap("k", "v"));
+  }
+
+  @Test
+  public void loadSnapshotShouldReadNestedConfigTypesAgainFromTheirSubtrees() throws Exception {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString(String.format(NESTED_CONFIG, "a")
+        + ", upstreams.backup.host = d"), NESTED);
+
+    GlobalConfig loaded = ConfigComposer.loadSnapshot(snapshot(config), NESTED, WiringOptions.defaults(), false);
+    GlobalConfig reloaded = ConfigComposer.loadSnapshot(snapshot(loaded), NESTED, WiringOptions.defaults(), false);
+
+    assertThat(value(value(reloaded, "primary"), "host")).isEqualTo("a");
+    assertThat(value(((List<?>) value(reloaded, "all")).get(0), "port")).isEqualTo(81);
+    assertThat(new ArrayList<Object>(((Map<?, ?>) value(reloaded, "byName")).keySet())).containsExactly("y", "z");
+    assertThat(value(((Optional<?>) value(reloaded, "backup")).get(), "host")).isEqualTo("d");
+  }
+
+  @Test
+  public void wireShouldReadMapsWithStringKeysIntoImmutableMaps() throws Exception {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString(LIMITS_CONFIG), LIMITS);
+
+    Map<?, ?> perTenant = (Map<?, ?>) value(config, "perTenant");
+    assertThat(perTenant).hasSize(2);
+    assertThat(perTenant.get("a")).isEqualTo(1);
+    assertThat(perTenant.get("b.c")).isEqualTo(2);
+    assertThatThrownBy(perTenant::clear).isInstanceOf(UnsupportedOperationException.class);
+    assertThat(((Map<?, ?>) value(config, "timeouts")).get("read")).isEqualTo(Duration.ofSeconds(5));
+    assertThat(((Map<?, ?>) value(config, "levels")).get("x").toString()).isEqualTo("HIGH");
+    assertThat(((Optional<?>) value(config, "routes")).<Object>map(routes -> ((Map<?, ?>) routes).get("r")))
+        .contains(Arrays.asList("p", "q"));
+  }
+
+  @Test
+  public void loadSnapshotShouldReadMapsBackIntoImmutableMaps() throws Exception {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString(LIMITS_CONFIG), LIMITS);
+
+    GlobalConfig loaded = ConfigComposer.loadSnapshot(snapshot(config), LIMITS, WiringOptions.defaults(), false);
+
+    Map<?, ?> perTenant = (Map<?, ?>) value(loaded, "perTenant");
+    assertThat(perTenant.get("b.c")).isEqualTo(2);
+    assertThatThrownBy(perTenant::clear).isInstanceOf(UnsupportedOperationException.class);
+    Map<?, ?> routes = (Map<?, ?>) ((Optional<?>) value(loaded, "routes")).orElseThrow();
+    assertThat(routes.get("r")).isEqualTo(Arrays.asList("p", "q"));
+    assertThatThrownBy(routes::clear).isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void wireShouldReadStreamAndIterableValuesAsTheirElementsAreConsumed() throws Exception {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString(String.format(ROUTES_CONFIG, "80, 443",
+        "LOW, HIGH")), ROUTES);
+
+    assertThat((Iterable<Object>) value(config, "ports")).isInstanceOf(LazyConfigList.class).containsExactly(80, 443);
+    assertThat(((Stream<Object>) value(config, "routes")).collect(Collectors.toList())).containsExactly("a", "b");
+    assertThat(((Stream<?>) value(config, "routes")).count()).isEqualTo(2);
+    assertThat(((Stream<?>) value(config, "levels")).map(Object::toString)).containsExactly("LOW", "HIGH");
+  }
+
+  @Test
+  public void wireShouldOnlyFailOnElementsThatCannotBeReadOnceTheyAreConsumed() throws Exception {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString(String.format(ROUTES_CONFIG, "80",
+        "LOW, NONE")), ROUTES);
+
+    Stream<?> levels = (Stream<?>) value(config, "levels");
+
+    assertThatThrownBy(() -> levels.collect(Collectors.toList()))
+        .isInstanceOf(ConfigException.BadValue.class)
+        .hasMessageContaining("routing.levels")
+        .hasMessageContaining("element 1");
+  }
+
+  @Test
+  public void wireShouldValidateStreamAndIterableValuesElementByElement() {
+    assertThatThrownBy(() -> ConfigComposer.wire(ConfigFactory.parseString(String.format(ROUTES_CONFIG, "80, 0",
+        "LOW")), ROUTES))
+        .isInstanceOf(ConfigValidationException.class)
+        .hasMessageContaining("port 0 out of range");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void loadSnapshotShouldReadStreamAndIterableValuesAgainFromTheirLists() throws Exception {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString(String.format(ROUTES_CONFIG, "80, 443",
+        "HIGH")), ROUTES);
+
+    GlobalConfig loaded = ConfigComposer.loadSnapshot(snapshot(config), ROUTES, WiringOptions.defaults(), false);
+
+    assertThat((Iterable<Object>) value(loaded, "ports")).isInstanceOf(LazyConfigList.class).containsExactly(80, 443);
+    assertThat(((Stream<Object>) value(loaded, "routes")).collect(Collectors.toList())).containsExactly("a", "b");
+    assertThat(((Stream<?>) value(loaded, "levels")).map(Object::toString)).containsExactly("HIGH");
+  }
+
+  @Test
+  public void wireShouldIndexListsOfObjectsByTheirKeyInTheOrderOfTheList() throws Exception {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString(String.format(CATALOG_CONFIG, "c")), CATALOG);
+
+    Map<?, ?> services = (Map<?, ?>) value(config, "services");
+    assertThat(services).isInstanceOf(ConfigIndex.class);
+    assertThat(new ArrayList<Object>(services.keySet())).containsExactly("b", "a", "c");
+    assertThat(((Config) services.get("a")).getInt("port")).isEqualTo(2);
+    assertThatThrownBy(services::clear).isInstanceOf(UnsupportedOperationException.class);
+    Map<?, ?> regions = (Map<?, ?>) value(config, "regions");
+    assertThat(value(regions.get("us"), "zones")).isEqualTo(4);
+  }
+
+  @Test
+  public void wireShouldReportDuplicatedIndexKeysAsValidationErrors() {
+    assertThatThrownBy(() -> ConfigComposer.wire(ConfigFactory.parseString(String.format(CATALOG_CONFIG, "a")),
+        CATALOG))
+        .isInstanceOf(ConfigValidationException.class)
+        .hasMessageContaining("duplicate key 'a' at 'id'");
+  }
+
+  @Test
+  public void wireShouldFailWhenAnIndexedElementHasNoKey() {
+    assertThatThrownBy(() -> ConfigComposer.wire(ConfigFactory.parseString(
+        "catalog { services = [{ port = 1 }], regions = [] }"), CATALOG))
+        .isInstanceOf(ConfigException.BadValue.class)
+        .hasMessageContaining("catalog.services")
+        .hasMessageContaining("element 0");
+  }
+
+  @Test
+  public void loadSnapshotShouldIndexListsAgainFromTheirSnapshot() throws Exception {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString(String.format(CATALOG_CONFIG, "c")), CATALOG);
+
+    GlobalConfig loaded = ConfigComposer.loadSnapshot(snapshot(config), CATALOG, WiringOptions.defaults(), false);
+
+    Map<?, ?> services = (Map<?, ?>) value(loaded, "services");
+    assertThat(new ArrayList<Object>(services.keySet())).containsExactly("b", "a", "c");
+    assertThat(((Config) services.get("c")).getInt("port")).isEqualTo(3);
+    assertThat(value(((Map<?, ?>) value(loaded, "regions")).get("eu"), "zones")).isEqualTo(3);
+  }
+
+  @Test
+  public void updateShouldReadDynamicValuesAgainInPlace() throws Exception {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString(String.format(DYNAMIC_CONFIG, false, 1, "a")),
+        DYNAMIC);
+
+    ConfigComposer.update(config, ConfigFactory.parseString(String.format(DYNAMIC_CONFIG, true, 5, "b")));
+
+    assertThat(value(config, "enabled")).isEqualTo(true);
+    assertThat(value(config, "rate")).isEqualTo(5);
+    assertThat(value(config, "name")).isEqualTo("a");
+  }
+
+  @Test
+  public void updateShouldLeaveAllDynamicValuesAsTheyWereWhenAnyIsNotValid() throws Exception {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString(String.format(DYNAMIC_CONFIG, false, 1, "a")),
+        DYNAMIC);
+
+    assertThatThrownBy(() -> ConfigComposer.update(config,
+        ConfigFactory.parseString(String.format(DYNAMIC_CONFIG, true, -1, "a"))))
+        .isInstanceOf(ConfigValidationException.class)
+        .hasMessageContaining("must be positive");
+    assertThat(value(config, "enabled")).isEqualTo(false);
+    assertThat(value(config, "rate")).isEqualTo(1);
+  }
+
+  @Test
+  public void rebindShouldTellChangedDynamicValuesFromTheConfigTheyWereUpdatedFrom() throws Exception {
+    GlobalConfig config = ConfigComposer.wire(ConfigFactory.parseString(String.format(DYNAMIC_CONFIG, false, 1, "a")),
+        DYNAMIC, WiringOptions.defaults().withIncrementalRebind(true));
+    ConfigComposer.update(config, ConfigFactory.parseString(String.format(DYNAMIC_CONFIG, false, 5, "a")));
+
+    GlobalConfig rebound = ConfigComposer.rebind(config,
+        ConfigFactory.parseString(String.format(DYNAMIC_CONFIG, false, 1, "a")));
+
+    assertThat(value(rebound, "rate")).isEqualTo(1);
+    assertThat(value(config, "rate")).isEqualTo(5);
+  }
+
+  @Test
+  public void loadSnapshotShouldCreateConfigsThatCanBeRebound() throws Exception {
+    GlobalConfig initial = ConfigComposer.wire(ConfigFactory.parseString(String.format(REBIND_CONFIG, 1)), REBIND);
+    GlobalConfig loaded = ConfigComposer.loadSnapshot(snapshot(initial), REBIND, WiringOptions.defaults(), false);
+
+    GlobalConfig rebound = ConfigComposer.rebind(loaded, ConfigFactory.parseString(String.format(REBIND_CONFIG, 2)));
+
+    assertThat(value(rebound, "changing")).isEqualTo(2);
+    assertThat(value(rebound, "stable")).isEqualTo(Arrays.asList("a", "b"));
+  }
+
+  @Test
+  public void loadSnapshotShouldRejectSnapshotsOfOtherConfigTypes() throws Exception {
+    Path other = snapshot(ConfigComposer.wire(ConfigFactory.parseString("name = foo"), GENERATED));
+
+    assertThatThrownBy(() -> ConfigComposer.loadSnapshot(other, DEFAULTS, WiringOptions.defaults(), false))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("different config types");
+
+    Files.write(other, "name = foo".getBytes(StandardCharsets.UTF_8));
+
+    assertThatThrownBy(() -> ConfigComposer.loadSnapshot(other, GENERATED, WiringOptions.defaults(), false))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Not a config snapshot");
+  }
+
+  @Test
+  public void wireBakedShouldReadOnlyDynamicValuesAndValuesWithCustomMappersFromTheConfig() throws Exception {
+    GlobalConfig config = ConfigComposer.wireBaked(
+        ConfigFactory.parseString("lazy { rules = [runtime], name = runtime, size = 2 }"), BAKED,
+        WiringOptions.defaults());
+
+    assertThat(value(config, "name")).isEqualTo("baked");
+    assertThat(value(config, "size")).isEqualTo(2);
+    assertThat(lazyMappings(BAKED)).isZero();
+    assertThat(value(config, "rules")).isEqualTo(Collections.singletonList("runtime"));
+    assertThat(lazyMappings(BAKED)).isEqualTo(1);
+
+    GlobalConfig rebound = ConfigComposer.rebind(config,
+        ConfigFactory.parseString("lazy { rules = [runtime], name = rebound, size = 2 }"));
+
+    assertThat(value(rebound, "name")).isEqualTo("rebound");
+  }
+
+  @Test
+  public void wireBakedShouldFailWhenNoConfigWasBaked() {
+    assertThatThrownBy(() -> ConfigComposer.wireBaked(ConfigFactory.empty(), LAZY, WiringOptions.defaults()))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Cannot find a baked config");
+  }
+
+  @Test
+  public void rebindShouldOnlyAcceptWiredConfigs() {
+    assertThatThrownBy(() -> ConfigComposer.rebind(new Object(), ConfigFactory.empty()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void loadShouldMergeSourcesGivingPrecedenceToTheFirstOneAndResolveThem() throws IOException {
+    Path base = Files.createTempFile("config-composer-test", ".conf");
+    Path overrides = Files.createTempFile("config-composer-test", ".conf");
+    base.toFile().deleteOnExit();
+    overrides.toFile().deleteOnExit();
+    Files.write(base, "name = base, greeting = hello".getBytes(StandardCharsets.UTF_8));
+    Files.write(overrides, "name = ${greeting}\"-\"${config-composer-test.suffix}".getBytes(StandardCharsets.UTF_8));
+    System.setProperty("config-composer-test.suffix", "world");
+    try {
+      GlobalConfig config = ConfigComposer.load(GENERATED, WiringOptions.defaults(), ConfigSource.systemProperties(),
+          ConfigSource.file(overrides), ConfigSource.file(base), ConfigSource.resource("baked/lazy.conf", GENERATED));
+
+      assertThat(((Supplier<String>) config).get()).isEqualTo("hello-world");
+    } finally {
+      System.clearProperty("config-composer-test.suffix");
+    }
+  }
+
+  @Test
+  public void loadShouldFailWhenASourceIsMissing() {
+    assertThatThrownBy(() -> ConfigComposer.load(GENERATED, WiringOptions.defaults(),
+        ConfigSource.resource("missing.conf", GENERATED)))
+        .isInstanceOf(ConfigException.class);
+  }
+
+  @Test
+  public void fileSourceShouldOnlyParseTheFileAgainWhenItChanges() throws IOException {
+    Path file = Files.createTempFile("config-composer-test", ".conf");
+    file.toFile().deleteOnExit();
+    Files.write(file, "name = first".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+    ConfigSource source = ConfigSource.file(file);
+
+    Config parsed = source.parse();
+
+    assertThat(ConfigSource.file(file).parse()).isSameAs(parsed);
+
+    Files.write(file, "name = second".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 30_000));
+
+    assertThat(source.parse()).isNotSameAs(parsed);
+    assertThat(source.parse().getString("name")).isEqualTo("second");
+  }
+
+  @Test
+  public void fileSourceShouldOnlyCacheTheMostRecentlyUsedFilesUntilCleared() throws IOException {
+    List<Path> files = new ArrayList<>();
+    for (int index = 0; index <= ConfigSources.MAX_CACHED_FILES; index++) {
+      Path file = Files.createTempFile("config-composer-test", ".conf");
+      file.toFile().deleteOnExit();
+      Files.write(file, ("index = " + index).getBytes(StandardCharsets.UTF_8));
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+      files.add(file);
+    }
+    Config first = ConfigSource.file(files.get(0)).parse();
+    Config second = ConfigSource.file(files.get(1)).parse();
+    assertThat(ConfigSource.file(files.get(0)).parse()).isSameAs(first);
+
+    files.subList(2, files.size()).forEach(file -> ConfigSource.file(file).parse());
+
+    Config cached = ConfigSource.file(files.get(0)).parse();
+    assertThat(cached).isSameAs(first);
+    assertThat(ConfigSource.file(files.get(1)).parse()).isNotSameAs(second);
+
+    ConfigSource.clearCache();
+
+    assertThat(ConfigSource.file(files.get(0)).parse()).isNotSameAs(cached);
+  }
+
+  @Test
+  public void fileSourceShouldNotCacheFilesThatWereJustModified() throws IOException {
+    Path file = Files.createTempFile("config-composer-test", ".conf");
+    file.toFile().deleteOnExit();
+    Files.write(file, "name = first".getBytes(StandardCharsets.UTF_8));
+    ConfigSource source = ConfigSource.file(file);
+
+    assertThat(source.parse()).isNotSameAs(source.parse());
+  }
+
+  private static Path snapshot(GlobalConfig config) throws IOException {
+    Path file = Files.createTempFile("config-composer-test", ".snapshot");
+    file.toFile().deleteOnExit();
+    ConfigComposer.writeSnapshot(config, file);
+    return file;
+  }
+
+  private static int counter(String name) throws ReflectiveOperationException {
+    return ((AtomicInteger) REBIND.loadClass("com.mylaesoftware.example.RebindConfig").getField(name).get(null))
+        .get();
+  }
+
+  private static int lazyMappings() throws ReflectiveOperationException {
+    return lazyMappings(LAZY);
+  }
+
+  private static int lazyMappings(ClassLoader loader) throws ReflectiveOperationException {
+    return ((AtomicInteger) loader.loadClass("com.mylaesoftware.example.LazyConfig").getField("MAPPINGS").get(null))
+        .get();
+  }
+
+  private static String resourcePath(String resource) {
+    try {
+      return Paths.get(ConfigComposerTest.class.getClassLoader().getResource(resource).toURI()).toString();
+    } catch (URISyntaxException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * The objects reachable from the given ones, an estimate of the heap they retain. The contents of JDK collections,
+   * maps, arrays and optionals are followed through their public API, while any other field declared by the JDK is not.
+   */
+  private static Set<Object> reachable(Collection<?> roots) throws IllegalAccessException {
+    Set<Object> reached = Collections.newSetFromMap(new IdentityHashMap<>());
+    Deque<Object> pending = new ArrayDeque<>(roots);
+    while (!pending.isEmpty()) {
+      Object object = pending.pop();
+      if (object instanceof Class || object instanceof ClassLoader || !reached.add(object)) {
+        continue;
+      }
+      if (object instanceof Collection) {
+        ((Collection<?>) object).stream().filter(Objects::nonNull).forEach(pending::push);
+      } else if (object instanceof Map) {
+        ((Map<?, ?>) object).forEach((key, value) -> Stream.of(key, value).filter(Objects::nonNull)
+            .forEach(pending::push));
+      } else if (object instanceof Optional) {
+        ((Optional<?>) object).ifPresent(pending::push);
+      } else if (object instanceof Object[]) {
+        IntStream.range(0, Array.getLength(object)).mapToObj(index -> Array.get(object, index))
+            .filter(Objects::nonNull).forEach(pending::push);
+      } else {
+        for (Class<?> type = object.getClass(); !type.getName().startsWith("java."); type = type.getSuperclass()) {
+          for (Field field : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+              field.setAccessible(true);
+              Object value = field.get(object);
+              if (value != null) {
+                pending.push(value);
+              }
+            }
+          }
+        }
+      }
+    }
+    return reached;
+  }
+
+  private static Object value(Object config, String name) throws ReflectiveOperationException {
+    return config.getClass().getMethod(name).invoke(config);
+  }
+}
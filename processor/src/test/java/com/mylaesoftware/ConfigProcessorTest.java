@@ -7,30 +7,47 @@ import com.google.testing.compile.Compiler;
 import com.google.testing.compile.JavaFileObjects;
 import com.mylaesoftware.assertions.DiagnosticAssert;
 import com.mylaesoftware.mappers.BasicMappers;
+import com.mylaesoftware.mappers.CollectionsMappers;
 import com.mylaesoftware.mappers.ConfigMapper;
 import com.mylaesoftware.validators.ConfigValidator;
 import com.mylaesoftware.validators.NonEmptyString;
+import com.mylaesoftware.validators.ValidationError;
 import com.typesafe.config.Config;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
 import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static com.mylaesoftware.Annotations.CONFIG_BEAN;
 import static com.mylaesoftware.Annotations.CONFIG_TYPE;
 import static com.mylaesoftware.Annotations.CONFIG_VALUE;
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -43,12 +60,25 @@ public class ConfigProcessorTest {
   private static final String ANY_NAME = "[a-zA-Z0-9_]+";
 
   private static final String INPUT_SOURCE_NAME = "TestInterface";
+  private static final String READER_NAME = INPUT_SOURCE_NAME + "_ConfigReader";
 
   private static final String CONFIG_FIELD_KEY = "path.to.property";
   private static final String CONFIG_FIELD_TYPE = "String";
   private static final String CONFIG_FIELD_NAME = "property";
   private static final String NON_CONFIG_FIELD_NAME = "other";
 
+  /**
+   * Time spent by the processors alone generating a type with 10,000 values, leaving out javac parsing the sources,
+   * with headroom for a slow build machine.
+   */
+  private static final Duration GENERATION_TIME_BUDGET = Duration.ofSeconds(10);
+
+  /**
+   * How much longer generating ten times the values of a type may take: ten times when generation is linear in the
+   * number of values, a hundred times when it is quadratic.
+   */
+  private static final long GENERATION_SCALING_BUDGET = 30;
+
 
   private static final String DEFAULT_INPUT = String.format(
       "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
@@ -67,7 +97,7 @@ public class ConfigProcessorTest {
   private static void withCompiledSource(Map<String, String> inputSources, Consumer<Compilation> action) {
     action.accept(
         Compiler.javac()
-            .withProcessors(new ConfigProcessor())
+            .withProcessors(new ConfigReaderProcessor(), new ConfigProcessor())
             .compile(
                 inputSources.entrySet().stream()
                     .map(kv -> JavaFileObjects.forSourceString(kv.getKey(), kv.getValue()))
@@ -77,16 +107,19 @@ public class ConfigProcessorTest {
   }
 
 
-  private static void withSuccessfulCompilation(String inputSource, Consumer<String> testBody) {
+  private static void withSuccessfulCompilation(String inputSource, String generatedClass, Consumer<String> testBody) {
     withCompiledSource(singletonMap(INPUT_SOURCE_NAME, inputSource), result -> {
       try {
         assertThat(result.status())
             .as("Compilation failed with: %s", result.errors())
             .isEqualTo(Status.SUCCESS);
 
-        assertThat(result.generatedSourceFiles()).hasSize(1);
+        assertThat(result.generatedSourceFiles()).hasSize(2);
 
-        String generatedSource = IOUtils.toString(result.generatedSourceFiles().get(0).openInputStream(), UTF_8);
+        JavaFileObject generatedFile = result.generatedSourceFile(
+            GlobalConfig.class.getPackage().getName() + "." + generatedClass
+        ).orElseThrow(() -> new AssertionError(generatedClass + " was not generated"));
+        String generatedSource = IOUtils.toString(generatedFile.openInputStream(), UTF_8);
         testBody.accept(generatedSource);
       } catch (IOException e) {
         throw new AssertionError("Error while compiling source", e);
@@ -94,6 +127,21 @@ public class ConfigProcessorTest {
     });
   }
 
+  private static String generatedSource(Compilation result, String generatedClass) throws IOException {
+    JavaFileObject generatedFile = result.generatedSourceFile(
+        GlobalConfig.class.getPackage().getName() + "." + generatedClass
+    ).orElseThrow(() -> new AssertionError(generatedClass + " was not generated"));
+    return IOUtils.toString(generatedFile.openInputStream(), UTF_8);
+  }
+
+  private static void withGeneratedReader(String inputSource, Consumer<String> testBody) {
+    withSuccessfulCompilation(inputSource, READER_NAME, testBody);
+  }
+
+  private static void withGeneratedImplementation(String inputSource, Consumer<String> testBody) {
+    withSuccessfulCompilation(inputSource, GlobalConfig.IMPLEMENTATION_NAME, testBody);
+  }
+
   private static void withFailedCompilation(Map<String, String> inputSources,
                                             Consumer<ImmutableList<Diagnostic<? extends JavaFileObject>>> testBody) {
     withCompiledSource(inputSources, result -> {
@@ -111,51 +159,344 @@ public class ConfigProcessorTest {
 
     @Test
     public void generateClassWithExpectedNameAndModifiers() {
-      withSuccessfulCompilation(DEFAULT_INPUT,
+      withGeneratedImplementation(DEFAULT_INPUT,
           actualSource -> assertThat(actualSource).contains("public final class " + GlobalConfig.IMPLEMENTATION_NAME)
       );
 
     }
 
     @Test
-    public void generateClassThatDeclaresAndInitializesFinalFieldsForEachAnnotatedMethods() {
+    public void generateReaderWithExpectedNameAndModifiersNextToTheConfigType() {
+      withGeneratedReader(DEFAULT_INPUT,
+          actualSource -> assertThat(actualSource)
+              .contains("package " + GlobalConfig.class.getPackage().getName() + ";")
+              .contains("public final class " + READER_NAME)
+      );
+
+    }
 
-      withSuccessfulCompilation(DEFAULT_INPUT,
+    @Test
+    public void generateReaderFromItsConfigTypeAlone() {
+      Compilation result = Compiler.javac()
+          .withProcessors(new ConfigReaderProcessor())
+          .compile(JavaFileObjects.forSourceString(INPUT_SOURCE_NAME, DEFAULT_INPUT));
+
+      assertThat(result.status()).as("Compilation failed with: %s", result.errors()).isEqualTo(Status.SUCCESS);
+      assertThat(result.generatedSourceFiles()).hasSize(1);
+      assertThat(result.generatedSourceFile(GlobalConfig.class.getPackage().getName() + "." + READER_NAME))
+          .isPresent();
+    }
+
+    @Test
+    public void generateFactoryRegisteredAsServiceProvider() {
+      withGeneratedImplementation(DEFAULT_INPUT,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .containsPattern("public static final class " + GlobalConfigFactory.IMPLEMENTATION_NAME +
+                  " implements " + GlobalConfigFactory.class.getSimpleName())
+              .containsPattern("return new " + GlobalConfig.IMPLEMENTATION_NAME + "\\(config\\)")
+      );
+
+      withCompiledSource(singletonMap(INPUT_SOURCE_NAME, DEFAULT_INPUT), result -> {
+        try {
+          JavaFileObject services = result.generatedFile(StandardLocation.CLASS_OUTPUT,
+              "META-INF/services/" + GlobalConfigFactory.class.getName()).orElseThrow(AssertionError::new);
+          assertThat(services.getCharContent(false).toString().trim()).isEqualTo(
+              GlobalConfig.class.getPackage().getName() + "." + GlobalConfig.IMPLEMENTATION_NAME + "$" +
+                  GlobalConfigFactory.IMPLEMENTATION_NAME
+          );
+        } catch (IOException e) {
+          throw new AssertionError("Error while reading service registration", e);
+        }
+      });
+    }
+
+    @Test
+    public void generateReaderThatDeclaresAndInitializesFinalFieldsForEachAnnotatedMethods() {
+
+      withGeneratedReader(DEFAULT_INPUT,
           actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
               .contains("private final " + CONFIG_FIELD_TYPE + " " + CONFIG_FIELD_NAME)
               .containsPattern(CONFIG_FIELD_NAME + " = [^null].*")
+              .containsPattern("public " + CONFIG_FIELD_TYPE + " " + CONFIG_FIELD_NAME + "\\(\\) \\{\\s+return " +
+                  CONFIG_FIELD_NAME + ";")
               .doesNotContain(NON_CONFIG_FIELD_NAME)
       );
 
     }
 
     @Test
-    public void generateClassThatImplementsInterfaceAndOverridesAnnotatedMethods() {
+    public void generateClassThatImplementsInterfaceAndDelegatesAnnotatedMethodsToTheReader() {
 
-      withSuccessfulCompilation(DEFAULT_INPUT,
+      withGeneratedImplementation(DEFAULT_INPUT,
           actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
               .contains(GlobalConfig.IMPLEMENTATION_NAME + " implements " + INPUT_SOURCE_NAME)
+              .contains("private final " + READER_NAME + " testInterface$;")
               .containsPattern("\\@Override(\\s+)public " + CONFIG_FIELD_TYPE + " " + CONFIG_FIELD_NAME + "\\(\\)")
-              .contains("return " + CONFIG_FIELD_NAME)
+              .contains("return testInterface$." + CONFIG_FIELD_NAME + "()")
+              .doesNotContain(NON_CONFIG_FIELD_NAME)
       );
 
     }
 
+    @Test
+    public void generateClassThatRebindsOnlyChangedFields() {
+
+      withGeneratedImplementation(DEFAULT_INPUT,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .containsPattern("public " + GlobalConfig.IMPLEMENTATION_NAME + " rebind\\((final )?Config config\\)")
+              .containsPattern("this\\.testInterface\\$ = new " + READER_NAME + "\\(config, previous == null " +
+                  "\\? null : previous\\.testInterface\\$, options, validation\\)")
+      );
+
+      withGeneratedReader(DEFAULT_INPUT,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .containsPattern("binding\\.changed\\[0\\] = binding\\.previous == null \\|\\| "
+                  + "WiringSupport\\.hasChanged\\(binding\\.previous\\.config\\$, binding\\.config, \""
+                  + CONFIG_FIELD_KEY + "\"\\);\\s+if \\(!binding\\.changed\\[0\\]\\) \\{\\s+"
+                  + "return binding\\.previous\\." + CONFIG_FIELD_NAME + ";")
+              .contains("this.changed$ = WiringSupport.anyChanged(binding.changed);")
+      );
+
+    }
+
+    @Test
+    public void generateClassThatWritesAndReadsSnapshotsReaderByReader() {
+
+      withGeneratedImplementation(DEFAULT_INPUT,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .containsPattern("private static final long SNAPSHOT_SCHEMA = -?[0-9]+L;")
+              .contains("snapshot.expectSchema(SNAPSHOT_SCHEMA);")
+              .contains("this.testInterface$ = new " + READER_NAME + "(snapshot, config, options, validation);")
+              .containsPattern("snapshot\\.writeSchema\\(SNAPSHOT_SCHEMA\\);\\s+"
+                  + "testInterface\\$\\.writeSnapshot\\(snapshot\\);")
+      );
+
+      withGeneratedReader(DEFAULT_INPUT,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .containsPattern("public " + READER_NAME + "\\(final SnapshotInput snapshot,\\s+final Config config,\\s+"
+                  + "final WiringOptions options,\\s+final WiringSupport\\.Validation validation\\)")
+              .contains("final Binding binding = new Binding(config, null, snapshot, options, validation);")
+              .containsPattern("this\\." + CONFIG_FIELD_NAME + " = " + ANY_NAME + "\\(binding\\);")
+              .containsPattern(CONFIG_FIELD_NAME + " = binding\\.snapshot != null && "
+                  + "binding\\.snapshot\\.readBoolean\\(\\) \\? binding\\.snapshot\\.readString\\(\\) : "
+                  + "WiringSupport\\.canonical\\(binding\\.options, "
+                  + ANY_NAME + "\\(binding\\.config, binding\\.listener\\)\\);")
+              .containsPattern("snapshot\\.writeBoolean\\(true\\);\\s+snapshot\\.writeString\\(" + CONFIG_FIELD_NAME
+                  + "\\(\\)\\);")
+      );
+
+    }
+
+    @Test
+    public void generateClassThatRunsTypeValidatorsWhenAnyCoveredReaderChanged() {
+      String otherName = "OtherInterface";
+      String other = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "(validatedBy = %1$s.Check.class)\n" +
+              "public interface %1$s extends %2$s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"other\")\n" +
+              "  int otherProperty();\n" +
+              "\n" +
+              "  class Check implements " + ConfigValidator.class.getCanonicalName() + "<%1$s> {\n" +
+              "    public java.util.Collection<" + ValidationError.class.getCanonicalName() + "> apply(%1$s c) {\n" +
+              "      return java.util.Collections.emptyList();\n" +
+              "    }\n" +
+              "  }\n" +
+              "}", otherName, INPUT_SOURCE_NAME);
+      Map<String, String> sources = new HashMap<>();
+      sources.put(INPUT_SOURCE_NAME, DEFAULT_INPUT);
+      sources.put(otherName, other);
+
+      withCompiledSource(sources, result -> {
+        assertThat(result.status()).as("Compilation failed with: %s", result.errors()).isEqualTo(Status.SUCCESS);
+        assertThat(result.generatedSourceFiles()).hasSize(3);
+        try {
+          String actualSource = IOUtils.toString(result.generatedSourceFile(GlobalConfig.class.getPackage().getName()
+              + "." + GlobalConfig.IMPLEMENTATION_NAME).orElseThrow(AssertionError::new).openInputStream(), UTF_8);
+          assertThat(actualSource.replaceAll("\\n", " "))
+              .containsPattern("if \\(otherInterface\\$\\.changed\\$\\(\\) \\|\\| "
+                  + "testInterface\\$\\.changed\\$\\(\\)\\) \\{\\s+"
+                  + "validation\\.type\\(OTHER_INTERFACE_CHECK_VALIDATOR, this, " + otherName + "\\.class\\);")
+              .contains("validation.complete();")
+              .contains("return otherInterface$.otherProperty()")
+              .contains("return testInterface$." + CONFIG_FIELD_NAME + "()");
+        } catch (IOException e) {
+          throw new AssertionError("Error while reading generated source", e);
+        }
+      });
+    }
+
     @Test
     public void generateClassThatImplementsStaticMethodToInitializePropertyFields() {
 
-      withSuccessfulCompilation(DEFAULT_INPUT,
+      withGeneratedReader(DEFAULT_INPUT,
           actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
               .contains("import " + Config.class.getCanonicalName())
               .containsPattern("private static " + CONFIG_FIELD_TYPE +
-                  " " + ANY_NAME + capitalize(CONFIG_FIELD_NAME) + "\\((final )?Config " + ANY_NAME + "\\)")
+                  " " + ANY_NAME + capitalize(CONFIG_FIELD_NAME) + "\\((final )?Config " + ANY_NAME +
+                  ",\\s+(final )?ConfigWiringListener " + ANY_NAME + "\\)")
+              .containsPattern("return " + ANY_NAME + "\\.getString\\(\"" + CONFIG_FIELD_KEY + "\"\\)")
+              .doesNotContain("_MAPPER")
+      );
+
+    }
+
+    @Test
+    public void generateClassThatHoldsCustomMappersInStaticFields() {
+      String mapper = BasicMappers.StringM.class.getCanonicalName();
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"%s\", mappedBy = %s.class)\n" +
+              "  String someProperty();\n" +
+              "\n" +
+              "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, mapper);
+
+      withGeneratedReader(input,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
               .containsPattern(
-                  "return new [a-zA-Z0-9_\\.]+\\(\\)\\.apply\\(" + ANY_NAME + ", \"" + CONFIG_FIELD_KEY + "\"\\)"
+                  "private static final [a-zA-Z0-9_\\.]+ SOME_PROPERTY_MAPPER = new [a-zA-Z0-9_\\.]+\\(\\)"
               )
+              .containsPattern("return SOME_PROPERTY_MAPPER\\.apply\\(" + ANY_NAME + ", \"" + CONFIG_FIELD_KEY +
+                  "\"\\)")
+              .contains("final CompletableFuture<String> someProperty$ = submitSomeProperty(binding);")
+              .contains("this.someProperty = bindSomeProperty(binding, someProperty$);")
+              .contains("return binding.changed[0] && binding.executor != null ? CompletableFuture.supplyAsync(() -> "
+                  + "readSomeProperty(binding.config, binding.listener), binding.executor) : null;")
+              .contains("WiringSupport.canonical(binding.options, someProperty$ != null ? "
+                  + "WiringSupport.await(someProperty$) : readSomeProperty(binding.config, binding.listener));")
       );
 
     }
 
+    @Test
+    public void generateReaderThatSharesOnlyImmutableValuesReadByBuiltInMappers() {
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "import " + Config.class.getCanonicalName() + ";\n" +
+              "import " + List.class.getCanonicalName() + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"names\")\n" +
+              "  List<String> names();\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"size\")\n" +
+              "  int size();\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"nested\")\n" +
+              "  Config nested();\n" +
+              "\n" +
+              "}", INPUT_SOURCE_NAME);
+
+      withGeneratedReader(input,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .contains(": WiringSupport.canonical(binding.options, readNames(binding.config, binding.listener));")
+              .contains(": readNested(binding.config, binding.listener);")
+              .contains(": readSize(binding.config, binding.listener);")
+      );
+    }
+
+    @Test
+    public void generateReaderThatResolvesTheContextSubtreeOnceForValuesReadByGetters() {
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "import " + Optional.class.getCanonicalName() + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "(contextPath = \"services.http\")\n" +
+              "public interface %s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"host\")\n" +
+              "  String host();\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"port\")\n" +
+              "  Optional<Integer> port();\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"ports\", mappedBy = %s.IntArrayM.class)\n" +
+              "  int[] ports();\n" +
+              "\n" +
+              "}", INPUT_SOURCE_NAME, CollectionsMappers.class.getCanonicalName());
+
+      withGeneratedReader(input,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .contains("final Config context = WiringSupport.context(config, \"services.http\");")
+              .contains("final Binding binding = new Binding(config, context, previous, null, options, validation);")
+              .contains("binding.changed[0] = binding.previous == null || WiringSupport.hasChanged("
+                  + "binding.previous.context$, binding.context, \"host\");")
+              .contains("binding.changed[2] = binding.previous == null || WiringSupport.hasChanged("
+                  + "binding.previous.config$, binding.config, \"services.http.ports\");")
+              .contains("WiringSupport.canonical(binding.options, readHost(binding.context, binding.listener));")
+              .contains("return config.hasPath(\"port\") ? Optional.ofNullable(config.getInt(\"port\"))")
+              .containsPattern("catch \\(ConfigException e\\) \\{\\s+"
+                  + "throw WiringSupport\\.atFullPath\\(e, \"services\\.http\\.host\", \"host\"\\);")
+              .contains("PORTS_MAPPER.apply(config, \"services.http.ports\")")
+      );
+    }
+
+    @Test
+    public void generateReadersThatReadNestedTypesWithoutReflection() throws IOException {
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "import " + List.class.getCanonicalName() + ";\n" +
+              "import " + Map.class.getCanonicalName() + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"primary\")\n" +
+              "  Endpoint primary();\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"all\")\n" +
+              "  List<Endpoint> all();\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"by-name\")\n" +
+              "  Map<String, Endpoint> byName();\n" +
+              "\n" +
+              "  @" + CONFIG_TYPE.name + "(nested = true)\n" +
+              "  interface Endpoint {\n" +
+              "    @" + CONFIG_VALUE.name + "(atPath = \"host\")\n" +
+              "    String host();\n" +
+              "  }\n" +
+              "}", INPUT_SOURCE_NAME);
+      String nestedReader = INPUT_SOURCE_NAME + "_Endpoint_ConfigReader";
+
+      Compilation result = Compiler.javac()
+          .withProcessors(new ConfigReaderProcessor(), new ConfigProcessor())
+          .compile(JavaFileObjects.forSourceString(INPUT_SOURCE_NAME, input));
+
+      assertThat(result.status()).as("Compilation failed with: %s", result.errors()).isEqualTo(Status.SUCCESS);
+      assertThat(generatedSource(result, nestedReader).replaceAll("\\n", " "))
+          .containsPattern("public final class " + nestedReader + " implements " + INPUT_SOURCE_NAME
+              + "\\.Endpoint, NestedConfig")
+          .containsPattern("public static " + nestedReader + " nested\\$\\(final Config config,\\s+"
+              + "final ConfigWiringListener listener\\)")
+          .contains("return config$;");
+      assertThat(generatedSource(result, READER_NAME).replaceAll("\\n", " "))
+          .contains(nestedReader + ".nested$(config.getConfig(\"primary\"), listener)")
+          .contains("WiringSupport.<" + INPUT_SOURCE_NAME + ".Endpoint>nestedList(config.getConfigList(\"all\"), "
+              + "nested -> " + nestedReader + ".nested$(nested, listener))")
+          .contains("WiringSupport.<" + INPUT_SOURCE_NAME + ".Endpoint>nestedMap(config.getObject(\"by-name\"), "
+              + "nested -> " + nestedReader + ".nested$(nested, listener))");
+      assertThat(generatedSource(result, GlobalConfig.IMPLEMENTATION_NAME))
+          .doesNotContain(nestedReader);
+    }
+
     @Test
     public void generateClassThatImplementsStaticMethodToInitializeOptionalPropertyFields() {
 
@@ -174,16 +515,129 @@ public class ConfigProcessorTest {
               "\n" +
               "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, optionalFieldType, CONFIG_FIELD_NAME);
 
-      withSuccessfulCompilation(input,
+      withGeneratedReader(input,
           actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
               .contains("import " + Config.class.getCanonicalName())
               .containsPattern("private static " + optionalFieldType +
-                  " " + ANY_NAME + capitalize(CONFIG_FIELD_NAME) + "\\((final )?Config " + ANY_NAME + "\\)")
+                  " " + ANY_NAME + capitalize(CONFIG_FIELD_NAME) + "\\((final )?Config " + ANY_NAME +
+                  ",\\s+(final )?ConfigWiringListener " + ANY_NAME + "\\)")
               .containsPattern(
-                  "new [a-zA-Z0-9_\\.]+\\(\\)\\.apply\\(" + ANY_NAME + ", \"" + CONFIG_FIELD_KEY + "\"\\)"
+                  "return " + ANY_NAME + "\\.hasPath\\(\"" + CONFIG_FIELD_KEY + "\"\\) \\? Optional\\.ofNullable\\(" +
+                      ANY_NAME + "\\.getString\\(\"" + CONFIG_FIELD_KEY + "\"\\)\\) : Optional\\.empty\\(\\)"
               )
-              .contains("try {", "catch (ConfigException.Missing", "return Optional.empty()")
+              .doesNotContain("ConfigException")
+
+      );
 
+    }
+
+    @Test
+    public void generateClassThatFallsBackToDefaultConstantsForMissingValues() {
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"%s\", defaultValue = \"42\")\n" +
+              "  int %s();\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"timeouts\", defaultValue = \"[1 second, 500 ms]\")\n" +
+              "  java.util.List<java.time.Duration> timeouts();\n" +
+              "\n" +
+              "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, CONFIG_FIELD_NAME);
+
+      withGeneratedReader(input,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .contains("private static final int PROPERTY_DEFAULT = 42;")
+              .containsPattern("return " + ANY_NAME + "\\.hasPath\\(\"" + CONFIG_FIELD_KEY + "\"\\) \\? " + ANY_NAME +
+                  "\\.getInt\\(\"" + CONFIG_FIELD_KEY + "\"\\) : PROPERTY_DEFAULT")
+              .containsPattern("TIMEOUTS_DEFAULT = Collections\\.unmodifiableList\\(Arrays\\.asList\\(" +
+                  "Duration\\.ofNanos\\(1000000000L\\), Duration\\.ofNanos\\(500000000L\\)\\)\\)")
+      );
+
+    }
+
+    @Test
+    public void generateReaderThatValidatesChangedValuesWithValidatorSingletons() {
+      String validator = NonEmptyString.class.getSimpleName();
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"%s\", validatedBy = %s.class)\n" +
+              "  %s %s();\n" +
+              "\n" +
+              "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, NonEmptyString.class.getCanonicalName(), CONFIG_FIELD_TYPE,
+          CONFIG_FIELD_NAME);
+
+      withGeneratedReader(input,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .contains("private static final " + validator + " NON_EMPTY_STRING_VALIDATOR = new " + validator + "();")
+              .containsPattern("if \\(!binding\\.changed\\[0\\]\\) \\{\\s+return binding\\.previous\\."
+                  + CONFIG_FIELD_NAME + ";\\s+}\\s+final String " + CONFIG_FIELD_NAME + " = [^;]+;\\s+"
+                  + "binding\\.validation\\.value\\(NON_EMPTY_STRING_VALIDATOR, " + CONFIG_FIELD_NAME + ", \""
+                  + CONFIG_FIELD_KEY + "\", " + INPUT_SOURCE_NAME + "\\.class, \"" + CONFIG_FIELD_NAME + "\"\\);")
+              .doesNotContain("new " + validator + "().apply", ".stream()")
+      );
+
+    }
+
+    @Test
+    public void generateClassThatReadsPrimitiveArraysWithArrayMappers() {
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"%s\")\n" +
+              "  double[] %s();\n" +
+              "\n" +
+              "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, CONFIG_FIELD_NAME);
+
+      withGeneratedReader(input,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .containsPattern("private static final [a-zA-Z0-9_\\.]*" +
+                  CollectionsMappers.DoubleArrayM.class.getSimpleName() + " PROPERTY_MAPPER")
+              .contains("private final double[] " + CONFIG_FIELD_NAME + ";")
+              .containsPattern("return PROPERTY_MAPPER\\.apply\\(" + ANY_NAME + ", \"" + CONFIG_FIELD_KEY + "\"\\)")
+      );
+
+    }
+
+    @Test
+    public void generateClassThatReadsLazyValuesOnFirstAccess() {
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"%s\", lazy = true)\n" +
+              "  %s %s();\n" +
+              "\n" +
+              "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, CONFIG_FIELD_TYPE, CONFIG_FIELD_NAME);
+
+      withGeneratedReader(input,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .contains("private " + CONFIG_FIELD_TYPE + " " + CONFIG_FIELD_NAME + ";")
+              .contains("private volatile boolean " + CONFIG_FIELD_NAME + "$read;")
+              .doesNotContain(CONFIG_FIELD_NAME + " = changed[0] ?")
+              .containsPattern("if \\(!" + CONFIG_FIELD_NAME + "\\$read\\) \\{\\s+synchronized \\(this\\) \\{\\s+" +
+                  "if \\(!" + CONFIG_FIELD_NAME + "\\$read\\) \\{\\s+final ConfigWiringListener listener = " +
+                  "options\\$\\.listener\\(\\);\\s+" + CONFIG_FIELD_NAME + " = WiringSupport\\.canonical\\(options\\$, "
+                  + ANY_NAME + "\\(config\\$, listener\\)\\);\\s+" + CONFIG_FIELD_NAME + "\\$read = true;")
       );
 
     }
@@ -206,14 +660,14 @@ public class ConfigProcessorTest {
               "\n" +
               "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, enumType, CONFIG_FIELD_NAME);
 
-      withSuccessfulCompilation(input,
+      withGeneratedReader(input,
           actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
               .contains("import " + Config.class.getCanonicalName())
               .containsPattern("private static " + enumType +
-                  " " + ANY_NAME + capitalize(CONFIG_FIELD_NAME) + "\\((final )?Config " + ANY_NAME + "\\)")
+                  " " + ANY_NAME + capitalize(CONFIG_FIELD_NAME) + "\\((final )?Config " + ANY_NAME +
+                  ",\\s+(final )?ConfigWiringListener " + ANY_NAME + "\\)")
               .containsPattern(
-                  "new [a-zA-Z0-9_\\.]+<>\\(" + enumType + ".class\\)" +
-                      "\\.apply\\(" + ANY_NAME + ", \"" + CONFIG_FIELD_KEY + "\"\\)"
+                  "return " + ANY_NAME + "\\.getEnum\\(" + enumType + "\\.class, \"" + CONFIG_FIELD_KEY + "\"\\)"
               )
 
       );
@@ -238,18 +692,210 @@ public class ConfigProcessorTest {
               "\n" +
               "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, beanType, CONFIG_FIELD_NAME);
 
-      withSuccessfulCompilation(input,
+      withGeneratedReader(input,
           actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
               .contains("import " + Config.class.getCanonicalName())
               .containsPattern("private static " + beanType +
-                  " " + ANY_NAME + capitalize(CONFIG_FIELD_NAME) + "\\((final )?Config " + ANY_NAME + "\\)")
+                  " " + ANY_NAME + capitalize(CONFIG_FIELD_NAME) + "\\((final )?Config " + ANY_NAME +
+                  ",\\s+(final )?ConfigWiringListener " + ANY_NAME + "\\)")
               .containsPattern(
-                  "new [a-zA-Z0-9_\\.]+" + mapper + "<>\\(" + beanType + ".class\\)" +
-                      "\\.apply\\(" + ANY_NAME + ", \"" + CONFIG_FIELD_KEY + "\"\\)"
+                  "private static final [a-zA-Z0-9_\\.]*" + mapper + "<" + beanType + "> " + ANY_NAME +
+                      "_MAPPER = new [a-zA-Z0-9_\\.]*" + mapper + "<>\\(" + beanType + ".class\\)"
               )
+              .containsPattern("return " + ANY_NAME + "_MAPPER\\.apply\\(" + ANY_NAME + ", \"" + CONFIG_FIELD_KEY +
+                  "\"\\)")
+
+      );
+
+    }
+
+    @Test
+    public void generateClassThatImplementsStaticMethodToInitializeMapPropertyFieldsWithMapMapper() {
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "import " + Map.class.getCanonicalName() + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"%s\")\n" +
+              "  Map<String, Integer> %s();\n" +
+              "\n" +
+              "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, CONFIG_FIELD_NAME);
+
+      withGeneratedReader(input,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .containsPattern("private static final [a-zA-Z0-9_\\.]*MapM<Integer> " + ANY_NAME
+                  + "_MAPPER = new [a-zA-Z0-9_\\.]*MapM<>\\(new [a-zA-Z0-9_\\.]*IntM\\(\\)\\)")
+              .containsPattern("return " + ANY_NAME + "_MAPPER\\.apply\\(" + ANY_NAME + ", \"" + CONFIG_FIELD_KEY
+                  + "\"\\)")
+      );
+    }
+
+    @Test
+    public void generateClassThatReadsStreamAndIterableFieldsLazilyWithIterableMapper() {
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "import " + Stream.class.getCanonicalName() + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"%s\")\n" +
+              "  Stream<String> %s();\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"other\")\n" +
+              "  Iterable<Long> other();\n" +
+              "\n" +
+              "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, CONFIG_FIELD_NAME);
+
+      withGeneratedReader(input,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .containsPattern("private static final [a-zA-Z0-9_\\.]*IterableM<String> " + ANY_NAME
+                  + "_MAPPER = new [a-zA-Z0-9_\\.]*IterableM<>\\(new [a-zA-Z0-9_\\.]*StringM\\(\\)\\)")
+              .containsPattern("private static final [a-zA-Z0-9_\\.]*IterableM<Long> " + ANY_NAME
+                  + "_MAPPER = new [a-zA-Z0-9_\\.]*IterableM<>\\(new [a-zA-Z0-9_\\.]*LongM\\(\\)\\)")
+              .contains("private final Iterable<String> " + CONFIG_FIELD_NAME + ";")
+              .containsPattern("public Stream<String> " + CONFIG_FIELD_NAME + "\\(\\)\\s*\\{\\s*return "
+                  + "StreamSupport\\.stream\\(" + CONFIG_FIELD_NAME + "\\.spliterator\\(\\), false\\);")
+              .containsPattern("public Iterable<Long> other\\(\\)\\s*\\{\\s*return other;")
+      );
+    }
+
+    @Test
+    public void generateClassThatIndexesListsOfConfigsAndValidatesTheirKeys() {
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "import " + Config.class.getCanonicalName() + ";\n" +
+              "import " + Map.class.getCanonicalName() + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"%s\", indexBy = \"id\")\n" +
+              "  Map<String, Config> %s();\n" +
+              "\n" +
+              "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, CONFIG_FIELD_NAME);
 
+      withGeneratedReader(input,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .containsPattern("return WiringSupport\\.<Config>index\\(config\\.getList\\(\"" + CONFIG_FIELD_KEY
+                  + "\"\\),\\s+\"" + CONFIG_FIELD_KEY + "\", \"id\", element -> element\\)")
+              .containsPattern("private static final [a-zA-Z0-9_\\.]*UniqueIndexKeys " + ANY_NAME
+                  + " = new [a-zA-Z0-9_\\.]*UniqueIndexKeys\\(\\)")
+              .doesNotContain("MapM")
       );
+    }
 
+    @Test
+    public void generateVolatileFieldsAndUpdateMethodForDynamicValues() {
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"%s\", dynamic = true)\n" +
+              "  %s %s();\n" +
+              "\n" +
+              "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, CONFIG_FIELD_TYPE, CONFIG_FIELD_NAME);
+
+      withGeneratedReader(input,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .contains("private volatile " + CONFIG_FIELD_TYPE + " " + CONFIG_FIELD_NAME + ";")
+              .containsPattern("public Runnable update\\$\\(final Config config,\\s+final ConfigWiringListener "
+                  + "listener,\\s+final WiringSupport.Validation validation\\)")
+              .contains("this." + CONFIG_FIELD_NAME + " = " + CONFIG_FIELD_NAME + ";")
+      );
+      withGeneratedImplementation(input,
+          actualSource -> assertThat(actualSource.replaceAll("\\n", " "))
+              .containsPattern("public void update\\(final Config config\\)")
+              .containsPattern("validation.complete\\(\\);\\s+[a-zA-Z0-9_\\$]+update.run\\(\\);")
+      );
+    }
+
+    @Test
+    public void generateMapperCallingSettersOfConfigBeansInsteadOfBeanMapper() throws IOException {
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "import " + CONFIG_BEAN.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "(fallbackToBeanMapper = true)\n" +
+              "public interface %s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"%s\")\n" +
+              "  Bean %s();\n" +
+              "\n" +
+              "  @" + CONFIG_BEAN.name + "\n" +
+              "  class Bean {\n" +
+              "    @com.typesafe.config.Optional\n" +
+              "    private String name;\n" +
+              "    public void setName(String name) { this.name = name; }\n" +
+              "    public void setMaxSize(int maxSize) { }\n" +
+              "  }\n" +
+              "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, CONFIG_FIELD_NAME);
+      String mapper = INPUT_SOURCE_NAME + "_Bean_ConfigMapper";
+
+      Compilation result = Compiler.javac()
+          .withProcessors(new ConfigReaderProcessor(), new ConfigProcessor())
+          .compile(JavaFileObjects.forSourceString(INPUT_SOURCE_NAME, input));
+
+      assertThat(result.status()).as("Compilation failed with: %s", result.errors()).isEqualTo(Status.SUCCESS);
+      assertThat(generatedSource(result, mapper).replaceAll("\\n", " "))
+          .contains("public final class " + mapper + " implements ConfigMapper<" + INPUT_SOURCE_NAME + ".Bean>")
+          .containsPattern("if \\(config\\.hasPath\\(\"name\"\\)\\) \\{\\s+"
+              + "bean\\.setName\\(config\\.getString\\(\"name\"\\)\\);")
+          .contains("bean.setMaxSize(config.getInt(WiringSupport.beanKey(config, \"maxSize\", \"max-size\")));");
+      assertThat(generatedSource(result, READER_NAME))
+          .contains(mapper + ".read(config.getConfig(\"" + CONFIG_FIELD_KEY + "\"))")
+          .doesNotContain(BasicMappers.BeanM.class.getSimpleName());
+    }
+
+    @Test
+    public void generateMapperCallingOverriddenSettersOfConfigBeansOnce() throws IOException {
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "import " + CONFIG_BEAN.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "\n" +
+              "  @" + CONFIG_VALUE.name + "(atPath = \"%s\")\n" +
+              "  Bean %s();\n" +
+              "\n" +
+              "  class Base {\n" +
+              "    public void setName(String name) { }\n" +
+              "    public void setSize(int size) { }\n" +
+              "  }\n" +
+              "\n" +
+              "  @" + CONFIG_BEAN.name + "\n" +
+              "  class Bean extends Base {\n" +
+              "    @Override\n" +
+              "    public void setName(String name) { }\n" +
+              "  }\n" +
+              "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, CONFIG_FIELD_NAME);
+      String mapper = INPUT_SOURCE_NAME + "_Bean_ConfigMapper";
+
+      Compilation result = Compiler.javac()
+          .withProcessors(new ConfigReaderProcessor(), new ConfigProcessor())
+          .compile(JavaFileObjects.forSourceString(INPUT_SOURCE_NAME, input));
+
+      assertThat(result.status()).as("Compilation failed with: %s", result.errors()).isEqualTo(Status.SUCCESS);
+      String source = generatedSource(result, mapper);
+      assertThat(source.split("bean\\.setName\\(", -1)).hasSize(2);
+      assertThat(source).contains("bean.setSize(config.getInt(\"size\"));");
     }
 
   }
@@ -354,6 +1000,48 @@ public class ConfigProcessorTest {
     }
 
 
+    @Test
+    public void generateErrorIfDefaultValueDoesNotMatchReturnedType() {
+      String interfaceName = "Foo";
+      String methodName = "intValue";
+      String input = String.format(
+          "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "@" + CONFIG_VALUE.name + "(atPath = \"any\", defaultValue = \"forty-two\")\n" +
+              "int %s();\n" +
+              "}\n", interfaceName, methodName);
+
+      withFailedCompilation(singletonMap(interfaceName, input), errors -> {
+        assertThat(errors).hasSize(1);
+        DiagnosticAssert.assertThat(errors.get(0))
+            .isErrorContaining("Invalid default value", "forty-two", "int", interfaceName, methodName);
+      });
+    }
+
+    @Test
+    public void generateErrorIfDefaultValueIsUsedOnOptionalValue() {
+      String interfaceName = "Foo";
+      String methodName = "optionalValue";
+      String input = String.format(
+          "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "@" + CONFIG_VALUE.name + "(atPath = \"any\", defaultValue = \"value\")\n" +
+              "java.util.Optional<String> %s();\n" +
+              "}\n", interfaceName, methodName);
+
+      withFailedCompilation(singletonMap(interfaceName, input), errors -> {
+        assertThat(errors).hasSize(1);
+        DiagnosticAssert.assertThat(errors.get(0))
+            .isErrorContaining("Default values cannot be used on Optional", interfaceName, methodName);
+      });
+    }
+
     @Test
     public void generateErrorIfAnnotatedMethodHasCustomMapperThatDoesNotMatchReturnedType() {
       String interfaceName = "Foo";
@@ -424,6 +1112,133 @@ public class ConfigProcessorTest {
       });
     }
 
+    @Test
+    public void generateErrorIfConfigValueReturnsConfigTypeThatIsNotNested() {
+      String interfaceName = "Foo";
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %1$s {\n" +
+              "@" + CONFIG_VALUE.name + "(atPath = \"any\")\n" +
+              "%1$s %2$s();\n" +
+              "}\n", interfaceName, CONFIG_FIELD_NAME);
+
+      withFailedCompilation(singletonMap(interfaceName, input), errors -> {
+        assertThat(errors).hasSize(1);
+        DiagnosticAssert.assertThat(errors.get(0))
+            .isErrorContaining("needs to be annotated with " + CONFIG_TYPE.name + "(nested = true)", interfaceName);
+      });
+    }
+
+    @Test
+    public void generateErrorIfNestedTypeHasContextPath() {
+      String interfaceName = "Foo";
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "(nested = true, contextPath = \"foo\")\n" +
+              "public interface %s {\n" +
+              "@" + CONFIG_VALUE.name + "(atPath = \"any\")\n" +
+              "%s %s();\n" +
+              "}\n", interfaceName, CONFIG_FIELD_TYPE, CONFIG_FIELD_NAME);
+
+      withFailedCompilation(singletonMap(interfaceName, input), errors -> {
+        assertThat(errors).hasSize(1);
+        DiagnosticAssert.assertThat(errors.get(0))
+            .isErrorContaining("nested types cannot have a context path", CONFIG_TYPE.name, interfaceName);
+      });
+    }
+
+    @Test
+    public void generateErrorIfConfigValueIsBothLazyAndDynamic() {
+      String interfaceName = "Foo";
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "@" + CONFIG_VALUE.name + "(atPath = \"any\", lazy = true, dynamic = true)\n" +
+              "%s %s();\n" +
+              "}\n", interfaceName, CONFIG_FIELD_TYPE, CONFIG_FIELD_NAME);
+
+      withFailedCompilation(singletonMap(interfaceName, input), errors -> {
+        assertThat(errors).hasSize(1);
+        DiagnosticAssert.assertThat(errors.get(0))
+            .isErrorContaining("cannot be both lazy and dynamic", interfaceName);
+      });
+    }
+
+    @Test
+    public void generateErrorIfStreamConfigValueIsLazy() {
+      String interfaceName = "Foo";
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "import " + Stream.class.getCanonicalName() + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "@" + CONFIG_VALUE.name + "(atPath = \"any\", lazy = true)\n" +
+              "Stream<String> %s();\n" +
+              "}\n", interfaceName, CONFIG_FIELD_NAME);
+
+      withFailedCompilation(singletonMap(interfaceName, input), errors -> {
+        assertThat(errors).hasSize(1);
+        DiagnosticAssert.assertThat(errors.get(0))
+            .isErrorContaining("Stream and Iterable config values cannot be lazy", interfaceName);
+      });
+    }
+
+    @Test
+    public void generateErrorIfIndexedConfigValueIsNotAMapOfConfigs() {
+      String interfaceName = "Foo";
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_TYPE.canonicalName + ";\n" +
+              "import " + CONFIG_VALUE.canonicalName + ";\n" +
+              "import " + Map.class.getCanonicalName() + ";\n" +
+              "\n" +
+              "@" + CONFIG_TYPE.name + "\n" +
+              "public interface %s {\n" +
+              "@" + CONFIG_VALUE.name + "(atPath = \"any\", indexBy = \"id\")\n" +
+              "Map<String, Integer> %s();\n" +
+              "}\n", interfaceName, CONFIG_FIELD_NAME);
+
+      withFailedCompilation(singletonMap(interfaceName, input), errors -> {
+        assertThat(errors).hasSize(1);
+        DiagnosticAssert.assertThat(errors.get(0))
+            .isErrorContaining("Config values indexed by 'id' need to be maps with String keys", interfaceName);
+      });
+    }
+
+    @Test
+    public void generateErrorIfConfigBeanHasNoConstructorToCall() {
+      String beanName = "Foo";
+      String input = String.format(
+          "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+              "import " + CONFIG_BEAN.canonicalName + ";\n" +
+              "\n" +
+              "@" + CONFIG_BEAN.name + "\n" +
+              "public class %s {\n" +
+              "public %1$s(String a) { }\n" +
+              "public %1$s(int b) { }\n" +
+              "}\n", beanName);
+
+      withFailedCompilation(singletonMap(beanName, input), errors -> {
+        assertThat(errors).hasSize(1);
+        DiagnosticAssert.assertThat(errors.get(0))
+            .isErrorContaining("needs a public constructor without parameters", CONFIG_BEAN.name, beanName);
+      });
+    }
+
     @Test
     public void generateErrorIfAnnotatedTypeHasGenerics() {
       String interfaceName = "Foo";
@@ -467,6 +1282,177 @@ public class ConfigProcessorTest {
     }
   }
 
+  @Test
+  public void shouldGenerateTenThousandValuesOfASingleTypeWithinTimeBudget() throws IOException {
+    generationTime(1_000);
+
+    Duration thousand = generationTime(1_000);
+    Duration tenThousand = generationTime(10_000);
+
+    assertThat(tenThousand).isLessThan(GENERATION_TIME_BUDGET);
+    assertThat(tenThousand.toNanos() / thousand.toNanos())
+        .as("Generating 10,000 values took %s against %s for 1,000", tenThousand, thousand)
+        .isLessThan(GENERATION_SCALING_BUDGET);
+  }
+
+  @Test
+  public void shouldCompileASingleTypeWithThousandsOfValues() {
+    int values = 4_000;
+
+    Compilation result = Compiler.javac()
+        .withProcessors(new ConfigReaderProcessor(), new ConfigProcessor())
+        .compile(JavaFileObjects.forSourceString("Big", singleTypeSource("Big", values)));
+
+    assertThat(result.status()).as("Compilation failed with: %s", result.errors()).isEqualTo(Status.SUCCESS);
+    assertThat(result.generatedFile(StandardLocation.CLASS_OUTPUT, GlobalConfig.class.getPackage().getName(),
+        "Big_ConfigReader.class")).isPresent();
+  }
+
+  @Test
+  public void shouldReportTheTimingOfEachPhaseOnlyWhenAsked() {
+    Compilation timed = Compiler.javac()
+        .withProcessors(new ConfigReaderProcessor(), new ConfigProcessor())
+        .withOptions("-A" + ConfigProcessor.TIMINGS_OPTION)
+        .compile(JavaFileObjects.forSourceString(INPUT_SOURCE_NAME, DEFAULT_INPUT));
+    Compilation untimed = Compiler.javac()
+        .withProcessors(new ConfigReaderProcessor(), new ConfigProcessor())
+        .compile(JavaFileObjects.forSourceString(INPUT_SOURCE_NAME, DEFAULT_INPUT));
+
+    assertThat(timed.notes()).extracting(note -> note.getMessage(Locale.ROOT))
+        .anySatisfy(note -> assertThat(note).startsWith(ConfigProcessor.TIMINGS_NOTE)
+            .containsPattern("readerSpecs=\\d+ readerBuild=\\d+ readerWriteTo=\\d+"))
+        .anySatisfy(note -> assertThat(note).startsWith(ConfigProcessor.TIMINGS_NOTE)
+            .containsPattern("accumulate=\\d+ build=\\d+ writeTo=\\d+"));
+    assertThat(untimed.notes()).extracting(note -> note.getMessage(Locale.ROOT))
+        .noneMatch(note -> note.startsWith(ConfigProcessor.TIMINGS_NOTE));
+  }
+
+  @Test
+  public void shouldBakeTheGivenConfigIntoASnapshotResourceOnlyWhenAsked() throws IOException {
+    Compilation baked = compileBaking("path.to.property = baked");
+    Compilation unbaked = Compiler.javac()
+        .withProcessors(new ConfigReaderProcessor(), new ConfigProcessor())
+        .compile(JavaFileObjects.forSourceString(INPUT_SOURCE_NAME, DEFAULT_INPUT));
+
+    assertThat(baked.status()).as("Compilation failed with: %s", baked.errors()).isEqualTo(Status.SUCCESS);
+    assertThat(baked.generatedFile(StandardLocation.CLASS_OUTPUT, "", GlobalConfigFactory.BAKED_SNAPSHOT))
+        .isPresent();
+    assertThat(unbaked.generatedFile(StandardLocation.CLASS_OUTPUT, "", GlobalConfigFactory.BAKED_SNAPSHOT))
+        .isNotPresent();
+  }
+
+  @Test
+  public void shouldFailToBakeMissingOrInvalidValuesUnlessTheyAreDynamic() throws IOException {
+    String validated = DEFAULT_INPUT.replace("(atPath = \"" + CONFIG_FIELD_KEY + "\")",
+        "(atPath = \"" + CONFIG_FIELD_KEY + "\", validatedBy = " + NonEmptyString.class.getName() + ".class)");
+
+    Compilation missing = compileBaking("path.to.other = baked");
+    Compilation invalid = compileBaking(validated, "path.to.property = \"\"");
+    Compilation dynamic = compileBaking(DEFAULT_INPUT, "path.to.other = baked",
+        "-A" + ConfigProcessor.BAKE_DYNAMIC_OPTION + "=path.to");
+
+    assertThat(missing.errors()).hasSize(1);
+    DiagnosticAssert.assertThat(missing.errors().get(0))
+        .isErrorContaining("Cannot bake config value at path '" + CONFIG_FIELD_KEY + "'", INPUT_SOURCE_NAME);
+    assertThat(invalid.errors()).hasSize(1);
+    DiagnosticAssert.assertThat(invalid.errors().get(0))
+        .isErrorContaining("Invalid baked config value at path '" + CONFIG_FIELD_KEY + "'", INPUT_SOURCE_NAME);
+    assertThat(dynamic.status()).as("Compilation failed with: %s", dynamic.errors()).isEqualTo(Status.SUCCESS);
+  }
+
+  @Test
+  public void shouldNoteTheMappersAndValidatorsThatCannotRunWhenBaking() throws IOException {
+    String input = String.format(
+        "package " + GlobalConfig.class.getPackage().getName() + ";\n" +
+            "import " + CONFIG_TYPE.canonicalName + ";\n" +
+            "import " + CONFIG_VALUE.canonicalName + ";\n" +
+            "import com.typesafe.config.Config;\n" +
+            "import java.util.Collection;\n" +
+            "import java.util.Collections;\n" +
+            "\n" +
+            "@" + CONFIG_TYPE.name + "\n" +
+            "public interface %s {\n" +
+            "\n" +
+            "  @" + CONFIG_VALUE.name + "(atPath = \"%s\", validatedBy = Local.class)\n" +
+            "  String %s();\n" +
+            "\n" +
+            "  @" + CONFIG_VALUE.name + "(atPath = \"other\", mappedBy = LocalMapper.class)\n" +
+            "  String other();\n" +
+            "\n" +
+            "  class Local implements " + ConfigValidator.class.getName() + "<String> {\n" +
+            "    public Collection<" + ValidationError.class.getName() + "> apply(String value) {\n" +
+            "      return Collections.emptySet();\n" +
+            "    }\n" +
+            "  }\n" +
+            "\n" +
+            "  class LocalMapper implements " + ConfigMapper.class.getName() + "<String> {\n" +
+            "    public String apply(Config config, String path) {\n" +
+            "      return config.getString(path);\n" +
+            "    }\n" +
+            "  }\n" +
+            "}", INPUT_SOURCE_NAME, CONFIG_FIELD_KEY, CONFIG_FIELD_NAME);
+
+    Compilation baked = compileBaking(input, "path.to.property = baked, other = baked");
+
+    assertThat(baked.status()).as("Compilation failed with: %s", baked.errors()).isEqualTo(Status.SUCCESS);
+    assertThat(baked.notes()).extracting(note -> note.getMessage(Locale.ROOT))
+        .contains("Config value at path 'other' is read at runtime, as its mapper cannot run at build time",
+            "Validator 'Local' of config value at path '" + CONFIG_FIELD_KEY + "' only runs at runtime, as it cannot"
+                + " be loaded at build time");
+  }
+
+  /**
+   * Time spent by the processors generating a single config type with the given number of values, leaving out javac
+   * parsing the source and compiling the generated one.
+   */
+  private static Duration generationTime(int values) throws IOException {
+    TimedProcessor readerProcessor = new TimedProcessor(new ConfigReaderProcessor());
+    TimedProcessor processor = new TimedProcessor(new ConfigProcessor());
+    Compilation result = Compiler.javac()
+        .withProcessors(readerProcessor, processor)
+        .withOptions("-proc:only")
+        .compile(JavaFileObjects.forSourceString("Big", singleTypeSource("Big", values)));
+
+    assertThat(result.status()).as("Compilation failed with: %s", result.errors()).isEqualTo(Status.SUCCESS);
+    Optional<JavaFileObject> reader = result.generatedSourceFile(GlobalConfig.class.getPackage().getName()
+        + ".Big_ConfigReader");
+    assertThat(reader).isPresent();
+    String generatedSource = IOUtils.toString(reader.get().openInputStream(), UTF_8);
+    assertThat(generatedSource.split("private static String readV", -1).length - 1).isEqualTo(values);
+    return readerProcessor.elapsed().plus(processor.elapsed());
+  }
+
+  /**
+   * A config type with the given number of String values, read from its context path.
+   */
+  private static String singleTypeSource(String name, int values) {
+    StringBuilder source = new StringBuilder()
+        .append("package ").append(GlobalConfig.class.getPackage().getName()).append(";\n")
+        .append("@").append(CONFIG_TYPE.canonicalName).append("(contextPath = \"big\")\n")
+        .append("public interface ").append(name).append(" {\n");
+    for (int value = 0; value < values; value++) {
+      source.append("  @").append(CONFIG_VALUE.canonicalName).append("(atPath = \"v").append(value)
+          .append("\")\n  String v").append(value).append("();\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  private static Compilation compileBaking(String config) throws IOException {
+    return compileBaking(DEFAULT_INPUT, config);
+  }
+
+  private static Compilation compileBaking(String source, String config, String... options) throws IOException {
+    File baked = File.createTempFile("config-composer-test", ".conf");
+    baked.deleteOnExit();
+    FileUtils.writeStringToFile(baked, config, UTF_8);
+    List<String> allOptions = new ArrayList<>(Arrays.asList(options));
+    allOptions.add("-A" + ConfigProcessor.BAKE_OPTION + "=" + baked.getAbsolutePath());
+    return Compiler.javac()
+        .withProcessors(new ConfigReaderProcessor(), new ConfigProcessor())
+        .withOptions(allOptions)
+        .compile(JavaFileObjects.forSourceString(INPUT_SOURCE_NAME, source));
+  }
+
   private Map.Entry<String, String> readFileToString(File file) {
     try {
       return new AbstractMap.SimpleEntry<>(
@@ -478,4 +1464,46 @@ public class ConfigProcessorTest {
     }
   }
 
+  /**
+   * Measures the time spent in the rounds of the wrapped processor.
+   */
+  private static final class TimedProcessor extends AbstractProcessor {
+
+    private final Processor delegate;
+    private long elapsedNanos;
+
+    TimedProcessor(Processor delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized void init(ProcessingEnvironment env) {
+      super.init(env);
+      delegate.init(env);
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+      return delegate.getSupportedAnnotationTypes();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return delegate.getSupportedSourceVersion();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      long start = System.nanoTime();
+      try {
+        return delegate.process(annotations, roundEnv);
+      } finally {
+        elapsedNanos += System.nanoTime() - start;
+      }
+    }
+
+    Duration elapsed() {
+      return Duration.ofNanos(elapsedNanos);
+    }
+  }
 }
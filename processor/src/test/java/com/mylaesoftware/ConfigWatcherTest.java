@@ -0,0 +1,169 @@
+package com.mylaesoftware;
+
+import com.mylaesoftware.validators.ConfigValidationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConfigWatcherTest {
+
+  private static final ClassLoader GENERATED = GeneratedCodeLoader.compileAndLoad("runtime/NamedConfig.java");
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+  private Path directory;
+  private Path file;
+  private Path overrides;
+  private ConfigWatcher<GlobalConfig> watcher;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("config-watcher-test");
+    file = write(directory.resolve("application.conf"), "name = first");
+    overrides = write(directory.resolve("overrides.conf"), "");
+    watcher = new ConfigWatcher<>(GENERATED, Duration.ofMillis(50), overrides, file);
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    watcher.close();
+    Files.deleteIfExists(file);
+    Files.deleteIfExists(overrides);
+    Files.deleteIfExists(directory);
+  }
+
+  @Test
+  public void shouldWireConfigFromFilesGivingPrecedenceToTheFirstOne() throws IOException {
+    assertThat(name(watcher.get())).isEqualTo("first");
+
+    write(overrides, "name = overridden");
+    watcher.reload();
+
+    assertThat(name(watcher.get())).isEqualTo("overridden");
+  }
+
+  @Test
+  public void shouldPublishNewConfigWhenAWatchedFileChanges() throws IOException {
+    List<GlobalConfig> reloaded = new CopyOnWriteArrayList<>();
+    watcher.onReload(reloaded::add);
+
+    write(file, "name = second");
+
+    awaitUntil(() -> "second".equals(name(watcher.get())));
+    assertThat(reloaded).hasSize(1).containsExactly(watcher.get());
+  }
+
+  @Test
+  public void shouldKeepLastValidConfigWhenReloadFails() throws IOException {
+    List<RuntimeException> errors = new CopyOnWriteArrayList<>();
+    watcher.onError(errors::add);
+    final GlobalConfig valid = watcher.get();
+
+    write(file, "name = \" \"");
+
+    awaitUntil(() -> !errors.isEmpty());
+    assertThat(errors.get(0)).isInstanceOf(ConfigValidationException.class);
+    assertThat(watcher.get()).isSameAs(valid);
+    assertThatThrownBy(watcher::reload).isInstanceOf(ConfigValidationException.class);
+    assertThat(watcher.get()).isSameAs(valid);
+  }
+
+  @Test
+  public void shouldNotTreatFailingReloadListenersAsFailedReloads() throws IOException {
+    List<RuntimeException> errors = new CopyOnWriteArrayList<>();
+    List<GlobalConfig> reloaded = new CopyOnWriteArrayList<>();
+    watcher.onError(errors::add)
+        .onReload(config -> {
+          throw new IllegalStateException("listener failed");
+        })
+        .onReload(reloaded::add);
+
+    write(file, "name = second");
+
+    awaitUntil(() -> !reloaded.isEmpty());
+    assertThat(name(watcher.get())).isEqualTo("second");
+    assertThat(errors).isEmpty();
+  }
+
+  @Test
+  public void shouldKeepWatchingWhenAnErrorListenerFails() throws IOException {
+    List<RuntimeException> errors = new CopyOnWriteArrayList<>();
+    watcher.onError(error -> {
+      throw new IllegalStateException("listener failed");
+    })
+        .onError(errors::add);
+
+    write(file, "name = \" \"");
+
+    awaitUntil(() -> !errors.isEmpty());
+    write(file, "name = second");
+
+    awaitUntil(() -> "second".equals(name(watcher.get())));
+  }
+
+  @Test
+  public void shouldPublishNewConfigWhenALinkToAWatchedFileIsReplaced() throws IOException {
+    Path mount = Files.createTempDirectory("config-watcher-mount");
+    write(Files.createDirectory(mount.resolve("..v1")).resolve("application.conf"), "name = first");
+    write(Files.createDirectory(mount.resolve("..v2")).resolve("application.conf"), "name = second");
+    Files.createSymbolicLink(mount.resolve("..data"), Paths.get("..v1"));
+    Path linked = Files.createSymbolicLink(mount.resolve("application.conf"), Paths.get("..data/application.conf"));
+
+    try (ConfigWatcher<GlobalConfig> mounted = new ConfigWatcher<>(GENERATED, Duration.ofMillis(50), linked)) {
+      assertThat(name(mounted.get())).isEqualTo("first");
+
+      Files.createSymbolicLink(mount.resolve("..data_tmp"), Paths.get("..v2"));
+      Files.move(mount.resolve("..data_tmp"), mount.resolve("..data"), StandardCopyOption.ATOMIC_MOVE);
+
+      awaitUntil(() -> "second".equals(name(mounted.get())));
+    } finally {
+      try (Stream<Path> paths = Files.walk(mount)) {
+        for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static String name(GlobalConfig config) {
+    return ((Supplier<String>) config).get();
+  }
+
+  private static Path write(Path target, String content) throws IOException {
+    return Files.write(target, content.getBytes(UTF_8));
+  }
+
+  private static void awaitUntil(BooleanSupplier condition) {
+    long deadline = System.nanoTime() + TIMEOUT.toNanos();
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) {
+        throw new AssertionError("Condition not met within " + TIMEOUT);
+      }
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new AssertionError("Interrupted while waiting", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.mylaesoftware;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+
+import javax.tools.JavaFileObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Loads the classes and resources produced by a successful {@link Compilation} so that generated code can be run.
+ */
+public final class GeneratedCodeLoader {
+
+  private static final String CLASS_OUTPUT = "/CLASS_OUTPUT/";
+
+  private GeneratedCodeLoader() {
+  }
+
+  public static ClassLoader compileAndLoad(String... resources) {
+    return compileAndLoad(Collections.emptyList(), resources);
+  }
+
+  public static ClassLoader compileAndLoad(List<String> options, String... resources) {
+    Compilation compilation = Compiler.javac()
+        .withProcessors(new ConfigReaderProcessor(), new ConfigProcessor())
+        .withOptions(options)
+        .compile(Stream.of(resources).map(JavaFileObjects::forResource).collect(Collectors.toList()));
+    assertThat(compilation.status()).as("Compilation failed with: %s", compilation.errors())
+        .isEqualTo(Compilation.Status.SUCCESS);
+    return load(compilation);
+  }
+
+  public static ClassLoader load(Compilation compilation) {
+    try {
+      Path outputDir = Files.createTempDirectory("config-composer-test");
+      outputDir.toFile().deleteOnExit();
+      for (JavaFileObject file : compilation.generatedFiles()) {
+        String uriPath = file.toUri().getPath();
+        if (!uriPath.startsWith(CLASS_OUTPUT)) {
+          continue;
+        }
+        Path target = outputDir.resolve(uriPath.substring(CLASS_OUTPUT.length()));
+        Files.createDirectories(target.getParent());
+        try (InputStream content = file.openInputStream()) {
+          Files.copy(content, target);
+        }
+        target.toFile().deleteOnExit();
+      }
+      return new URLClassLoader(new URL[] {outputDir.toUri().toURL()}, GeneratedCodeLoader.class.getClassLoader());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot load generated code", e);
+    }
+  }
+}
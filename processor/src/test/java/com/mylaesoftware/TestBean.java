@@ -3,6 +3,10 @@ package com.mylaesoftware;
 public class TestBean {
   private String field;
 
+  public String getField() {
+    return field;
+  }
+
   public void setField(String value) {
     field = value;
   }
@@ -0,0 +1,27 @@
+package com.mylaesoftware;
+
+import com.mylaesoftware.snapshot.SnapshotCodec;
+import com.mylaesoftware.snapshot.SnapshotInput;
+import com.mylaesoftware.snapshot.SnapshotOutput;
+
+import java.io.IOException;
+
+public class TestBeanCodec implements SnapshotCodec<TestBean> {
+
+  @Override
+  public Class<TestBean> type() {
+    return TestBean.class;
+  }
+
+  @Override
+  public void write(TestBean value, SnapshotOutput out) throws IOException {
+    out.writeString(value.getField());
+  }
+
+  @Override
+  public TestBean read(SnapshotInput in) {
+    TestBean bean = new TestBean();
+    bean.setField(in.readString());
+    return bean;
+  }
+}
@@ -0,0 +1,90 @@
+package com.mylaesoftware.example;
+
+import com.mylaesoftware.annotations.ConfigBean;
+import com.mylaesoftware.annotations.ConfigType;
+import com.mylaesoftware.annotations.ConfigValue;
+import com.typesafe.config.Optional;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigType(contextPath = "beans")
+public interface BeansConfig {
+
+  @ConfigValue(atPath = "server")
+  Server server();
+
+  @ConfigValue(atPath = "points")
+  List<Point> points();
+
+  enum Mode { FAST, SAFE }
+
+  @ConfigBean
+  class Server {
+    private String host;
+    private int maxConnections;
+    @Optional
+    private Duration timeout = Duration.ofSeconds(1);
+    private Mode mode;
+    private List<Point> corners;
+
+    public String getHost() {
+      return host;
+    }
+
+    public void setHost(String host) {
+      this.host = host;
+    }
+
+    public int getMaxConnections() {
+      return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+      this.maxConnections = maxConnections;
+    }
+
+    public Duration getTimeout() {
+      return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+      this.timeout = timeout;
+    }
+
+    public Mode getMode() {
+      return mode;
+    }
+
+    public void setMode(Mode mode) {
+      this.mode = mode;
+    }
+
+    public List<Point> getCorners() {
+      return corners;
+    }
+
+    public void setCorners(List<Point> corners) {
+      this.corners = corners;
+    }
+  }
+
+  @ConfigBean
+  class Point {
+    private final int x;
+    private final int y;
+
+    public Point(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+
+    public int getX() {
+      return x;
+    }
+
+    public int getY() {
+      return y;
+    }
+  }
+}
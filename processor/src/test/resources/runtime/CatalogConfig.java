@@ -0,0 +1,27 @@
+package com.mylaesoftware.example;
+
+import com.mylaesoftware.annotations.ConfigType;
+import com.mylaesoftware.annotations.ConfigValue;
+import com.typesafe.config.Config;
+
+import java.util.Map;
+
+@ConfigType(contextPath = "catalog")
+public interface CatalogConfig {
+
+  @ConfigValue(atPath = "services", indexBy = "id")
+  Map<String, Config> services();
+
+  @ConfigValue(atPath = "regions", indexBy = "name")
+  Map<String, Region> regions();
+
+  @ConfigType(nested = true)
+  interface Region {
+
+    @ConfigValue(atPath = "name")
+    String name();
+
+    @ConfigValue(atPath = "zones")
+    int zones();
+  }
+}
@@ -0,0 +1,37 @@
+package com.mylaesoftware.example;
+
+import com.mylaesoftware.annotations.ConfigType;
+import com.mylaesoftware.annotations.ConfigValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@ConfigType(contextPath = "defaults")
+public interface DefaultsConfig {
+
+  @ConfigValue(atPath = "name", defaultValue = "")
+  String name();
+
+  @ConfigValue(atPath = "retries", defaultValue = "3")
+  int retries();
+
+  @ConfigValue(atPath = "ratio", defaultValue = "0.75")
+  Double ratio();
+
+  @ConfigValue(atPath = "timeout", defaultValue = "2 seconds")
+  Duration timeout();
+
+  @ConfigValue(atPath = "unit", defaultValue = "SECONDS")
+  TimeUnit unit();
+
+  @ConfigValue(atPath = "ports", defaultValue = "[8080, 8081]")
+  List<Integer> ports();
+
+  @ConfigValue(atPath = "buckets", defaultValue = "[1, 5, 10]")
+  long[] buckets();
+
+  @ConfigValue(atPath = "tag")
+  Optional<String> tag();
+}
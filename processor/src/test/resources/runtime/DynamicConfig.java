@@ -0,0 +1,29 @@
+package com.mylaesoftware.example;
+
+import com.mylaesoftware.annotations.ConfigType;
+import com.mylaesoftware.annotations.ConfigValue;
+import com.mylaesoftware.validators.ConfigValidator;
+import com.mylaesoftware.validators.ValidationError;
+
+import java.util.Collection;
+import java.util.Collections;
+
+@ConfigType(contextPath = "flags")
+public interface DynamicConfig {
+
+  @ConfigValue(atPath = "enabled", dynamic = true)
+  boolean enabled();
+
+  @ConfigValue(atPath = "rate", dynamic = true, validatedBy = PositiveRate.class)
+  int rate();
+
+  @ConfigValue(atPath = "name")
+  String name();
+
+  class PositiveRate implements ConfigValidator<Integer> {
+    @Override
+    public Collection<ValidationError> apply(Integer rate) {
+      return rate > 0 ? Collections.emptySet() : Collections.singleton(new ValidationError("must be positive"));
+    }
+  }
+}
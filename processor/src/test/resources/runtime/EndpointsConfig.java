@@ -0,0 +1,48 @@
+package com.mylaesoftware.example;
+
+import com.mylaesoftware.annotations.ConfigType;
+import com.mylaesoftware.annotations.ConfigValue;
+import com.mylaesoftware.validators.ConfigValidator;
+import com.mylaesoftware.validators.NonEmptyString;
+import com.mylaesoftware.validators.ValidationError;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@ConfigType(contextPath = "upstreams")
+public interface EndpointsConfig {
+
+  @ConfigValue(atPath = "primary")
+  Endpoint primary();
+
+  @ConfigValue(atPath = "all")
+  List<Endpoint> all();
+
+  @ConfigValue(atPath = "by-name")
+  Map<String, Endpoint> byName();
+
+  @ConfigValue(atPath = "backup")
+  Optional<Endpoint> backup();
+
+  @ConfigType(nested = true, validatedBy = Endpoint.NotLocal.class)
+  interface Endpoint {
+
+    @ConfigValue(atPath = "host", validatedBy = NonEmptyString.class)
+    String host();
+
+    @ConfigValue(atPath = "port", defaultValue = "80")
+    int port();
+
+    class NotLocal implements ConfigValidator<Endpoint> {
+      @Override
+      public Collection<ValidationError> apply(Endpoint endpoint) {
+        return "localhost".equals(endpoint.host())
+            ? Collections.singleton(new ValidationError("cannot be local"))
+            : Collections.emptySet();
+      }
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.mylaesoftware.example;
+
+import com.mylaesoftware.annotations.ConfigType;
+import com.mylaesoftware.annotations.ConfigValue;
+import com.mylaesoftware.mappers.ConfigMapper;
+import com.mylaesoftware.validators.NonEmptyString;
+import com.typesafe.config.Config;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ConfigType(contextPath = "lazy")
+public interface LazyConfig {
+
+  AtomicInteger MAPPINGS = new AtomicInteger();
+
+  @ConfigValue(atPath = "rules", mappedBy = CountingMapper.class, lazy = true)
+  List<String> rules();
+
+  @ConfigValue(atPath = "name", validatedBy = NonEmptyString.class, lazy = true)
+  String name();
+
+  @ConfigValue(atPath = "size")
+  int size();
+
+  class CountingMapper implements ConfigMapper<List<String>> {
+    @Override
+    public List<String> apply(Config config, String path) {
+      MAPPINGS.incrementAndGet();
+      return config.getStringList(path);
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.mylaesoftware.example;
+
+import com.mylaesoftware.annotations.ConfigType;
+import com.mylaesoftware.annotations.ConfigValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@ConfigType(contextPath = "limits")
+public interface LimitsConfig {
+
+  @ConfigValue(atPath = "per-tenant")
+  Map<String, Integer> perTenant();
+
+  @ConfigValue(atPath = "timeouts")
+  Map<String, Duration> timeouts();
+
+  @ConfigValue(atPath = "levels")
+  Map<String, Level> levels();
+
+  @ConfigValue(atPath = "routes")
+  Optional<Map<String, List<String>>> routes();
+
+  enum Level { LOW, HIGH }
+}
@@ -0,0 +1,18 @@
+package com.mylaesoftware.example;
+
+import com.mylaesoftware.annotations.ConfigType;
+import com.mylaesoftware.annotations.ConfigValue;
+import com.mylaesoftware.validators.NonEmptyString;
+
+import java.util.function.Supplier;
+
+@ConfigType
+public interface NamedConfig extends Supplier<String> {
+
+  @ConfigValue(atPath = "name", validatedBy = NonEmptyString.class)
+  String name();
+
+  default String get() {
+    return name();
+  }
+}
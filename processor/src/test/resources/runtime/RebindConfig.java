@@ -0,0 +1,58 @@
+package com.mylaesoftware.example;
+
+import com.mylaesoftware.annotations.ConfigType;
+import com.mylaesoftware.annotations.ConfigValue;
+import com.mylaesoftware.mappers.ConfigMapper;
+import com.mylaesoftware.validators.ConfigValidator;
+import com.mylaesoftware.validators.ValidationError;
+import com.typesafe.config.Config;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ConfigType(contextPath = "rebind", validatedBy = RebindConfig.TypeValidator.class)
+public interface RebindConfig {
+
+  AtomicInteger MAPPINGS = new AtomicInteger();
+  AtomicInteger TYPE_VALIDATIONS = new AtomicInteger();
+  AtomicInteger VALUE_VALIDATIONS = new AtomicInteger();
+
+  @ConfigValue(atPath = "stable", mappedBy = CountingMapper.class)
+  List<String> stable();
+
+  @ConfigValue(atPath = "changing", validatedBy = PositiveNumber.class)
+  int changing();
+
+  @ConfigType(contextPath = "other")
+  interface OtherConfig {
+
+    @ConfigValue(atPath = "name", validatedBy = PositiveNumber.class)
+    int other();
+  }
+
+  class CountingMapper implements ConfigMapper<List<String>> {
+    @Override
+    public List<String> apply(Config config, String path) {
+      MAPPINGS.incrementAndGet();
+      return config.getStringList(path);
+    }
+  }
+
+  class TypeValidator implements ConfigValidator<RebindConfig> {
+    @Override
+    public Collection<ValidationError> apply(RebindConfig config) {
+      TYPE_VALIDATIONS.incrementAndGet();
+      return Collections.emptySet();
+    }
+  }
+
+  class PositiveNumber implements ConfigValidator<Integer> {
+    @Override
+    public Collection<ValidationError> apply(Integer number) {
+      VALUE_VALIDATIONS.incrementAndGet();
+      return number > 0 ? Collections.emptySet() : Collections.singleton(new ValidationError("must be positive"));
+    }
+  }
+}
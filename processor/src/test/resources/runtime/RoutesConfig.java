@@ -0,0 +1,49 @@
+package com.mylaesoftware.example;
+
+import com.mylaesoftware.annotations.ConfigType;
+import com.mylaesoftware.annotations.ConfigValue;
+import com.mylaesoftware.validators.ConfigValidator;
+import com.mylaesoftware.validators.ValidationError;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@ConfigType(contextPath = "routing")
+public interface RoutesConfig {
+
+  @ConfigValue(atPath = "ports", validatedBy = PortsInRange.class)
+  Iterable<Integer> ports();
+
+  @ConfigValue(atPath = "routes", validatedBy = NoEmptyRoutes.class)
+  Stream<String> routes();
+
+  @ConfigValue(atPath = "levels")
+  Stream<Level> levels();
+
+  enum Level { LOW, HIGH }
+
+  class PortsInRange implements ConfigValidator<Iterable<Integer>> {
+    @Override
+    public Collection<ValidationError> apply(Iterable<Integer> ports) {
+      List<ValidationError> errors = new ArrayList<>();
+      for (Integer port : ports) {
+        if (port < 1 || port > 65535) {
+          errors.add(new ValidationError("port " + port + " out of range"));
+        }
+      }
+      return errors;
+    }
+  }
+
+  class NoEmptyRoutes implements ConfigValidator<Stream<String>> {
+    @Override
+    public Collection<ValidationError> apply(Stream<String> routes) {
+      return routes.filter(String::isEmpty)
+          .map(route -> new ValidationError("empty route"))
+          .collect(Collectors.toList());
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.mylaesoftware.example;
+
+import com.mylaesoftware.TestBean;
+import com.mylaesoftware.annotations.ConfigType;
+import com.mylaesoftware.annotations.ConfigValue;
+import com.mylaesoftware.mappers.ConfigMapper;
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigType(contextPath = "snapshot")
+public interface SnapshotConfig {
+
+  @ConfigValue(atPath = "bean", mappedBy = BeanMapper.class)
+  TestBean bean();
+
+  @ConfigValue(atPath = "nested")
+  Config nested();
+
+  @ConfigValue(atPath = "timeouts")
+  List<Duration> timeouts();
+
+  @ConfigValue(atPath = "weights")
+  double[] weights();
+
+  @ConfigValue(atPath = "anything")
+  Object anything();
+
+  class BeanMapper implements ConfigMapper<TestBean> {
+    @Override
+    public TestBean apply(Config config, String path) {
+      TestBean bean = new TestBean();
+      bean.setField(config.getString(path));
+      return bean;
+    }
+  }
+}